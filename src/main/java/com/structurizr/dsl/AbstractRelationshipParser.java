@@ -5,6 +5,9 @@ import com.structurizr.model.*;
 abstract class AbstractRelationshipParser extends AbstractParser {
 
     protected Relationship createRelationship(Element sourceElement, String description, String technology, String[] tags, Element destinationElement) {
+        // each of these calls Model.addRelationship(Relationship), which is private and scans the source element's
+        // relationships (via Element.has) to reject duplicates; the client library doesn't provide a way to add
+        // relationships without doing so, so it can't be replaced with an index or done in bulk
         Relationship relationship = null;
 
         if (sourceElement instanceof CustomElement) {
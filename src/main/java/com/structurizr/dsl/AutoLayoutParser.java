@@ -15,7 +15,7 @@ final class AutoLayoutParser extends AbstractParser {
     private static final int RANK_SEPARATION_INDEX = 2;
     private static final int NODE_SEPARATION_INDEX = 3;
 
-    private static Map<String, AutomaticLayout.RankDirection> RANK_DIRECTIONS = new HashMap<>();
+    private static final Map<String, AutomaticLayout.RankDirection> RANK_DIRECTIONS = new HashMap<>();
 
     static {
         RANK_DIRECTIONS.put("tb", AutomaticLayout.RankDirection.TopBottom);
@@ -1,6 +1,5 @@
 package com.structurizr.dsl;
 
-import com.structurizr.util.ImageUtils;
 import com.structurizr.view.Font;
 
 import java.io.File;
@@ -26,7 +25,7 @@ final class BrandingParser extends AbstractParser {
             File file = new File(context.getFile().getParent(), path);
             if (file.exists() && !file.isDirectory()) {
                 try {
-                    String dataUri = ImageUtils.getImageAsDataUri(file);
+                    String dataUri = ImageDataUriCache.getImageAsDataUri(file);
                     context.getWorkspace().getViews().getConfiguration().getBranding().setLogo(dataUri);
                 } catch (Exception e) {
                     throw new RuntimeException(e);
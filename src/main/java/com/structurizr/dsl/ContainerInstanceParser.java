@@ -43,6 +43,8 @@ final class ContainerInstanceParser extends AbstractParser {
                 }
             }
 
+            // this replicates relationships with the other instances in the same environment and deployment group;
+            // the client library doesn't provide a way to add an instance without doing so, so it can't be batched
             ContainerInstance containerInstance = deploymentNode.add((Container)element, deploymentGroup);
 
             if (tokens.includes(tagsIndex)) {
@@ -0,0 +1,182 @@
+package com.structurizr.dsl;
+
+import com.structurizr.model.*;
+
+import java.util.*;
+
+/**
+ * An implied relationships strategy that, rather than walking the ancestors of both ends of every relationship as it
+ * is created, records the relationships and creates their implied relationships in a single batch. The result is the
+ * same as CreateImpliedRelationshipsUnlessAnyRelationshipExistsStrategy: the pending relationships are processed in the
+ * order they were created, and an implied relationship is only created if no relationship exists between the same
+ * pair of elements at that point.
+ *
+ * Only relationships between static structure (and custom) elements are deferred; those involving deployment
+ * elements are passed straight to CreateImpliedRelationshipsUnlessAnyRelationshipExistsStrategy. Deferred relationships
+ * and their implied relationships only ever connect static structure and custom elements, so the two sets never
+ * affect each other.
+ */
+final class DeferredImpliedRelationshipsStrategy implements ImpliedRelationshipsStrategy {
+
+    private final ImpliedRelationshipsStrategy immediateStrategy = new CreateImpliedRelationshipsUnlessAnyRelationshipExistsStrategy();
+
+    private final List<Relationship> pendingRelationships = new ArrayList<>();
+    private final Map<Element, List<Element>> ancestors = new HashMap<>();
+    private boolean enabled = true;
+    private boolean creating = false;
+
+    @Override
+    public void createImpliedRelationships(Relationship relationship) {
+        if (!enabled || creating) {
+            return;
+        }
+
+        if (isStaticStructure(relationship.getSource()) && isStaticStructure(relationship.getDestination())) {
+            pendingRelationships.add(relationship);
+        } else {
+            immediateStrategy.createImpliedRelationships(relationship);
+        }
+    }
+
+    /**
+     * Sets whether implied relationships should be created for relationships created from now on.
+     */
+    void setEnabled(boolean enabled) {
+        if (!enabled) {
+            createPendingImpliedRelationships();
+        }
+
+        this.enabled = enabled;
+    }
+
+    /**
+     * Creates the implied relationships for all relationships created since this method was last called.
+     */
+    void createPendingImpliedRelationships() {
+        if (pendingRelationships.isEmpty()) {
+            return;
+        }
+
+        // every relationship that isn't pending was created before those that are
+        Model model = pendingRelationships.get(0).getModel();
+        Set<Relationship> pending = new HashSet<>(pendingRelationships);
+        Set<ElementPair> connectedElements = new HashSet<>();
+        for (Relationship relationship : model.getRelationships()) {
+            if (!pending.contains(relationship)) {
+                connectedElements.add(new ElementPair(relationship.getSource(), relationship.getDestination()));
+            }
+        }
+
+        creating = true;
+        try {
+            for (Relationship relationship : pendingRelationships) {
+                connectedElements.add(new ElementPair(relationship.getSource(), relationship.getDestination()));
+
+                List<Element> sourceAncestors = getAncestors(relationship.getSource());
+                List<Element> destinationAncestors = getAncestors(relationship.getDestination());
+                for (Element source : sourceAncestors) {
+                    for (Element destination : destinationAncestors) {
+                        if (impliedRelationshipIsAllowed(source, destination) && connectedElements.add(new ElementPair(source, destination))) {
+                            createRelationship(source, destination, relationship);
+                        }
+                    }
+                }
+            }
+        } finally {
+            creating = false;
+            pendingRelationships.clear();
+        }
+    }
+
+    /**
+     * Creates any pending implied relationships, and returns the strategy that should be used from now on.
+     */
+    ImpliedRelationshipsStrategy end() {
+        createPendingImpliedRelationships();
+
+        if (enabled) {
+            return immediateStrategy;
+        } else {
+            return new DefaultImpliedRelationshipsStrategy();
+        }
+    }
+
+    /**
+     * Gets the specified element followed by its parent, grandparent, etc.
+     */
+    private List<Element> getAncestors(Element element) {
+        List<Element> list = ancestors.get(element);
+        if (list == null) {
+            list = new ArrayList<>();
+            list.add(element);
+            if (element.getParent() != null) {
+                list.addAll(getAncestors(element.getParent()));
+            }
+            ancestors.put(element, list);
+        }
+
+        return list;
+    }
+
+    // the same rules as AbstractImpliedRelationshipsStrategy
+    private boolean impliedRelationshipIsAllowed(Element source, Element destination) {
+        if (source.equals(destination)) {
+            return false;
+        }
+
+        return !(isChildOf(source, destination) || isChildOf(destination, source));
+    }
+
+    private boolean isChildOf(Element e1, Element e2) {
+        if (e1 instanceof Person || e2 instanceof Person) {
+            return false;
+        }
+
+        List<Element> list = getAncestors(e2);
+        return list.indexOf(e1) > 0;
+    }
+
+    private void createRelationship(Element source, Element destination, Relationship relationship) {
+        String[] tags = relationship.getTagsAsSet().toArray(new String[0]);
+
+        if (source instanceof CustomElement) {
+            ((CustomElement)source).uses(destination, relationship.getDescription(), relationship.getTechnology(), relationship.getInteractionStyle(), tags);
+        } else if (destination instanceof CustomElement) {
+            source.uses((CustomElement)destination, relationship.getDescription(), relationship.getTechnology(), relationship.getInteractionStyle(), tags);
+        } else {
+            ((StaticStructureElement)source).uses((StaticStructureElement)destination, relationship.getDescription(), relationship.getTechnology(), relationship.getInteractionStyle(), tags);
+        }
+    }
+
+    private static boolean isStaticStructure(Element element) {
+        return element instanceof StaticStructureElement || element instanceof CustomElement;
+    }
+
+    private static final class ElementPair {
+
+        private final Element source;
+        private final Element destination;
+
+        ElementPair(Element source, Element destination) {
+            this.source = source;
+            this.destination = destination;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ElementPair)) {
+                return false;
+            }
+
+            ElementPair pair = (ElementPair)o;
+            return source == pair.source && destination == pair.destination;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(source) + System.identityHashCode(destination);
+        }
+
+    }
+
+}
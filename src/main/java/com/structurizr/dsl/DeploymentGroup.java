@@ -7,9 +7,11 @@ import java.util.Set;
 class DeploymentGroup extends Element {
 
     private String name;
+    private String environment;
 
-    DeploymentGroup(String name) {
+    DeploymentGroup(String name, String environment) {
         this.name = name;
+        this.environment = environment;
     }
 
     @Override
@@ -17,6 +19,10 @@ class DeploymentGroup extends Element {
         return name;
     }
 
+    String getEnvironment() {
+        return environment;
+    }
+
     @Override
     public String getCanonicalName() {
         return name;
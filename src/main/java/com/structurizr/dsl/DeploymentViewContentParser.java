@@ -6,7 +6,6 @@ import com.structurizr.view.ElementNotPermittedInViewException;
 import com.structurizr.view.ElementView;
 import com.structurizr.view.RelationshipView;
 
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -19,9 +18,11 @@ final class DeploymentViewContentParser extends AbstractParser {
     private static final String WILDCARD = "*";
     private static final String RELATIONSHIP = "->";
 
+    private final ViewExpressionParser expressionParser = new ViewExpressionParser();
+
     void parseInclude(DeploymentViewDslContext context, Tokens tokens) {
         if (!tokens.includes(FIRST_IDENTIFIER_INDEX)) {
-            throw new RuntimeException("Expected: include <*|identifier> [identifier...] or include <*|identifier> -> <*|identifier>");
+            throw new RuntimeException("Expected: include <*|identifier|expression> [identifier|expression...] or include <*|identifier> -> <*|identifier>");
         }
 
         DeploymentView view = context.getView();
@@ -39,35 +40,52 @@ final class DeploymentViewContentParser extends AbstractParser {
             // include *
             view.addDefaultElements();
         } else {
-            // include <identifier> [identifier...]
+            // include <identifier|expression> [identifier|expression...]
             for (int i = FIRST_IDENTIFIER_INDEX; i < tokens.size(); i++) {
                 String token = tokens.get(i);
 
-                // assume the token is an identifier
-                Element element = context.getElement(token);
-                Relationship relationship = context.getRelationship(token);
-                if (element == null && relationship == null) {
-                    throw new RuntimeException("The element/relationship \"" + token + "\" does not exist");
-                }
-
-                if (element != null) {
-                    if (element instanceof CustomElement) {
-                        view.add((CustomElement) element);
-                    } else if (element instanceof DeploymentNode) {
-                        view.add((DeploymentNode) element);
-                    } else if (element instanceof InfrastructureNode) {
-                        view.add((InfrastructureNode) element);
-                    } else if (element instanceof SoftwareSystemInstance) {
-                        view.add((SoftwareSystemInstance) element);
-                    } else if (element instanceof ContainerInstance) {
-                        view.add((ContainerInstance) element);
+                if (ViewExpressionParser.isExpression(token)) {
+                    ViewExpression<?> expression = expressionParser.parse(token);
+                    if (expression.isElementExpression()) {
+                        // only deployment elements in the view's deployment environment can be included
+                        ViewExpression.inEnvironment(view.getEnvironment(), expression.asElementExpression()).evaluate(context).forEach(element -> {
+                            addElementToView(element, view);
+                        });
                     } else {
-                        throw new RuntimeException("The element \"" + token + "\" can not be added to this view");
+                        Set<Element> elementsInView = view.getElements().stream().map(ElementView::getElement).collect(Collectors.toSet());
+                        expression.asRelationshipExpression().evaluate(context).forEach(relationship -> {
+                            if (elementsInView.contains(relationship.getSource()) && elementsInView.contains(relationship.getDestination())) {
+                                view.add(relationship);
+                            }
+                        });
+                    }
+                } else {
+                    // assume the token is an identifier
+                    Element element = context.getElement(token);
+                    Relationship relationship = context.getRelationship(token);
+                    if (element == null && relationship == null) {
+                        throw new RuntimeException("The element/relationship \"" + token + "\" does not exist");
+                    }
+
+                    if (element != null) {
+                        if (element instanceof CustomElement) {
+                            view.add((CustomElement) element);
+                        } else if (element instanceof DeploymentNode) {
+                            view.add((DeploymentNode) element);
+                        } else if (element instanceof InfrastructureNode) {
+                            view.add((InfrastructureNode) element);
+                        } else if (element instanceof SoftwareSystemInstance) {
+                            view.add((SoftwareSystemInstance) element);
+                        } else if (element instanceof ContainerInstance) {
+                            view.add((ContainerInstance) element);
+                        } else {
+                            throw new RuntimeException("The element \"" + token + "\" can not be added to this view");
+                        }
                     }
-                }
 
-                if (relationship != null) {
-                    view.add(relationship);
+                    if (relationship != null) {
+                        view.add(relationship);
+                    }
                 }
             }
         }
@@ -101,22 +119,13 @@ final class DeploymentViewContentParser extends AbstractParser {
         }
     }
 
-    private boolean hasAllTags(ModelItem modelItem, String[] tags) {
-        boolean result = true;
-
-        for (String tag : tags) {
-            result = result && modelItem.hasTag(tag.trim());
-        }
-
-        return result;
-    }
-
     void parseExclude(DeploymentViewDslContext context, Tokens tokens) {
         if (!tokens.includes(FIRST_IDENTIFIER_INDEX)) {
-            throw new RuntimeException("Expected: exclude <identifier> [identifier...] or exclude <*|identifier> -> <*|identifier>");
+            throw new RuntimeException("Expected: exclude <identifier|expression> [identifier|expression...] or exclude <*|identifier> -> <*|identifier>");
         }
 
         DeploymentView view = context.getView();
+        ViewExclusions exclusions = new ViewExclusions();
 
         if (tokens.size() == 4 && tokens.get(RELATIONSHIP_IDENTIFIER_INDEX).equals(RELATIONSHIP)) {
             // exclude <*|identifier> -> <*|identifier>
@@ -125,68 +134,89 @@ final class DeploymentViewContentParser extends AbstractParser {
 
             Set<Relationship> relationships = findRelationships(context, sourceElementIdentifier, destinationElementIdentifier);
             for (Relationship relationship : relationships) {
-                view.remove(relationship);
+                exclusions.exclude(relationship);
             }
         } else {
-            // exclude <identifier> [identifier...]
+            // exclude <identifier|expression> [identifier|expression...]
+            Set<Element> elementsInView = null;
+            Set<Relationship> relationshipsInView = null;
+
             for (int i = FIRST_IDENTIFIER_INDEX; i < tokens.size(); i++) {
                 String token = tokens.get(i);
 
-                // assume the token is an identifier
-                Element element = context.getElement(token);
-                Relationship relationship = context.getRelationship(token);
-                if (element == null && relationship == null) {
-                    throw new RuntimeException("The element/relationship \"" + token + "\" does not exist");
-                }
-
-                if (element != null) {
-                    if (element instanceof DeploymentNode) {
-                        view.remove((DeploymentNode) element);
-                    } else if (element instanceof InfrastructureNode) {
-                        view.remove((InfrastructureNode) element);
-                    } else if (element instanceof SoftwareSystemInstance) {
-                        view.remove((SoftwareSystemInstance) element);
-                    } else if (element instanceof ContainerInstance) {
-                        view.remove((ContainerInstance) element);
+                if (ViewExpressionParser.isExpression(token)) {
+                    // the view is usually much smaller than the model, so test the items in the view
+                    ViewExpression<?> expression = expressionParser.parse(token);
+                    if (expression.isElementExpression()) {
+                        if (elementsInView == null) {
+                            elementsInView = view.getElements().stream().map(ElementView::getElement).filter(e -> e instanceof DeploymentElement).collect(Collectors.toSet());
+                        }
+
+                        ViewExpression<Element> elementExpression = expression.asElementExpression().bind(context);
+                        for (Element element : elementsInView) {
+                            if (elementExpression.matches(element, context)) {
+                                exclusions.exclude(element);
+                            }
+                        }
                     } else {
-                        throw new RuntimeException("The element \"" + token + "\" can not be added to this view");
+                        if (relationshipsInView == null) {
+                            relationshipsInView = view.getRelationships().stream().map(RelationshipView::getRelationship).collect(Collectors.toSet());
+                        }
+
+                        ViewExpression<Relationship> relationshipExpression = expression.asRelationshipExpression().bind(context);
+                        for (Relationship relationship : relationshipsInView) {
+                            if (relationshipExpression.matches(relationship, context)) {
+                                exclusions.exclude(relationship);
+                            }
+                        }
+                    }
+                } else {
+                    // assume the token is an identifier
+                    Element element = context.getElement(token);
+                    Relationship relationship = context.getRelationship(token);
+                    if (element == null && relationship == null) {
+                        throw new RuntimeException("The element/relationship \"" + token + "\" does not exist");
                     }
-                }
 
-                if (relationship != null) {
-                    // remove the specified relationship
-                    view.remove(relationship);
+                    if (element != null) {
+                        if (element instanceof DeploymentNode || element instanceof InfrastructureNode || element instanceof SoftwareSystemInstance || element instanceof ContainerInstance) {
+                            exclusions.exclude(element);
+                        } else {
+                            throw new RuntimeException("The element \"" + token + "\" can not be added to this view");
+                        }
+                    }
 
-                    // and also remove any replicated versions of the specified relationship
-                    Collection<Relationship> replicatedRelationshipsInView = view.getRelationships().stream().map(RelationshipView::getRelationship).filter(r -> r.getLinkedRelationshipId() != null && r.getLinkedRelationshipId().equals(relationship.getId())).collect(Collectors.toSet());
-                    for (Relationship r : replicatedRelationshipsInView) {
-                        view.remove(r);
+                    if (relationship != null) {
+                        // remove the specified relationship, and also any replicated versions of it
+                        exclusions.excludeWithReplicas(relationship);
                     }
                 }
             }
         }
+
+        exclusions.apply(view, element -> removeElementFromView(element, view));
     }
 
     private Set<Relationship> findRelationships(DeploymentViewDslContext context, String sourceElementIdentifier, String destinationElementIdentifier) {
         DeploymentView view = context.getView();
+        Set<Element> elementsInView = view.getElements().stream().map(ElementView::getElement).collect(Collectors.toSet());
         Set<Element> sourceElements = new HashSet<>();
         Set<Element> destinationElements = new HashSet<>();
-        Set<Relationship> relationships = new HashSet<>();
 
         if (sourceElementIdentifier.equals(WILDCARD)) {
-            sourceElements.addAll(view.getElements().stream().map(ElementView::getElement).collect(Collectors.toSet()));
+            sourceElements.addAll(elementsInView);
         } else {
             Element sourceElement = context.getElement(sourceElementIdentifier);
             if (sourceElement == null) {
                 throw new RuntimeException("The element \"" + sourceElementIdentifier + "\" does not exist");
             }
 
-            if (view.isElementInView(sourceElement)) {
+            if (elementsInView.contains(sourceElement)) {
                 sourceElements.add(sourceElement);
             } else {
                 // the element itself might not be in the view, but perhaps an "instance" is
                 if (sourceElement instanceof SoftwareSystem || sourceElement instanceof Container) {
-                    sourceElements.addAll(view.getElements().stream().map(ElementView::getElement).filter(e -> e instanceof StaticStructureElementInstance).map(e -> (StaticStructureElementInstance)e).filter(e -> e.getElement() == sourceElement).collect(Collectors.toSet()));
+                    sourceElements.addAll(elementsInView.stream().filter(e -> e instanceof StaticStructureElementInstance).map(e -> (StaticStructureElementInstance)e).filter(e -> e.getElement() == sourceElement).collect(Collectors.toSet()));
                 }
             }
 
@@ -196,19 +226,19 @@ final class DeploymentViewContentParser extends AbstractParser {
         }
 
         if (destinationElementIdentifier.equals(WILDCARD)) {
-            destinationElements.addAll(view.getElements().stream().map(ElementView::getElement).collect(Collectors.toSet()));
+            destinationElements.addAll(elementsInView);
         } else {
             Element destinationElement = context.getElement(destinationElementIdentifier);
             if (destinationElement == null) {
                 throw new RuntimeException("The element \"" + destinationElementIdentifier + "\" does not exist");
             }
 
-            if (view.isElementInView(destinationElement)) {
+            if (elementsInView.contains(destinationElement)) {
                 destinationElements.add(destinationElement);
             } else {
                 // the element itself might not be in the view, but perhaps an "instance" is
                 if (destinationElement instanceof SoftwareSystem || destinationElement instanceof Container) {
-                    destinationElements.addAll(view.getElements().stream().map(ElementView::getElement).filter(e -> e instanceof StaticStructureElementInstance).map(e -> (StaticStructureElementInstance)e).filter(e -> e.getElement() == destinationElement).collect(Collectors.toSet()));
+                    destinationElements.addAll(elementsInView.stream().filter(e -> e instanceof StaticStructureElementInstance).map(e -> (StaticStructureElementInstance)e).filter(e -> e.getElement() == destinationElement).collect(Collectors.toSet()));
                 }
             }
 
@@ -217,15 +247,7 @@ final class DeploymentViewContentParser extends AbstractParser {
             }
         }
 
-        for (Element sourceElement : sourceElements) {
-            for (Relationship relationship : sourceElement.getRelationships()) {
-                if (destinationElements.contains(relationship.getDestination())) {
-                    relationships.add(relationship);
-                }
-            }
-        }
-
-        return relationships;
+        return context.getModelIndex().getRelationshipsBetween(sourceElements, destinationElements);
     }
 
 }
\ No newline at end of file
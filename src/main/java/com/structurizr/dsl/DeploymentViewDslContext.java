@@ -1,5 +1,6 @@
 package com.structurizr.dsl;
 
+import com.structurizr.model.Model;
 import com.structurizr.view.DeploymentView;
 
 final class DeploymentViewDslContext extends DslContext {
@@ -14,4 +15,9 @@ final class DeploymentViewDslContext extends DslContext {
         return view;
     }
 
+    @Override
+    Model getModel() {
+        return view.getModel();
+    }
+
 }
\ No newline at end of file
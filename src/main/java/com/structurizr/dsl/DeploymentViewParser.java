@@ -37,8 +37,7 @@ final class DeploymentViewParser extends AbstractParser {
         }
 
         // check that the deployment environment exists in the model
-        final String env = environment;
-        if (context.getWorkspace().getModel().getDeploymentNodes().stream().noneMatch(dn -> dn.getEnvironment().equals(env))) {
+        if (!context.getWorkspaceIndex().hasDeploymentEnvironment(environment)) {
             throw new RuntimeException("The environment \"" + environment + "\" does not exist");
         }
 
@@ -2,9 +2,9 @@ package com.structurizr.dsl;
 
 import com.structurizr.Workspace;
 import com.structurizr.model.Element;
+import com.structurizr.model.Model;
 import com.structurizr.model.Relationship;
 
-import java.util.HashMap;
 import java.util.Map;
 
 abstract class DslContext {
@@ -14,8 +14,9 @@ abstract class DslContext {
 
     private Workspace workspace;
 
-    private Map<String, Element> elements = new HashMap<>();
-    private Map<String, Relationship> relationships = new HashMap<>();
+    private IdentifiersRegister identifiers = new IdentifiersRegister();
+    private ModelIndex modelIndex;
+    private WorkspaceIndex workspaceIndex;
 
     Workspace getWorkspace() {
         return workspace;
@@ -26,19 +27,53 @@ abstract class DslContext {
     }
 
     Element getElement(String identifier) {
-        return elements.get(identifier.toLowerCase());
+        return identifiers.getElement(identifier);
     }
 
     void setElements(Map<String, Element> elements) {
-        this.elements = elements;
+        elements.forEach(identifiers::register);
     }
 
     Relationship getRelationship(String identifier) {
-        return relationships.get(identifier.toLowerCase());
+        return identifiers.getRelationship(identifier);
     }
 
     void setRelationships(Map<String, Relationship> relationships) {
-        this.relationships = relationships;
+        relationships.forEach(identifiers::register);
+    }
+
+    void setIdentifiersRegister(IdentifiersRegister identifiers) {
+        this.identifiers = identifiers;
+    }
+
+    ModelIndex getModelIndex() {
+        if (modelIndex != null) {
+            return modelIndex;
+        } else {
+            // this context wasn't created by the parser, so index the model as it is now
+            return new ModelIndex(getModel());
+        }
+    }
+
+    WorkspaceIndex getWorkspaceIndex() {
+        if (workspaceIndex != null) {
+            return workspaceIndex;
+        } else {
+            // this context wasn't created by the parser, so index the workspace as it is now
+            return new WorkspaceIndex(workspace);
+        }
+    }
+
+    void setWorkspaceIndex(WorkspaceIndex workspaceIndex) {
+        this.workspaceIndex = workspaceIndex;
+    }
+
+    Model getModel() {
+        return workspace.getModel();
+    }
+
+    void setModelIndex(ModelIndex modelIndex) {
+        this.modelIndex = modelIndex;
     }
 
     void end() {
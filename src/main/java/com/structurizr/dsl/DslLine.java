@@ -0,0 +1,61 @@
+package com.structurizr.dsl;
+
+import java.io.File;
+
+/**
+ * The state associated with the line of DSL that is currently being parsed.
+ * A single instance is reused for every line in a file, so dispatching a line doesn't allocate.
+ */
+final class DslLine {
+
+    private File file;
+    private Tokens tokens;
+    private String identifier;
+    private int lineNumber;
+    private String source;
+    private boolean includeInDslSourceLines;
+
+    DslLine(File file) {
+        this.file = file;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    Tokens getTokens() {
+        return tokens;
+    }
+
+    String getIdentifier() {
+        return identifier;
+    }
+
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Gets the line, as written (i.e. before constants have been substituted).
+     */
+    String getSource() {
+        return source;
+    }
+
+    boolean isIncludeInDslSourceLines() {
+        return includeInDslSourceLines;
+    }
+
+    void setIncludeInDslSourceLines(boolean includeInDslSourceLines) {
+        this.includeInDslSourceLines = includeInDslSourceLines;
+    }
+
+    void reset(Tokens tokens, String identifier, int lineNumber, String source) {
+        this.tokens = tokens;
+        this.identifier = identifier;
+        this.lineNumber = lineNumber;
+        this.source = source;
+        this.includeInDslSourceLines = true;
+    }
+
+}
@@ -13,6 +13,8 @@ final class DynamicViewContentParser extends AbstractParser {
     private static final int DESCRIPTION_INDEX = 3;
     private static final int TECHNOLOGY_INDEX = 4;
 
+    private final ExplicitRelationshipParser explicitRelationshipParser = new ExplicitRelationshipParser();
+
     void parseRelationship(DynamicViewDslContext context, Tokens tokens) {
         // <identifier> -> <identifier> [description] [technology]
 
@@ -57,8 +59,10 @@ final class DynamicViewContentParser extends AbstractParser {
             technology = tokens.get(TECHNOLOGY_INDEX);
         }
 
-        if (!sourceElement.hasEfferentRelationshipWith(destinationElement) && !destinationElement.hasEfferentRelationshipWith(sourceElement)) {
-            new ExplicitRelationshipParser().parse(context, tokens);
+        ModelIndex modelIndex = context.getModelIndex();
+        if (!modelIndex.hasRelationship(sourceElement, destinationElement) && !modelIndex.hasRelationship(destinationElement, sourceElement)) {
+            // the index picks up the new relationship (and any implied relationships) the next time it is queried
+            explicitRelationshipParser.parse(context, tokens);
         }
 
         view.add((StaticStructureElement)sourceElement, description, technology, (StaticStructureElement)destinationElement);
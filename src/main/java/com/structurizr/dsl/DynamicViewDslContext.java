@@ -1,5 +1,6 @@
 package com.structurizr.dsl;
 
+import com.structurizr.model.Model;
 import com.structurizr.view.DynamicView;
 
 final class DynamicViewDslContext extends DslContext {
@@ -14,4 +15,9 @@ final class DynamicViewDslContext extends DslContext {
         return view;
     }
 
+    @Override
+    Model getModel() {
+        return view.getModel();
+    }
+
 }
\ No newline at end of file
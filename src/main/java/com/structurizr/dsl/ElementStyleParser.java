@@ -1,7 +1,6 @@
 package com.structurizr.dsl;
 
 import com.structurizr.Workspace;
-import com.structurizr.util.ImageUtils;
 import com.structurizr.util.StringUtils;
 import com.structurizr.view.Border;
 import com.structurizr.view.ElementStyle;
@@ -273,7 +272,7 @@ final class ElementStyleParser extends AbstractParser {
             File file = new File(context.getFile().getParent(), path);
             if (file.exists() && !file.isDirectory()) {
                 try {
-                    style.setIcon(ImageUtils.getImageAsDataUri(file));
+                    style.setIcon(ImageDataUriCache.getImageAsDataUri(file));
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
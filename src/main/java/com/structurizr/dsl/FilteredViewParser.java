@@ -5,6 +5,7 @@ import com.structurizr.util.StringUtils;
 import com.structurizr.view.FilterMode;
 import com.structurizr.view.FilteredView;
 import com.structurizr.view.StaticView;
+import com.structurizr.view.View;
 
 import java.text.DecimalFormat;
 import java.util.HashSet;
@@ -67,12 +68,14 @@ final class FilteredViewParser extends AbstractParser {
             throw new RuntimeException("Filter mode should be include or exclude");
         }
 
-        if (workspace.getViews().getViews().stream().noneMatch(v -> v.getKey().equals(baseKey))) {
+        View view = context.getWorkspaceIndex().getView(baseKey);
+        if (view == null) {
             throw new RuntimeException("The view \"" + baseKey + "\" does not exist");
         }
 
-        baseView = (StaticView)workspace.getViews().getViews().stream().filter(v -> v instanceof StaticView && v.getKey().equals(baseKey)).findFirst().orElse(null);
-        if (baseView == null) {
+        if (view instanceof StaticView) {
+            baseView = (StaticView)view;
+        } else {
             throw new RuntimeException("The view \"" + baseKey + "\" must be a System Landscape, System Context, Container, or Component view");
         }
 
@@ -0,0 +1,192 @@
+package com.structurizr.dsl;
+
+import com.structurizr.model.Element;
+import com.structurizr.model.ModelItem;
+import com.structurizr.model.Relationship;
+
+/**
+ * A symbol table of the identifiers assigned to elements and relationships, which share a single namespace.
+ *
+ * Identifiers are matched ignoring case, without creating a lower case copy of the identifier for every lookup.
+ * Hierarchical identifiers (e.g. "softwareSystem.container.component") are stored as a trie, with one node per
+ * segment, so looking up a nested identifier is proportional to its depth rather than the number of identifiers.
+ */
+final class IdentifiersRegister {
+
+    private static final char SEPARATOR = '.';
+
+    private final Node root = new Node();
+
+    /**
+     * Registers the specified identifier for an element.
+     *
+     * @throws RuntimeException     if the identifier is already in use by an element or relationship
+     */
+    void register(String identifier, Element element) {
+        put(identifier, element);
+    }
+
+    /**
+     * Registers the specified identifier for a relationship.
+     *
+     * @throws RuntimeException     if the identifier is already in use by an element or relationship
+     */
+    void register(String identifier, Relationship relationship) {
+        put(identifier, relationship);
+    }
+
+    boolean isRegistered(String identifier) {
+        return find(identifier) != null;
+    }
+
+    Element getElement(String identifier) {
+        ModelItem item = find(identifier);
+        return item instanceof Element ? (Element)item : null;
+    }
+
+    Relationship getRelationship(String identifier) {
+        ModelItem item = find(identifier);
+        return item instanceof Relationship ? (Relationship)item : null;
+    }
+
+    private void put(String identifier, ModelItem item) {
+        Node node = root;
+        int start = 0;
+        while (true) {
+            int end = segmentEnd(identifier, start);
+            Node child = node.getChild(identifier, start, end);
+            if (child == null) {
+                child = node.addChild(identifier.substring(start, end));
+            }
+            node = child;
+
+            if (end == identifier.length()) {
+                break;
+            }
+            start = end + 1;
+        }
+
+        if (node.item != null) {
+            throw new RuntimeException("The identifier \"" + identifier + "\" is already in use");
+        }
+
+        node.item = item;
+    }
+
+    private ModelItem find(String identifier) {
+        if (identifier == null) {
+            return null;
+        }
+
+        Node node = root;
+        int start = 0;
+        while (node != null) {
+            int end = segmentEnd(identifier, start);
+            node = node.getChild(identifier, start, end);
+
+            if (end == identifier.length()) {
+                break;
+            }
+            start = end + 1;
+        }
+
+        return node != null ? node.item : null;
+    }
+
+    private static int segmentEnd(String identifier, int start) {
+        int end = identifier.indexOf(SEPARATOR, start);
+        return end == -1 ? identifier.length() : end;
+    }
+
+    /**
+     * Hashes the specified region of a string ignoring case, consistently with String.regionMatches(true, ...).
+     */
+    private static int hash(String s, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(s.charAt(i)));
+        }
+
+        // spread the higher bits, since the table index is taken from the lower bits
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * A segment of an identifier, with its children held in an open addressing hash table keyed by segment name.
+     */
+    private static final class Node {
+
+        private static final int INITIAL_CAPACITY = 4;
+
+        private String[] segments;
+        private int[] hashes;
+        private Node[] children;
+        private int size;
+
+        private ModelItem item;
+
+        Node getChild(String identifier, int start, int end) {
+            if (segments == null) {
+                return null;
+            }
+
+            int length = end - start;
+            int hash = hash(identifier, start, end);
+            int mask = segments.length - 1;
+            for (int i = hash & mask; segments[i] != null; i = (i + 1) & mask) {
+                String segment = segments[i];
+                if (hashes[i] == hash && segment.length() == length && segment.regionMatches(true, 0, identifier, start, length)) {
+                    return children[i];
+                }
+            }
+
+            return null;
+        }
+
+        Node addChild(String segment) {
+            if (segments == null) {
+                segments = new String[INITIAL_CAPACITY];
+                hashes = new int[INITIAL_CAPACITY];
+                children = new Node[INITIAL_CAPACITY];
+            } else if ((size + 1) * 4 > segments.length * 3) {
+                resize();
+            }
+
+            Node child = new Node();
+            insert(segment, hash(segment, 0, segment.length()), child);
+            size++;
+
+            return child;
+        }
+
+        private void insert(String segment, int hash, Node child) {
+            int mask = segments.length - 1;
+            int i = hash & mask;
+            while (segments[i] != null) {
+                i = (i + 1) & mask;
+            }
+
+            segments[i] = segment;
+            hashes[i] = hash;
+            children[i] = child;
+        }
+
+        private void resize() {
+            String[] oldSegments = segments;
+            int[] oldHashes = hashes;
+            Node[] oldChildren = children;
+
+            segments = new String[oldSegments.length * 2];
+            hashes = new int[oldSegments.length * 2];
+            children = new Node[oldSegments.length * 2];
+
+            for (int i = 0; i < oldSegments.length; i++) {
+                if (oldSegments[i] != null) {
+                    insert(oldSegments[i], oldHashes[i], oldChildren[i]);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.structurizr.dsl;
+
+import com.structurizr.util.ImageUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the data URIs of the images used as element style icons and branding logos, by canonical path, so that an
+ * image used by several styles (or parsed several times in the same JVM) is only read and base64 encoded once; the
+ * same String is shared by every style that uses it. An image is read again when its last modified time or size
+ * has changed.
+ *
+ * The cache is bounded by the total length of the cached data URIs; when that is exceeded, the least recently used
+ * images are removed.
+ */
+final class ImageDataUriCache {
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 16 * 1024 * 1024;
+
+    private static final Map<File, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private static long size = 0;
+    private static long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    private ImageDataUriCache() {
+    }
+
+    /**
+     * Gets the specified image as a data URI, in the same way as ImageUtils.getImageAsDataUri().
+     */
+    static String getImageAsDataUri(File file) throws IOException {
+        File canonicalFile = file.getCanonicalFile();
+
+        // the file is checked before it's read, so a change made while reading it is picked up next time
+        long lastModified = canonicalFile.lastModified();
+        long length = canonicalFile.length();
+
+        Entry entry;
+        synchronized (ImageDataUriCache.class) {
+            entry = entries.get(canonicalFile);
+        }
+
+        if (entry == null || entry.lastModified != lastModified || entry.length != length) {
+            // the content type (and any error message) comes from the file as specified, rather than its canonical path
+            entry = new Entry(lastModified, length, ImageUtils.getImageAsDataUri(file));
+            put(canonicalFile, entry);
+        }
+
+        return entry.dataUri;
+    }
+
+    private static synchronized void put(File canonicalFile, Entry entry) {
+        Entry previousEntry = entries.put(canonicalFile, entry);
+        if (previousEntry != null) {
+            size -= previousEntry.dataUri.length();
+        }
+        size += entry.dataUri.length();
+
+        evict();
+    }
+
+    private static void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (size > maximumSize && iterator.hasNext()) {
+            size -= iterator.next().dataUri.length();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Removes all of the cached images.
+     */
+    static synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Sets the maximum total length of the cached data URIs (removing the least recently used images if needed).
+     */
+    static synchronized void setMaximumSize(long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new RuntimeException("The maximum size must be greater than zero");
+        }
+
+        ImageDataUriCache.maximumSize = maximumSize;
+
+        evict();
+    }
+
+    static synchronized long getSize() {
+        return size;
+    }
+
+    private static final class Entry {
+
+        private final long lastModified;
+        private final long length;
+        private final String dataUri;
+
+        Entry(long lastModified, long length, String dataUri) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.dataUri = dataUri;
+        }
+
+    }
+
+}
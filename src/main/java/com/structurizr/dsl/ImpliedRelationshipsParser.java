@@ -2,6 +2,7 @@ package com.structurizr.dsl;
 
 import com.structurizr.model.CreateImpliedRelationshipsUnlessAnyRelationshipExistsStrategy;
 import com.structurizr.model.DefaultImpliedRelationshipsStrategy;
+import com.structurizr.model.ImpliedRelationshipsStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -24,7 +25,12 @@ final class ImpliedRelationshipsParser extends AbstractParser {
             throw new RuntimeException("Expected: " + GRAMMAR);
         }
 
-        if (tokens.get(FLAG_INDEX).equalsIgnoreCase(FALSE)) {
+        boolean enabled = !tokens.get(FLAG_INDEX).equalsIgnoreCase(FALSE);
+        ImpliedRelationshipsStrategy impliedRelationshipsStrategy = context.getWorkspace().getModel().getImpliedRelationshipsStrategy();
+
+        if (impliedRelationshipsStrategy instanceof DeferredImpliedRelationshipsStrategy) {
+            ((DeferredImpliedRelationshipsStrategy)impliedRelationshipsStrategy).setEnabled(enabled);
+        } else if (!enabled) {
             context.getWorkspace().getModel().setImpliedRelationshipsStrategy(new DefaultImpliedRelationshipsStrategy());
         } else {
             context.getWorkspace().getModel().setImpliedRelationshipsStrategy(new CreateImpliedRelationshipsUnlessAnyRelationshipExistsStrategy());
@@ -2,8 +2,6 @@ package com.structurizr.dsl;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 
 final class IncludeParser extends AbstractParser {
 
@@ -35,7 +33,6 @@ final class IncludeParser extends AbstractParser {
                     throw new RuntimeException(file.getCanonicalPath() + " should be a single file");
                 }
 
-                context.setLines(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
                 context.setFile(file);
             } catch (IOException e) {
                 throw new RuntimeException(e.getMessage());
@@ -1,11 +1,9 @@
 package com.structurizr.dsl;
 
 import java.io.File;
-import java.util.List;
 
 final class IncludedDslContext extends DslContext {
 
-    private List<String> lines;
     private File parentFile;
     private File file;
 
@@ -13,14 +11,6 @@ final class IncludedDslContext extends DslContext {
         this.parentFile = parentFile;
     }
 
-    List<String> getLines() {
-        return lines;
-    }
-
-    void setLines(List<String> lines) {
-        this.lines = lines;
-    }
-
     File getParentFile() {
         return parentFile;
     }
@@ -0,0 +1,189 @@
+package com.structurizr.dsl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A DSL file that has been read and lexed ahead of being parsed.
+ *
+ * Lexing a line doesn't depend on anything that has been parsed before it (constants are substituted into the tokens
+ * later), so files can be lexed independently of one another, and then parsed in order.
+ */
+final class LexedDslFile {
+
+    private static final String MULTI_LINE_COMMENT_START_TOKEN = "/*";
+    private static final String MULTI_LINE_COMMENT_END_TOKEN = "*/";
+
+    // rough sizes (in bytes) of the objects retained by a lexed file, assuming a 64-bit JVM with compressed
+    // references; text is assumed to be held as UTF-16
+    private static final int OBJECT_HEADER_SIZE = 16;
+    private static final int REFERENCE_SIZE = 4;
+    private static final int STRING_SIZE = 24;
+    private static final int LINE_SIZE = 24;
+
+    private final File file;
+    private final List<Line> lines;
+    private final long estimatedSize;
+
+    private LexedDslFile(File file, List<Line> lines) {
+        this(file, Collections.unmodifiableList(lines), estimateSize(lines));
+    }
+
+    private LexedDslFile(File file, List<Line> lines, long estimatedSize) {
+        this.file = file;
+        this.lines = lines;
+        this.estimatedSize = estimatedSize;
+    }
+
+    /**
+     * Reads and lexes the specified UTF-8 encoded file.
+     */
+    static LexedDslFile lex(File file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return lex(reader, file);
+        }
+    }
+
+    /**
+     * Reads and lexes the lines from the specified reader, which is not closed.
+     *
+     * @param file      the file that the lines have been read from
+     */
+    static LexedDslFile lex(BufferedReader reader, File file) throws IOException {
+        StructurizrDslLexer lexer = new StructurizrDslLexer();
+        List<Line> lines = new ArrayList<>();
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(lex(lexer, line));
+        }
+
+        return new LexedDslFile(file, lines);
+    }
+
+    /**
+     * Lexes the specified lines (e.g. lines that have been edited).
+     */
+    static List<Line> lex(List<String> lines) {
+        StructurizrDslLexer lexer = new StructurizrDslLexer();
+        List<Line> lexedLines = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            lexedLines.add(lex(lexer, line));
+        }
+
+        return lexedLines;
+    }
+
+    private static Line lex(StructurizrDslLexer lexer, String line) {
+        if (lexer.lex(line)) {
+            String[] tokens = new String[lexer.getTokenCount()];
+            for (int i = 0; i < tokens.length; i++) {
+                tokens[i] = lexer.getToken(i);
+            }
+
+            return new Line(line, tokens, lexer.lineStartsWith(MULTI_LINE_COMMENT_START_TOKEN), lexer.lineEndsWith(MULTI_LINE_COMMENT_END_TOKEN));
+        } else {
+            return new Line(line, null, false, false);
+        }
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Gets this lexed file, as read from the specified path to the same file (the path is used to resolve !include
+     * directives and paths to documentation, relative to the file).
+     */
+    LexedDslFile forFile(File file) {
+        return file.equals(this.file) ? this : new LexedDslFile(file, lines, estimatedSize);
+    }
+
+    List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * Gets an estimate of the amount of memory (in bytes) retained by the lines of this file, including the text of
+     * each line and a separate String for each token, which can be several times the size of the file on disk.
+     */
+    long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    private static long estimateSize(List<Line> lines) {
+        long size = OBJECT_HEADER_SIZE + align(OBJECT_HEADER_SIZE + (long)lines.size() * REFERENCE_SIZE);
+        for (Line line : lines) {
+            size += LINE_SIZE + estimateSize(line.text);
+            if (line.tokens != null) {
+                size += align(OBJECT_HEADER_SIZE + (long)line.tokens.length * REFERENCE_SIZE);
+                for (String token : line.tokens) {
+                    size += estimateSize(token);
+                }
+            }
+        }
+
+        return size;
+    }
+
+    private static long estimateSize(String s) {
+        return STRING_SIZE + align(OBJECT_HEADER_SIZE + 2L * s.length());
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * A single line, along with its tokens (which are null if the line is empty or a single line comment).
+     */
+    static final class Line {
+
+        private final String text;
+        private final String[] tokens;
+        private final boolean multiLineCommentStart;
+        private final boolean multiLineCommentEnd;
+
+        Line(String text, String[] tokens, boolean multiLineCommentStart, boolean multiLineCommentEnd) {
+            this.text = text;
+            this.tokens = tokens;
+            this.multiLineCommentStart = multiLineCommentStart;
+            this.multiLineCommentEnd = multiLineCommentEnd;
+        }
+
+        String getText() {
+            return text;
+        }
+
+        int getTokenCount() {
+            return tokens != null ? tokens.length : 0;
+        }
+
+        String getToken(int index) {
+            return tokens[index];
+        }
+
+        /**
+         * Gets a copy of the tokens on this line, or null if the line is empty or a single line comment.
+         */
+        String[] getTokens() {
+            return tokens != null ? tokens.clone() : null;
+        }
+
+        boolean startsWithMultiLineComment() {
+            return multiLineCommentStart;
+        }
+
+        boolean endsWithMultiLineComment() {
+            return multiLineCommentEnd;
+        }
+
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.structurizr.dsl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches lexed DSL files by canonical path, so that a file is only read and lexed again when its last modified time
+ * or size has changed. A cache can be shared by any number of parsers (see StructurizrDslParser.setLexedDslFileCache),
+ * including parsers running concurrently, so that a file included from several places, or by several workspaces, is
+ * only read once.
+ *
+ * The cache is bounded by the total (estimated) amount of memory retained by the cached files, which includes the text
+ * of every line and every token, so is typically several times the size of the files on disk; when that is exceeded,
+ * the least recently used files are removed.
+ */
+public final class LexedDslFileCache {
+
+    private final long maximumSize;
+
+    private final Map<File, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Creates a new cache, with no limit on its size.
+     */
+    public LexedDslFileCache() {
+        this(Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maximumSize   the maximum (estimated) amount of memory, in bytes, used by the cached files
+     */
+    public LexedDslFileCache(long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new RuntimeException("The maximum size must be greater than zero");
+        }
+
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Gets the specified file, reading and lexing it if it isn't cached, or has changed since it was cached.
+     */
+    LexedDslFile get(File file) throws IOException {
+        File canonicalFile = file.getCanonicalFile();
+
+        // the file is checked before it's read, so a change made while reading it is picked up next time
+        long lastModified = canonicalFile.lastModified();
+        long length = canonicalFile.length();
+
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(canonicalFile);
+        }
+
+        if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+            hitCount.incrementAndGet();
+        } else {
+            // the file is lexed outside of the lock, so other files can be read concurrently
+            missCount.incrementAndGet();
+            entry = new Entry(lastModified, length, LexedDslFile.lex(canonicalFile));
+            put(canonicalFile, entry);
+        }
+
+        return entry.lexedFile.forFile(file);
+    }
+
+    private synchronized void put(File canonicalFile, Entry entry) {
+        Entry previousEntry = entries.put(canonicalFile, entry);
+        if (previousEntry != null) {
+            size -= previousEntry.lexedFile.getEstimatedSize();
+        }
+        size += entry.lexedFile.getEstimatedSize();
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (size > maximumSize && iterator.hasNext()) {
+            size -= iterator.next().lexedFile.getEstimatedSize();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Gets the number of times that a file has been found in this cache.
+     *
+     * @return  the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets the number of times that a file has been read and lexed, because it wasn't cached or had changed.
+     *
+     * @return  the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets the (estimated) amount of memory used by the files in this cache.
+     *
+     * @return  the size, in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private static final class Entry {
+
+        private final long lastModified;
+        private final long length;
+        private final LexedDslFile lexedFile;
+
+        Entry(long lastModified, long length, LexedDslFile lexedFile) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.lexedFile = lexedFile;
+        }
+
+    }
+
+}
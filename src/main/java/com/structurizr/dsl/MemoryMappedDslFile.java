@@ -0,0 +1,189 @@
+package com.structurizr.dsl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A UTF-8 encoded DSL file that has been memory-mapped, and is read a line at a time.
+ *
+ * Line boundaries are found by scanning the mapped bytes (the same terminators as BufferedReader.readLine() are
+ * recognised), and empty lines and single line comments are detected without decoding the line, so they can be
+ * skipped by the lexer and copied straight into the parsed DSL.
+ */
+final class MemoryMappedDslFile {
+
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte HASH = '#';
+    private static final byte SLASH = '/';
+
+    private final ByteBuffer bytes;
+    private final ByteBuffer line;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    private CharBuffer chars = CharBuffer.allocate(256);
+
+    private int lineStart;
+    private int lineEnd;
+    private int nextLineStart;
+    private boolean ascii;
+
+    MemoryMappedDslFile(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            this.bytes = buffer;
+            this.line = buffer.duplicate();
+        }
+    }
+
+    /**
+     * Determines whether a file of the specified size can be memory-mapped as a single buffer.
+     */
+    static boolean canMap(File file) {
+        return file.length() <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Advances to the next line.
+     *
+     * @return  true if there is another line, false at the end of the file
+     */
+    boolean nextLine() {
+        int limit = bytes.limit();
+        if (nextLineStart >= limit) {
+            return false;
+        }
+
+        lineStart = nextLineStart;
+        ascii = true;
+        int position = lineStart;
+        while (position < limit) {
+            byte b = bytes.get(position);
+            if (b == LINE_FEED || b == CARRIAGE_RETURN) {
+                break;
+            }
+
+            if (b < 0) {
+                ascii = false;
+            }
+            position++;
+        }
+        lineEnd = position;
+
+        if (position < limit && bytes.get(position) == CARRIAGE_RETURN) {
+            position++;
+        }
+        if (position < limit && bytes.get(position) == LINE_FEED && (position == lineEnd || bytes.get(position-1) == CARRIAGE_RETURN)) {
+            position++;
+        }
+        nextLineStart = position;
+
+        return true;
+    }
+
+    /**
+     * Determines whether the current line is empty, or is a single line comment, in the same way as the lexer.
+     */
+    boolean isEmptyOrSingleLineComment() {
+        int position = lineStart;
+        while (position < lineEnd && isWhitespace(bytes.get(position))) {
+            position++;
+        }
+
+        if (position == lineEnd) {
+            return true;
+        }
+
+        byte b = bytes.get(position);
+        if (b == HASH || (b == SLASH && position + 1 < lineEnd && bytes.get(position + 1) == SLASH)) {
+            // the lexer doesn't treat comments containing U+0085, U+2028 or U+2029 as comments
+            return ascii || !containsUnicodeLineTerminator(position);
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the current line as a String.
+     */
+    String getLine() throws IOException {
+        CharBuffer line = decodeLine();
+        return new String(line.array(), 0, line.limit());
+    }
+
+    /**
+     * Appends the current line to the specified StringBuilder, without creating a String.
+     */
+    void appendLineTo(StringBuilder buf) throws IOException {
+        CharBuffer line = decodeLine();
+        buf.append(line.array(), 0, line.limit());
+    }
+
+    private CharBuffer decodeLine() throws IOException {
+        int length = lineEnd - lineStart;
+        if (chars.capacity() < length) {
+            chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+        }
+
+        chars.clear();
+
+        if (ascii) {
+            // every byte is a character, so there's no need to use the decoder
+            char[] array = chars.array();
+            for (int i = 0; i < length; i++) {
+                array[i] = (char)bytes.get(lineStart + i);
+            }
+            chars.limit(length);
+
+            return chars;
+        }
+
+        line.clear();
+        line.position(lineStart);
+        line.limit(lineEnd);
+
+        decoder.reset();
+        CoderResult result = decoder.decode(line, chars, true);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        result = decoder.flush(chars);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+
+        chars.flip();
+        return chars;
+    }
+
+    private boolean containsUnicodeLineTerminator(int position) {
+        // U+0085 is encoded as C2 85, U+2028 as E2 80 A8 and U+2029 as E2 80 A9
+        for (int i = position; i < lineEnd - 1; i++) {
+            int b = bytes.get(i) & 0xff;
+            if (b == 0xc2 && (bytes.get(i + 1) & 0xff) == 0x85) {
+                return true;
+            }
+
+            if (b == 0xe2 && i + 2 < lineEnd && (bytes.get(i + 1) & 0xff) == 0x80) {
+                int last = bytes.get(i + 2) & 0xff;
+                if (last == 0xa8 || last == 0xa9) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\u000B' || b == '\f';
+    }
+
+}
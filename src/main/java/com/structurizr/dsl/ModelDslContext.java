@@ -1,5 +1,6 @@
 package com.structurizr.dsl;
 
+import com.structurizr.model.ImpliedRelationshipsStrategy;
 import com.structurizr.model.Location;
 
 final class ModelDslContext extends GroupableDslContext {
@@ -25,6 +26,11 @@ final class ModelDslContext extends GroupableDslContext {
         if (modelHasInternalSoftwareSystems)  {
             getWorkspace().getModel().getSoftwareSystems().stream().filter(ss -> ss.getLocation() != Location.Internal).forEach(ss -> ss.setLocation(Location.External));
         }
+
+        ImpliedRelationshipsStrategy impliedRelationshipsStrategy = getWorkspace().getModel().getImpliedRelationshipsStrategy();
+        if (!hasGroup() && impliedRelationshipsStrategy instanceof DeferredImpliedRelationshipsStrategy) {
+            getWorkspace().getModel().setImpliedRelationshipsStrategy(((DeferredImpliedRelationshipsStrategy)impliedRelationshipsStrategy).end());
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,357 @@
+package com.structurizr.dsl;
+
+import com.structurizr.model.*;
+
+import java.util.*;
+
+/**
+ * Indexes the elements in a model by tag, type and parent (and deployment elements by environment,
+ * deployment group and the element they are an instance of), and the relationships by tag, source
+ * and destination, so that view expressions such as "element.tag==" or "a -> *" only visit the
+ * matching model items, rather than scanning the whole model.
+ *
+ * The index is built incrementally: before answering a query, it adds the elements and relationships that have been
+ * created since the last query (including those created by the model itself, such as implied relationships and the
+ * relationships replicated between deployment instances). These are found by following the sequential IDs that the
+ * model gives to elements and relationships, so the index is only rebuilt from scratch when it is first used, when
+ * it has been invalidated (e.g. because something other than the parser has changed the model), or when the model
+ * uses some other ID generator. The DSL only tags elements and relationships as it creates them, so their tags are
+ * indexed along with them.
+ */
+final class ModelIndex {
+
+    private final Model model;
+
+    private final Map<String, Set<Element>> elementsByTag = new HashMap<>();
+    private final Map<Class<?>, Set<Element>> elementsByType = new HashMap<>();
+    private final Map<Element, Set<Element>> elementsByParent = new HashMap<>();
+    private final Map<String, Set<Element>> elementsByEnvironment = new HashMap<>();
+    private final Map<String, Map<String, Set<Element>>> elementsByDeploymentGroup = new HashMap<>();
+    private final Map<Element, Set<Element>> instancesByElement = new HashMap<>();
+    private final Map<String, Set<Relationship>> relationshipsByTag = new HashMap<>();
+    private final Map<Element, Map<Element, Set<Relationship>>> relationshipsBySource = new HashMap<>();
+    private final Map<Element, Map<Element, Set<Relationship>>> relationshipsByDestination = new HashMap<>();
+    private final Set<Element> elements = new HashSet<>();
+    private final Set<Relationship> relationships = new HashSet<>();
+
+    private boolean stale = true;
+
+    // the ID that the next element or relationship added to the model will have, or -1 if the IDs aren't sequential
+    private long nextId = -1;
+
+    ModelIndex(Model model) {
+        this.model = model;
+    }
+
+    /**
+     * Marks the index as stale, so that it is rebuilt the next time it is queried.
+     */
+    void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Gets all of the elements in the model.
+     */
+    Set<Element> getElements() {
+        refresh();
+
+        return Collections.unmodifiableSet(elements);
+    }
+
+    /**
+     * Gets all of the relationships in the model.
+     */
+    Set<Relationship> getRelationships() {
+        refresh();
+
+        return Collections.unmodifiableSet(relationships);
+    }
+
+    /**
+     * Gets the elements that have all of the specified tags (tags are trimmed, as per ModelItem.hasTag).
+     */
+    Set<Element> getElementsWithAllTags(String... tags) {
+        refresh();
+
+        return withAllTags(elementsByTag, tags);
+    }
+
+    /**
+     * Gets the relationships that have all of the specified tags (tags are trimmed, as per ModelItem.hasTag).
+     */
+    Set<Relationship> getRelationshipsWithAllTags(String... tags) {
+        refresh();
+
+        return withAllTags(relationshipsByTag, tags);
+    }
+
+    /**
+     * Gets the elements of the specified type (subtypes are not included).
+     */
+    Set<Element> getElementsOfType(Class<? extends Element> type) {
+        refresh();
+
+        return unmodifiable(elementsByType.get(type));
+    }
+
+    /**
+     * Gets the elements that have the specified parent.
+     */
+    Set<Element> getElementsWithParent(Element parent) {
+        refresh();
+
+        return unmodifiable(elementsByParent.get(parent));
+    }
+
+    /**
+     * Gets the deployment elements in the specified deployment environment.
+     */
+    Set<Element> getElementsInEnvironment(String environment) {
+        refresh();
+
+        return unmodifiable(elementsByEnvironment.get(environment));
+    }
+
+    /**
+     * Gets the software system and container instances in the specified deployment group (group names are only unique
+     * within a deployment environment).
+     */
+    Set<Element> getElementsInDeploymentGroup(String environment, String deploymentGroup) {
+        refresh();
+
+        return unmodifiable(elementsByDeploymentGroup.getOrDefault(environment, Collections.emptyMap()).get(deploymentGroup));
+    }
+
+    /**
+     * Gets the instances of the specified software system or container.
+     */
+    Set<Element> getInstancesOf(Element element) {
+        refresh();
+
+        return unmodifiable(instancesByElement.get(element));
+    }
+
+    /**
+     * Gets the relationships from the specified source element.
+     */
+    Set<Relationship> getRelationshipsFrom(Element source) {
+        refresh();
+
+        return flatten(relationshipsBySource.get(source));
+    }
+
+    /**
+     * Gets the relationships to the specified destination element.
+     */
+    Set<Relationship> getRelationshipsTo(Element destination) {
+        refresh();
+
+        return flatten(relationshipsByDestination.get(destination));
+    }
+
+    /**
+     * Determines whether there is a relationship from the source element to the destination element.
+     */
+    boolean hasRelationship(Element source, Element destination) {
+        refresh();
+
+        Map<Element, Set<Relationship>> relationshipsByDestination = relationshipsBySource.get(source);
+        return relationshipsByDestination != null && relationshipsByDestination.containsKey(destination);
+    }
+
+    /**
+     * Gets the relationships from any of the source elements to any of the destination elements.
+     */
+    Set<Relationship> getRelationshipsBetween(Set<Element> sources, Set<Element> destinations) {
+        refresh();
+
+        // walk from whichever end has fewer elements
+        Set<Relationship> relationships = new HashSet<>();
+        if (sources.size() <= destinations.size()) {
+            for (Element source : sources) {
+                addRelationships(relationshipsBySource.get(source), destinations, relationships);
+            }
+        } else {
+            for (Element destination : destinations) {
+                addRelationships(relationshipsByDestination.get(destination), sources, relationships);
+            }
+        }
+
+        return relationships;
+    }
+
+    private void addRelationships(Map<Element, Set<Relationship>> adjacent, Set<Element> elements, Set<Relationship> relationships) {
+        if (adjacent == null) {
+            return;
+        }
+
+        if (adjacent.size() <= elements.size()) {
+            for (Map.Entry<Element, Set<Relationship>> entry : adjacent.entrySet()) {
+                if (elements.contains(entry.getKey())) {
+                    relationships.addAll(entry.getValue());
+                }
+            }
+        } else {
+            for (Element element : elements) {
+                Set<Relationship> set = adjacent.get(element);
+                if (set != null) {
+                    relationships.addAll(set);
+                }
+            }
+        }
+    }
+
+    private <T> Set<T> unmodifiable(Set<T> set) {
+        return set == null ? Collections.emptySet() : Collections.unmodifiableSet(set);
+    }
+
+    private Set<Relationship> flatten(Map<Element, Set<Relationship>> adjacent) {
+        if (adjacent == null) {
+            return Collections.emptySet();
+        }
+
+        Set<Relationship> relationships = new HashSet<>();
+        for (Set<Relationship> set : adjacent.values()) {
+            relationships.addAll(set);
+        }
+
+        return relationships;
+    }
+
+    private <T> Set<T> withAllTags(Map<String, Set<T>> index, String[] tags) {
+        if (tags.length == 0) {
+            return Collections.emptySet();
+        }
+
+        // start with the smallest set, and retain the items that are in all of the others
+        List<Set<T>> sets = new ArrayList<>(tags.length);
+        for (String tag : tags) {
+            Set<T> set = index.get(tag.trim());
+            if (set == null) {
+                return Collections.emptySet();
+            }
+
+            sets.add(set);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+
+        Set<T> result = new HashSet<>(sets.get(0));
+        for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+            result.retainAll(sets.get(i));
+        }
+
+        return result;
+    }
+
+    /**
+     * Brings the index up to date with the model, adding any elements and relationships that have been created since
+     * it was last used (or rebuilding it if it is stale). Once refreshed, the index can be queried from multiple
+     * threads, provided that the model isn't changed in the meantime.
+     */
+    void refresh() {
+        if (stale || nextId == -1) {
+            rebuild();
+            return;
+        }
+
+        while (true) {
+            String id = String.valueOf(nextId);
+            Element element = model.getElement(id);
+            if (element != null) {
+                add(element);
+            } else {
+                Relationship relationship = model.getRelationship(id);
+                if (relationship == null) {
+                    break;
+                }
+
+                add(relationship);
+            }
+
+            nextId++;
+        }
+    }
+
+    private void rebuild() {
+        elementsByTag.clear();
+        elementsByType.clear();
+        elementsByParent.clear();
+        elementsByEnvironment.clear();
+        elementsByDeploymentGroup.clear();
+        instancesByElement.clear();
+        relationshipsByTag.clear();
+        relationshipsBySource.clear();
+        relationshipsByDestination.clear();
+        elements.clear();
+        relationships.clear();
+
+        long maximumId = 0;
+        boolean sequential = true;
+        for (Element element : model.getElements()) {
+            add(element);
+
+            long id = parseId(element.getId());
+            maximumId = Math.max(maximumId, id);
+            sequential &= id > 0;
+        }
+
+        for (Relationship relationship : model.getRelationships()) {
+            add(relationship);
+
+            long id = parseId(relationship.getId());
+            maximumId = Math.max(maximumId, id);
+            sequential &= id > 0;
+        }
+
+        nextId = sequential ? maximumId + 1 : -1;
+        stale = false;
+    }
+
+    private long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Adds an element that has been added to the model.
+     */
+    void add(Element element) {
+        elements.add(element);
+        index(elementsByTag, element);
+        elementsByType.computeIfAbsent(element.getClass(), c -> new HashSet<>()).add(element);
+        if (element.getParent() != null) {
+            elementsByParent.computeIfAbsent(element.getParent(), e -> new HashSet<>()).add(element);
+        }
+
+        if (element instanceof DeploymentElement) {
+            elementsByEnvironment.computeIfAbsent(((DeploymentElement)element).getEnvironment(), e -> new HashSet<>()).add(element);
+        }
+
+        if (element instanceof StaticStructureElementInstance) {
+            StaticStructureElementInstance instance = (StaticStructureElementInstance)element;
+            elementsByDeploymentGroup.computeIfAbsent(instance.getEnvironment(), e -> new HashMap<>()).computeIfAbsent(instance.getDeploymentGroup(), g -> new HashSet<>()).add(element);
+            instancesByElement.computeIfAbsent(instance.getElement(), e -> new HashSet<>()).add(element);
+        }
+    }
+
+    /**
+     * Adds a relationship that has been added to the model.
+     */
+    void add(Relationship relationship) {
+        relationships.add(relationship);
+        index(relationshipsByTag, relationship);
+        relationshipsBySource.computeIfAbsent(relationship.getSource(), e -> new HashMap<>()).computeIfAbsent(relationship.getDestination(), e -> new HashSet<>()).add(relationship);
+        relationshipsByDestination.computeIfAbsent(relationship.getDestination(), e -> new HashMap<>()).computeIfAbsent(relationship.getSource(), e -> new HashSet<>()).add(relationship);
+    }
+
+    private <T extends ModelItem> void index(Map<String, Set<T>> index, T modelItem) {
+        for (String tag : modelItem.getTagsAsSet()) {
+            index.computeIfAbsent(tag, t -> new HashSet<>()).add(modelItem);
+        }
+    }
+
+}
@@ -4,8 +4,7 @@ import com.structurizr.model.*;
 import com.structurizr.view.*;
 
 import java.util.Set;
-
-import static com.structurizr.dsl.StructurizrDslExpressions.*;
+import java.util.stream.Collectors;
 
 final class StaticViewContentParser extends ViewContentParser {
 
@@ -15,6 +14,8 @@ final class StaticViewContentParser extends ViewContentParser {
     private static final String WILDCARD = "*";
     private static final String RELATIONSHIP = "->";
 
+    private final ViewExpressionParser expressionParser = new ViewExpressionParser();
+
     void parseInclude(StaticViewDslContext context, Tokens tokens) {
         if (!tokens.includes(FIRST_IDENTIFIER_INDEX)) {
             throw new RuntimeException("Expected: include <*|identifier|expression> [identifier|expression...] or include <*|identifier> -> <*|identifier>");
@@ -39,38 +40,20 @@ final class StaticViewContentParser extends ViewContentParser {
             for (int i = FIRST_IDENTIFIER_INDEX; i < tokens.size(); i++) {
                 String token = tokens.get(i);
 
-                if (token.startsWith(ELEMENT_TAG_EQUALS_EXPRESSION)) {
-                    String[] tags = token.substring(ELEMENT_TAG_EQUALS_EXPRESSION.length()).split(",");
-                    context.getWorkspace().getModel().getElements().stream().filter(e -> e instanceof StaticStructureElement).forEach(element -> {
-                        if (hasAllTags(element, tags)) {
-                            addElementToView(element, context.getView());
-                        }
-                    });
-                } else if (token.startsWith(ELEMENT_TAG_NOT_EQUALS_EXPRESSION)) {
-                    String[] tags = token.substring(ELEMENT_TAG_NOT_EQUALS_EXPRESSION.length()).split(",");
-                    context.getWorkspace().getModel().getElements().stream().filter(e -> e instanceof StaticStructureElement).forEach(element -> {
-                        if (!hasAllTags(element, tags)) {
-                            addElementToView(element, context.getView());
-                        }
-                    });
-                } else if (token.startsWith(RELATIONSHIP_TAG_EQUALS_EXPRESSION)) {
-                    String[] tags = token.substring(RELATIONSHIP_TAG_EQUALS_EXPRESSION.length()).split(",");
-                    context.getWorkspace().getModel().getRelationships().forEach(relationship -> {
-                        if (view.isElementInView(relationship.getSource()) && view.isElementInView(relationship.getDestination())) {
-                            if (hasAllTags(relationship, tags)) {
-                                view.add(relationship);
-                            }
-                        }
-                    });
-                } else if (token.startsWith(RELATIONSHIP_TAG_NOT_EQUALS_EXPRESSION)) {
-                    String[] tags = token.substring(RELATIONSHIP_TAG_NOT_EQUALS_EXPRESSION.length()).split(",");
-                    context.getWorkspace().getModel().getRelationships().forEach(relationship -> {
-                        if (view.isElementInView(relationship.getSource()) && view.isElementInView(relationship.getDestination())) {
-                            if (!hasAllTags(relationship, tags)) {
+                if (ViewExpressionParser.isExpression(token)) {
+                    ViewExpression<?> expression = expressionParser.parse(token);
+                    if (expression.isElementExpression()) {
+                        expression.asElementExpression().evaluate(context).stream().filter(e -> e instanceof StaticStructureElement).forEach(element -> {
+                            addElementToView(element, view);
+                        });
+                    } else {
+                        Set<Element> elementsInView = view.getElements().stream().map(ElementView::getElement).collect(Collectors.toSet());
+                        expression.asRelationshipExpression().evaluate(context).forEach(relationship -> {
+                            if (elementsInView.contains(relationship.getSource()) && elementsInView.contains(relationship.getDestination())) {
                                 view.add(relationship);
                             }
-                        }
-                    });
+                        });
+                    }
                 } else {
                     // assume the token is an identifier
                     Element element = context.getElement(token);
@@ -124,7 +107,9 @@ final class StaticViewContentParser extends ViewContentParser {
     }
 
     private void removeElementFromView(Element element, StaticView view) {
-        if (element instanceof Person) {
+        if (element instanceof CustomElement) {
+            view.remove((CustomElement) element);
+        } else if (element instanceof Person) {
             view.remove((Person) element);
         } else if (element instanceof SoftwareSystem) {
             view.remove((SoftwareSystem) element);
@@ -137,22 +122,13 @@ final class StaticViewContentParser extends ViewContentParser {
         }
     }
 
-    private boolean hasAllTags(ModelItem modelItem, String[] tags) {
-        boolean result = true;
-
-        for (String tag : tags) {
-            result = result && modelItem.hasTag(tag.trim());
-        }
-
-        return result;
-    }
-
     void parseExclude(StaticViewDslContext context, Tokens tokens) {
         if (!tokens.includes(FIRST_IDENTIFIER_INDEX)) {
             throw new RuntimeException("Expected: exclude <identifier|expression> [identifier|expression...] or exclude <*|identifier> -> <*|identifier>");
         }
 
         StaticView view = context.getView();
+        ViewExclusions exclusions = new ViewExclusions();
 
         if (tokens.size() == 4 && tokens.get(RELATIONSHIP_IDENTIFIER_INDEX).equals(RELATIONSHIP)) {
             // exclude <*|identifier> -> <*|identifier>
@@ -161,41 +137,42 @@ final class StaticViewContentParser extends ViewContentParser {
 
             Set<Relationship> relationships = findRelationships(context, sourceElementIdentifier, destinationElementIdentifier);
             for (Relationship relationship : relationships) {
-                context.getView().remove(relationship);
+                exclusions.exclude(relationship);
             }
         } else {
             // exclude <identifier|expression> [identifier|expression...]
+            Set<Element> elementsInView = null;
+            Set<Relationship> relationshipsInView = null;
+
             for (int i = FIRST_IDENTIFIER_INDEX; i < tokens.size(); i++) {
                 String token = tokens.get(i);
 
-                if (token.startsWith(ELEMENT_TAG_EQUALS_EXPRESSION)) {
-                    String[] tags = token.substring(ELEMENT_TAG_EQUALS_EXPRESSION.length()).split(",");
-                    view.getElements().stream().map(ElementView::getElement).forEach(element -> {
-                        if (hasAllTags(element, tags)) {
-                            removeElementFromView(element, context.getView());
+                if (ViewExpressionParser.isExpression(token)) {
+                    // the view is usually much smaller than the model, so test the items in the view
+                    ViewExpression<?> expression = expressionParser.parse(token);
+                    if (expression.isElementExpression()) {
+                        if (elementsInView == null) {
+                            elementsInView = view.getElements().stream().map(ElementView::getElement).filter(e -> !(e instanceof CustomElement)).collect(Collectors.toSet());
                         }
-                    });
-                } else if (token.startsWith(ELEMENT_TAG_NOT_EQUALS_EXPRESSION)) {
-                    String[] tags = token.substring(ELEMENT_TAG_NOT_EQUALS_EXPRESSION.length()).split(",");
-                    view.getElements().stream().map(ElementView::getElement).forEach(element -> {
-                        if (!hasAllTags(element, tags)) {
-                            removeElementFromView(element, context.getView());
+
+                        ViewExpression<Element> elementExpression = expression.asElementExpression().bind(context);
+                        for (Element element : elementsInView) {
+                            if (elementExpression.matches(element, context)) {
+                                exclusions.exclude(element);
+                            }
                         }
-                    });
-                } else if (token.startsWith(RELATIONSHIP_TAG_EQUALS_EXPRESSION)) {
-                    String[] tags = token.substring(RELATIONSHIP_TAG_EQUALS_EXPRESSION.length()).split(",");
-                    view.getRelationships().stream().map(RelationshipView::getRelationship).forEach(relationship -> {
-                        if (hasAllTags(relationship, tags)) {
-                            view.remove(relationship);
+                    } else {
+                        if (relationshipsInView == null) {
+                            relationshipsInView = view.getRelationships().stream().map(RelationshipView::getRelationship).collect(Collectors.toSet());
                         }
-                    });
-                } else if (token.startsWith(RELATIONSHIP_TAG_NOT_EQUALS_EXPRESSION)) {
-                    String[] tags = token.substring(RELATIONSHIP_TAG_NOT_EQUALS_EXPRESSION.length()).split(",");
-                    view.getRelationships().stream().map(RelationshipView::getRelationship).forEach(relationship -> {
-                        if (!hasAllTags(relationship, tags)) {
-                            view.remove(relationship);
+
+                        ViewExpression<Relationship> relationshipExpression = expression.asRelationshipExpression().bind(context);
+                        for (Relationship relationship : relationshipsInView) {
+                            if (relationshipExpression.matches(relationship, context)) {
+                                exclusions.exclude(relationship);
+                            }
                         }
-                    });
+                    }
                 } else {
                     // assume the token is an identifier
                     Element element = context.getElement(token);
@@ -205,29 +182,25 @@ final class StaticViewContentParser extends ViewContentParser {
                     }
 
                     if (element != null) {
-                        if (element instanceof CustomElement) {
-                            view.remove((CustomElement) element);
-                        } else if (element instanceof Person) {
-                            view.remove((Person) element);
-                        } else if (element instanceof SoftwareSystem) {
-                            view.remove((SoftwareSystem) element);
-                        } else if (element instanceof Container && (view instanceof ContainerView)) {
-                            ((ContainerView) view).remove((Container) element);
-                        } else if (element instanceof Container && (view instanceof ComponentView)) {
-                            ((ComponentView) view).remove((Container) element);
+                        if (element instanceof CustomElement || element instanceof Person || element instanceof SoftwareSystem) {
+                            exclusions.exclude(element);
+                        } else if (element instanceof Container && (view instanceof ContainerView || view instanceof ComponentView)) {
+                            exclusions.exclude(element);
                         } else if (element instanceof Component && (view instanceof ComponentView)) {
-                            ((ComponentView) view).remove((Component) element);
+                            exclusions.exclude(element);
                         } else {
                             throw new RuntimeException("The element \"" + token + "\" can not be added to this view");
                         }
                     }
 
                     if (relationship != null) {
-                        view.remove(relationship);
+                        exclusions.exclude(relationship);
                     }
                 }
             }
         }
+
+        exclusions.apply(view, element -> removeElementFromView(element, view));
     }
 
 }
\ No newline at end of file
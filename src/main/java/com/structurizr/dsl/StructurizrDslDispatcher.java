@@ -0,0 +1,151 @@
+package com.structurizr.dsl;
+
+import java.util.*;
+
+/**
+ * A dispatch table for lines of DSL, keyed on the type of the current context and the (case-insensitive) first token.
+ *
+ * Handlers are registered in priority order; when a line is dispatched, the first handler that is registered for the
+ * current context (or one of its supertypes) and either the first token or any token, and whose guard accepts the line,
+ * is used. The candidate handlers for each (context type, keyword) pair are computed once and then looked up by hash,
+ * so the cost of dispatching a line doesn't depend on how many handlers were registered before it.
+ */
+final class StructurizrDslDispatcher {
+
+    static final Class<?>[] ANY_CONTEXT = null;
+    static final Class<?>[] NO_CONTEXT = new Class<?>[0];
+
+    private static final Rule[] NO_RULES = new Rule[0];
+
+    @FunctionalInterface
+    interface Handler {
+
+        void handle(DslLine line) throws Exception;
+
+    }
+
+    @FunctionalInterface
+    interface Guard {
+
+        boolean accepts(DslLine line);
+
+    }
+
+    static final class Rule {
+
+        private final String keyword;
+        private final Class<?>[] contexts;
+        private final Guard guard;
+        private final Handler handler;
+
+        private Rule(String keyword, Class<?>[] contexts, Guard guard, Handler handler) {
+            this.keyword = keyword;
+            this.contexts = contexts;
+            this.guard = guard;
+            this.handler = handler;
+        }
+
+        private boolean isRegisteredFor(Class<?> contextType) {
+            if (contexts == ANY_CONTEXT) {
+                return true;
+            }
+
+            if (contextType == null) {
+                return contexts.length == 0;
+            }
+
+            for (Class<?> context : contexts) {
+                if (context.isAssignableFrom(contextType)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        boolean accepts(DslLine line) {
+            return guard == null || guard.accepts(line);
+        }
+
+        void handle(DslLine line) throws Exception {
+            handler.handle(line);
+        }
+
+    }
+
+    private static final class RuleTable {
+
+        private final Map<String, Rule[]> rulesByKeyword = new HashMap<>();
+        private Rule[] rulesForAnyKeyword = NO_RULES;
+
+    }
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final Map<Class<?>, RuleTable> rulesByContextType = new HashMap<>();
+
+    static Class<?>[] in(Class<?>... contexts) {
+        return contexts;
+    }
+
+    /**
+     * Registers a handler.
+     *
+     * @param keyword   the first token (case-insensitive), or null to match any first token
+     * @param contexts  the context types, ANY_CONTEXT, or NO_CONTEXT (i.e. the context stack is empty)
+     * @param guard     an additional condition, or null
+     * @param handler   the handler
+     */
+    void register(String keyword, Class<?>[] contexts, Guard guard, Handler handler) {
+        rules.add(new Rule(keyword == null ? null : keyword.toLowerCase(Locale.ROOT), contexts, guard, handler));
+        rulesByContextType.clear();
+    }
+
+    void register(String keyword, Class<?>[] contexts, Handler handler) {
+        register(keyword, contexts, null, handler);
+    }
+
+    /**
+     * Gets the candidate rules, in priority order, for the given context type and first token.
+     *
+     * @param contextType   the type of the current context, or null if the context stack is empty
+     * @param firstToken    the first token on the line
+     * @return  an array of Rule objects
+     */
+    Rule[] getRules(Class<?> contextType, String firstToken) {
+        RuleTable table = rulesByContextType.get(contextType);
+        if (table == null) {
+            table = createRuleTable(contextType);
+            rulesByContextType.put(contextType, table);
+        }
+
+        Rule[] rulesForKeyword = table.rulesByKeyword.get(firstToken.toLowerCase(Locale.ROOT));
+        if (rulesForKeyword != null) {
+            return rulesForKeyword;
+        } else {
+            return table.rulesForAnyKeyword;
+        }
+    }
+
+    private RuleTable createRuleTable(Class<?> contextType) {
+        List<Rule> rulesForContextType = new ArrayList<>();
+        Set<String> keywords = new HashSet<>();
+        for (Rule rule : rules) {
+            if (rule.isRegisteredFor(contextType)) {
+                rulesForContextType.add(rule);
+
+                if (rule.keyword != null) {
+                    keywords.add(rule.keyword);
+                }
+            }
+        }
+
+        RuleTable table = new RuleTable();
+        for (String keyword : keywords) {
+            table.rulesByKeyword.put(keyword, rulesForContextType.stream().filter(r -> r.keyword == null || r.keyword.equals(keyword)).toArray(Rule[]::new));
+        }
+        table.rulesForAnyKeyword = rulesForContextType.stream().filter(r -> r.keyword == null).toArray(Rule[]::new);
+
+        return table;
+    }
+
+}
@@ -2,10 +2,23 @@ package com.structurizr.dsl;
 
 class StructurizrDslExpressions {
 
-    static final String ELEMENT_TAG_EQUALS_EXPRESSION = "element.tag==";
-    static final String ELEMENT_TAG_NOT_EQUALS_EXPRESSION = "element.tag!=";
+    static final String ELEMENT_TAG = "element.tag";
+    static final String ELEMENT_TYPE = "element.type";
+    static final String ELEMENT_PARENT = "element.parent";
 
-    static final String RELATIONSHIP_TAG_EQUALS_EXPRESSION = "relationship.tag==";
-    static final String RELATIONSHIP_TAG_NOT_EQUALS_EXPRESSION = "relationship.tag!=";
+    // property names are matched ignoring case
+    static final String ELEMENT_DEPLOYMENT_GROUP = "element.deploymentgroup";
+    static final String ELEMENT_INSTANCE_OF = "element.instanceof";
+
+    static final String RELATIONSHIP_TAG = "relationship.tag";
+    static final String RELATIONSHIP_SOURCE = "relationship.source";
+    static final String RELATIONSHIP_DESTINATION = "relationship.destination";
+
+    static final String EQUALS = "==";
+    static final String NOT_EQUALS = "!=";
+
+    static final String AND = "&&";
+    static final String OR = "||";
+    static final String NOT = "!";
 
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.structurizr.dsl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A single-pass, character scanning lexer for lines of Structurizr DSL.
+ *
+ * This produces the same tokens as the regular expression based tokenizer that it replaces,
+ * but records token boundaries as offsets into the line, so no intermediate objects are created
+ * until a token is actually requested.
+ */
+final class StructurizrDslLexer {
+
+    private static final char DOUBLE_QUOTE = '"';
+    private static final char BACKSLASH = '\\';
+    private static final char HASH = '#';
+    private static final char SLASH = '/';
+
+    private String line;
+    private int lineStart;
+    private int lineEnd;
+
+    private int[] tokenStarts = new int[16];
+    private int[] tokenEnds = new int[16];
+    private int tokenCount;
+
+    /**
+     * Lexes the specified line.
+     *
+     * @param line      a line of DSL
+     * @return  false if the line is empty or a single line comment, true otherwise
+     */
+    boolean lex(String line) {
+        this.line = line;
+        this.tokenCount = 0;
+
+        int length = line.length();
+        int position = 0;
+        while (position < length && isWhitespace(line.charAt(position))) {
+            position++;
+        }
+
+        if (position == length) {
+            // empty line
+            return false;
+        }
+
+        if (isCommentStart(position, length) && !containsLineTerminator(position, length)) {
+            // single line comment
+            return false;
+        }
+
+        lineStart = 0;
+        lineEnd = length;
+        while (lineStart < lineEnd && line.charAt(lineStart) <= ' ') {
+            lineStart++;
+        }
+        while (lineEnd > lineStart && line.charAt(lineEnd-1) <= ' ') {
+            lineEnd--;
+        }
+
+        position = lineStart;
+        while (position < lineEnd) {
+            char c = line.charAt(position);
+
+            if (isWhitespace(c)) {
+                position++;
+                continue;
+            }
+
+            if (c == DOUBLE_QUOTE) {
+                int closingQuote = findClosingQuote(position);
+                if (closingQuote != -1) {
+                    // this is a token specified between double-quotes
+                    addToken(position + 1, closingQuote);
+                    position = closingQuote + 1;
+                    continue;
+                }
+            }
+
+            // this is a token specified without double-quotes
+            int tokenStart = position;
+            while (position < lineEnd && !isWhitespace(line.charAt(position))) {
+                position++;
+            }
+            addToken(tokenStart, position);
+        }
+
+        return true;
+    }
+
+    int getTokenCount() {
+        return tokenCount;
+    }
+
+    int getTokenStart(int index) {
+        return tokenStarts[index];
+    }
+
+    int getTokenEnd(int index) {
+        return tokenEnds[index];
+    }
+
+    String getToken(int index) {
+        if (index < 0 || index >= tokenCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + tokenCount);
+        }
+
+        return line.substring(tokenStarts[index], tokenEnds[index]);
+    }
+
+    List<String> getTokens() {
+        List<String> tokens = new ArrayList<>(tokenCount);
+        for (int i = 0; i < tokenCount; i++) {
+            tokens.add(getToken(i));
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Determines whether the trimmed line starts with the specified text.
+     */
+    boolean lineStartsWith(String text) {
+        return lineEnd - lineStart >= text.length() && line.startsWith(text, lineStart);
+    }
+
+    /**
+     * Determines whether the trimmed line ends with the specified text.
+     */
+    boolean lineEndsWith(String text) {
+        return lineEnd - lineStart >= text.length() && line.startsWith(text, lineEnd - text.length());
+    }
+
+    private void addToken(int start, int end) {
+        if (tokenCount == tokenStarts.length) {
+            tokenStarts = Arrays.copyOf(tokenStarts, tokenCount * 2);
+            tokenEnds = Arrays.copyOf(tokenEnds, tokenCount * 2);
+        }
+
+        tokenStarts[tokenCount] = start;
+        tokenEnds[tokenCount] = end;
+        tokenCount++;
+    }
+
+    private int findClosingQuote(int openingQuote) {
+        // backslash escapes the next character, so the token normally ends at the first unescaped double-quote;
+        // if there isn't one, the last escaped double-quote closes the token instead (e.g. "C:\")
+        int lastEscapedQuote = -1;
+
+        int position = openingQuote + 1;
+        while (position < lineEnd) {
+            char c = line.charAt(position);
+            if (c == BACKSLASH && position + 1 < lineEnd) {
+                if (line.charAt(position + 1) == DOUBLE_QUOTE) {
+                    lastEscapedQuote = position + 1;
+                }
+                position += 2;
+            } else if (c == DOUBLE_QUOTE) {
+                return position;
+            } else {
+                position++;
+            }
+        }
+
+        return lastEscapedQuote;
+    }
+
+    private boolean isCommentStart(int position, int length) {
+        char c = line.charAt(position);
+
+        return c == HASH || (c == SLASH && position + 1 < length && line.charAt(position + 1) == SLASH);
+    }
+
+    private boolean containsLineTerminator(int position, int length) {
+        for (int i = position; i < length; i++) {
+            char c = line.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+}
@@ -0,0 +1,332 @@
+package com.structurizr.dsl;
+
+import com.structurizr.Workspace;
+import com.structurizr.model.ImpliedRelationshipsStrategy;
+import com.structurizr.util.WorkspaceUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An on-disk cache of parsed workspaces, for use with StructurizrDslParser.setParseCache(), so that a workspace
+ * defined in files that haven't changed since it was last parsed is read from the cache rather than parsed again.
+ *
+ * A cache entry records a hash of the content of every file and directory that was read while parsing (the file or
+ * directory being parsed, files referenced by !include, the paths referenced by !docs and !adrs, and icon/logo
+ * files), along with the environment variables that were substituted; the cached workspace is only used when all
+ * of these still match.
+ *
+ * The directory can be shared by several processes (e.g. concurrent CI jobs, which may run as different users);
+ * entries are written to a temporary file and then moved into place, so a partially written entry is never read, and
+ * are readable by everybody. Writing to the cache is best-effort; a workspace that can't be cached is still parsed.
+ * When the total size of the entries exceeds the maximum size, the least recently used entries are removed.
+ *
+ * Along with the workspace, an entry records the implied relationships strategy that the model was left with, which
+ * isn't part of the JSON representation of a workspace.
+ */
+public final class StructurizrDslParseCache {
+
+    private static final String FORMAT = "structurizr-dsl-parse-cache 2";
+    private static final String FILE_PREFIX = "F ";
+    private static final String ENVIRONMENT_VARIABLE_PREFIX = "E ";
+    private static final String IMPLIED_RELATIONSHIPS_STRATEGY_PREFIX = "S ";
+    private static final String WORKSPACE_SEPARATOR = "---";
+    private static final String ENTRY_SUFFIX = ".workspace";
+    private static final String MISSING = "-";
+    private static final String ENTRY_PERMISSIONS = "rw-r--r--";
+
+    private final File directory;
+    private final long maximumSize;
+
+    /**
+     * Creates a new cache, stored in the specified directory (which is created if it doesn't exist).
+     *
+     * @param directory     the directory in which to store cached workspaces
+     * @param maximumSize   the maximum total size (in bytes) of the cached workspaces
+     */
+    public StructurizrDslParseCache(File directory, long maximumSize) {
+        if (directory == null) {
+            throw new RuntimeException("A directory must be specified");
+        }
+
+        if (maximumSize <= 0) {
+            throw new RuntimeException("The maximum size must be greater than zero");
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new RuntimeException("The directory at " + directory.getAbsolutePath() + " could not be created");
+        }
+
+        this.directory = directory;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Gets the workspace that was cached for the specified file or directory, or null if there isn't one, or if any
+     * of the files or environment variables it depends on have changed.
+     *
+     * @param options   the parser options that affect the result of parsing
+     */
+    Workspace get(File path, String options) {
+        File entry = getEntry(path, options);
+        if (!entry.isFile()) {
+            return null;
+        }
+
+        try {
+            String content = new String(Files.readAllBytes(entry.toPath()), StandardCharsets.UTF_8);
+            String[] lines = content.split("\n", -1);
+            if (lines.length == 0 || !FORMAT.equals(lines[0])) {
+                return null;
+            }
+
+            int i = 1;
+            int offset = lines[0].length() + 1;
+            ImpliedRelationshipsStrategy impliedRelationshipsStrategy = null;
+            while (i < lines.length && !WORKSPACE_SEPARATOR.equals(lines[i])) {
+                String line = lines[i];
+                if (line.startsWith(FILE_PREFIX)) {
+                    int space = line.indexOf(' ', FILE_PREFIX.length());
+                    if (!line.substring(FILE_PREFIX.length(), space).equals(hash(new File(line.substring(space + 1))))) {
+                        return null;
+                    }
+                } else if (line.startsWith(ENVIRONMENT_VARIABLE_PREFIX)) {
+                    int space = line.indexOf(' ', ENVIRONMENT_VARIABLE_PREFIX.length());
+                    if (!line.substring(ENVIRONMENT_VARIABLE_PREFIX.length(), space).equals(hash(System.getenv(line.substring(space + 1))))) {
+                        return null;
+                    }
+                } else if (line.startsWith(IMPLIED_RELATIONSHIPS_STRATEGY_PREFIX)) {
+                    impliedRelationshipsStrategy = (ImpliedRelationshipsStrategy)Class.forName(line.substring(IMPLIED_RELATIONSHIPS_STRATEGY_PREFIX.length())).getDeclaredConstructor().newInstance();
+                } else {
+                    return null;
+                }
+
+                offset += line.length() + 1;
+                i++;
+            }
+
+            if (i == lines.length || impliedRelationshipsStrategy == null) {
+                return null;
+            }
+
+            Workspace workspace = WorkspaceUtils.fromJson(content.substring(offset + WORKSPACE_SEPARATOR.length() + 1));
+            workspace.getModel().setImpliedRelationshipsStrategy(impliedRelationshipsStrategy);
+
+            // the last modified time records when the entry was last used, for eviction
+            entry.setLastModified(System.currentTimeMillis());
+
+            return workspace;
+        } catch (Exception e) {
+            // the entry has been removed by another process, or can't be read, so the file will be parsed instead
+            return null;
+        }
+    }
+
+    /**
+     * Caches the workspace that has been parsed from the specified file or directory. This is best-effort; if the
+     * workspace can't be serialised, or the entry can't be written (e.g. because the directory is read-only or full),
+     * the workspace isn't cached.
+     *
+     * @param options       the parser options that affect the result of parsing
+     * @param dependencies  the files and environment variables that were read while parsing (the workspace isn't
+     *                      cached if these couldn't all be recorded)
+     */
+    void put(File path, String options, Dependencies dependencies, Workspace workspace) {
+        if (!dependencies.recorded) {
+            return;
+        }
+
+        StringBuilder buf = new StringBuilder();
+        buf.append(FORMAT).append('\n');
+        for (Map.Entry<String, String> file : dependencies.files.entrySet()) {
+            buf.append(FILE_PREFIX).append(file.getValue()).append(' ').append(file.getKey()).append('\n');
+        }
+        for (Map.Entry<String, String> environmentVariable : dependencies.environmentVariables.entrySet()) {
+            buf.append(ENVIRONMENT_VARIABLE_PREFIX).append(hash(environmentVariable.getValue())).append(' ').append(environmentVariable.getKey()).append('\n');
+        }
+        buf.append(IMPLIED_RELATIONSHIPS_STRATEGY_PREFIX).append(workspace.getModel().getImpliedRelationshipsStrategy().getClass().getName()).append('\n');
+        buf.append(WORKSPACE_SEPARATOR).append('\n');
+
+        try {
+            buf.append(WorkspaceUtils.toJson(workspace, false));
+
+            File entry = getEntry(path, options);
+            Path temporaryFile = Files.createTempFile(directory.toPath(), entry.getName(), ".tmp");
+            try {
+                Files.write(temporaryFile, buf.toString().getBytes(StandardCharsets.UTF_8));
+                setPermissions(temporaryFile);
+                try {
+                    Files.move(temporaryFile, entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporaryFile, entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+
+            evict();
+        } catch (Exception e) {
+            // the workspace has been parsed, so it's returned regardless, and the file will be parsed again next time
+        }
+    }
+
+    /**
+     * Makes the specified entry readable by everybody (temporary files are only readable by their owner), so that
+     * processes running as other users can use it.
+     */
+    private void setPermissions(Path entry) throws IOException {
+        try {
+            Files.setPosixFilePermissions(entry, PosixFilePermissions.fromString(ENTRY_PERMISSIONS));
+        } catch (UnsupportedOperationException e) {
+            // the file system doesn't support POSIX permissions, so the default permissions apply
+        }
+    }
+
+    private File getEntry(File path, String options) {
+        String name;
+        try {
+            name = path.getCanonicalPath();
+        } catch (IOException e) {
+            name = path.getAbsolutePath();
+        }
+
+        return new File(directory, hash((name + '\n' + options).getBytes(StandardCharsets.UTF_8)) + ENTRY_SUFFIX);
+    }
+
+    private void evict() {
+        File[] entries = directory.listFiles((dir, name) -> name.endsWith(ENTRY_SUFFIX));
+        if (entries == null) {
+            return;
+        }
+
+        long size = 0;
+        List<File> leastRecentlyUsed = new ArrayList<>();
+        Map<File, Long> lastUsed = new HashMap<>();
+        for (File entry : entries) {
+            size += entry.length();
+            leastRecentlyUsed.add(entry);
+            lastUsed.put(entry, entry.lastModified());
+        }
+        leastRecentlyUsed.sort(Comparator.comparing(lastUsed::get));
+
+        for (File entry : leastRecentlyUsed) {
+            if (size <= maximumSize) {
+                break;
+            }
+
+            // another process might have removed (or be reading) the entry, in which case it's left for next time
+            long length = entry.length();
+            if (entry.delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    private static String hash(File file) throws IOException {
+        if (file.isFile()) {
+            MessageDigest digest = newMessageDigest();
+            update(digest, file);
+
+            return toHex(digest.digest());
+        } else if (file.isDirectory()) {
+            // the hash covers the names and content of the files in the directory (recursively)
+            MessageDigest digest = newMessageDigest();
+            Path root = file.toPath();
+            List<Path> paths;
+            try (Stream<Path> stream = Files.walk(root)) {
+                paths = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+
+            for (Path path : paths) {
+                digest.update(root.relativize(path).toString().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte)0);
+                update(digest, path.toFile());
+            }
+
+            return toHex(digest.digest());
+        } else {
+            return MISSING;
+        }
+    }
+
+    private static String hash(String value) {
+        return value != null ? hash(value.getBytes(StandardCharsets.UTF_8)) : MISSING;
+    }
+
+    private static String hash(byte[] bytes) {
+        return toHex(newMessageDigest().digest(bytes));
+    }
+
+    private static void update(MessageDigest digest, File file) throws IOException {
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder buf = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            buf.append(Character.forDigit((b >> 4) & 0xf, 16));
+            buf.append(Character.forDigit(b & 0xf, 16));
+        }
+
+        return buf.toString();
+    }
+
+    /**
+     * The files, directories and environment variables that are read while parsing.
+     */
+    static final class Dependencies {
+
+        private final Map<String, String> files = new LinkedHashMap<>();
+        private final Map<String, String> environmentVariables = new TreeMap<>();
+        private boolean recorded = true;
+
+        /**
+         * Records the specified file or directory, which is hashed now (rather than when the workspace is cached),
+         * so that a change made while parsing is picked up next time.
+         */
+        void addFile(File file) {
+            try {
+                String name = file.getCanonicalPath();
+                if (name.indexOf('\n') > -1) {
+                    recorded = false;
+                } else if (!files.containsKey(name)) {
+                    files.put(name, hash(file));
+                }
+            } catch (IOException e) {
+                recorded = false;
+            }
+        }
+
+        void addEnvironmentVariable(String name, String value) {
+            environmentVariables.put(name, value);
+        }
+
+    }
+
+}
@@ -5,50 +5,126 @@ import com.structurizr.model.*;
 import com.structurizr.util.StringUtils;
 import com.structurizr.view.*;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.*;
-import java.util.regex.Matcher;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.regex.Pattern;
 
+import static com.structurizr.dsl.StructurizrDslDispatcher.*;
+
 /**
  * Main DSL parser class - forms the API for using the parser.
  */
 public final class StructurizrDslParser extends StructurizrDslTokens {
 
-    private static final Pattern EMPTY_LINE_PATTERN = Pattern.compile("^\\s*");
-    private static final Pattern TOKENS_PATTERN = Pattern.compile("\"((\\\\.|[^\"])*)\"|(\\S+)");
     private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("\\w+");
 
-    private static final Pattern COMMENT_PATTERN = Pattern.compile("^\\s*?(//|#).*$");
     private static final String MULTI_LINE_COMMENT_START_TOKEN = "/*";
     private static final String MULTI_LINE_COMMENT_END_TOKEN = "*/";
 
-    private static final Pattern STRING_SUBSTITUTION_PATTERN = Pattern.compile("(\\$\\{[a-zA-Z0-9-_.]+?})");
+    private static final String STRING_SUBSTITUTION_START = "${";
+    private static final char STRING_SUBSTITUTION_END = '}';
 
     private Stack<DslContext> contextStack;
-    private Map<String, Element> elements;
-    private Map<String, Relationship> relationships;
+    private IdentifiersRegister identifiers;
     private Map<String, Constant> constants;
+    private Map<String, String> environment;
 
-    private List<String> dslSourceLines = new ArrayList<>();
+    private StringBuilder dslSource = new StringBuilder();
     private Workspace workspace;
+    private ModelIndex modelIndex;
+    private WorkspaceIndex workspaceIndex;
+    private StructurizrDslLexer lexer = new StructurizrDslLexer();
+    private StructurizrDslDispatcher dispatcher = new StructurizrDslDispatcher();
+
+    // the sub-parsers hold no state, so one instance of each is shared by every line
+    private final ExplicitRelationshipParser explicitRelationshipParser = new ExplicitRelationshipParser();
+    private final ImplicitRelationshipParser implicitRelationshipParser = new ImplicitRelationshipParser();
+    private final CustomElementParser customElementParser = new CustomElementParser();
+    private final PersonParser personParser = new PersonParser();
+    private final SoftwareSystemParser softwareSystemParser = new SoftwareSystemParser();
+    private final ContainerParser containerParser = new ContainerParser();
+    private final ComponentParser componentParser = new ComponentParser();
+    private final GroupParser groupParser = new GroupParser();
+    private final ModelItemParser modelItemParser = new ModelItemParser();
+    private final WorkspaceParser workspaceParser = new WorkspaceParser();
+    private final ImpliedRelationshipsParser impliedRelationshipsParser = new ImpliedRelationshipsParser();
+    private final BrandingParser brandingParser = new BrandingParser();
+    private final ElementStyleParser elementStyleParser = new ElementStyleParser();
+    private final RelationshipStyleParser relationshipStyleParser = new RelationshipStyleParser();
+    private final EnterpriseParser enterpriseParser = new EnterpriseParser();
+    private final DeploymentEnvironmentParser deploymentEnvironmentParser = new DeploymentEnvironmentParser();
+    private final DeploymentGroupParser deploymentGroupParser = new DeploymentGroupParser();
+    private final DeploymentNodeParser deploymentNodeParser = new DeploymentNodeParser();
+    private final InfrastructureNodeParser infrastructureNodeParser = new InfrastructureNodeParser();
+    private final SoftwareSystemInstanceParser softwareSystemInstanceParser = new SoftwareSystemInstanceParser();
+    private final ContainerInstanceParser containerInstanceParser = new ContainerInstanceParser();
+    private final HealthCheckParser healthCheckParser = new HealthCheckParser();
+    private final CustomViewParser customViewParser = new CustomViewParser();
+    private final SystemLandscapeViewParser systemLandscapeViewParser = new SystemLandscapeViewParser();
+    private final SystemContextViewParser systemContextViewParser = new SystemContextViewParser();
+    private final ContainerViewParser containerViewParser = new ContainerViewParser();
+    private final ComponentViewParser componentViewParser = new ComponentViewParser();
+    private final DynamicViewParser dynamicViewParser = new DynamicViewParser();
+    private final DeploymentViewParser deploymentViewParser = new DeploymentViewParser();
+    private final FilteredViewParser filteredViewParser = new FilteredViewParser();
+    private final DynamicViewContentParser dynamicViewContentParser = new DynamicViewContentParser();
+    private final CustomViewContentParser customViewContentParser = new CustomViewContentParser();
+    private final CustomViewAnimationStepParser customViewAnimationStepParser = new CustomViewAnimationStepParser();
+    private final AutoLayoutParser autoLayoutParser = new AutoLayoutParser();
+    private final StaticViewContentParser staticViewContentParser = new StaticViewContentParser();
+    private final StaticViewAnimationStepParser staticViewAnimationStepParser = new StaticViewAnimationStepParser();
+    private final DeploymentViewContentParser deploymentViewContentParser = new DeploymentViewContentParser();
+    private final DeploymentViewAnimationStepParser deploymentViewAnimationStepParser = new DeploymentViewAnimationStepParser();
+    private final ViewParser viewParser = new ViewParser();
+    private final ThemesParser themesParser = new ThemesParser();
+    private final TerminologyParser terminologyParser = new TerminologyParser();
+    private final UserRoleParser userRoleParser = new UserRoleParser();
+    private final IncludeParser includeParser = new IncludeParser();
+    private final DocsParser docsParser = new DocsParser();
+    private final AdrsParser adrsParser = new AdrsParser();
+    private final ConstantParser constantParser = new ConstantParser();
 
     private boolean restricted = false;
+    private boolean memoryMapped = false;
+    private boolean deferImpliedRelationships = false;
+    private boolean parallelDirectoryParsing = false;
+    private boolean parallelViewResolution = false;
+    private LexedDslFileCache lexedFileCache;
+    private StructurizrDslParseCache parseCache;
+
+    // the files and environment variables read while parsing (when the workspace is going to be cached)
+    private StructurizrDslParseCache.Dependencies parseDependencies;
+    private boolean loadedFromParseCache = false;
+
+    // the include/exclude/autoLayout/animation statements of the view being parsed (when resolving views in parallel)
+    private List<ViewStatement> viewStatements;
+    private final List<ForkJoinTask<StructurizrDslParserException>> viewResolutions = new ArrayList<>();
+
+    // relationships in a syntax tree that refer to elements defined later in the model
+    private final List<DeferredRelationship> deferredRelationships = new ArrayList<>();
+    private boolean resolvingDeferredRelationships = false;
+    private DslLine syntaxTreeLine;
 
     /**
      * Creates a new instance of the parser.
      */
     public StructurizrDslParser() {
         contextStack = new Stack<>();
-        elements = new HashMap<>();
-        relationships = new HashMap<>();
+        identifiers = new IdentifiersRegister();
         constants = new HashMap<>();
 
         workspace = new Workspace("Name", "Description");
         workspace.getModel().setImpliedRelationshipsStrategy(new CreateImpliedRelationshipsUnlessAnyRelationshipExistsStrategy());
+        modelIndex = new ModelIndex(workspace.getModel());
+        workspaceIndex = new WorkspaceIndex();
+
+        registerHandlers();
     }
 
     /**
@@ -61,25 +137,90 @@ public final class StructurizrDslParser extends StructurizrDslTokens {
     }
 
     /**
-     * Gets the workspace that has been created by parsing the Structurizr DSL.
+     * Sets whether DSL files (including those referenced by !include) should be memory-mapped rather than read
+     * through a buffered reader. Empty lines and comments in memory-mapped files are recognised without being
+     * lexed. Files larger than 2GB are always read through a buffered reader.
      *
-     * @return  a Workspace instance
+     * @param memoryMapped      true to memory-map files, false otherwise
      */
-    public Workspace getWorkspace() {
-        DslUtils.setDsl(workspace, getParsedDsl());
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
 
-        return workspace;
+    /**
+     * Sets whether the implied relationships for relationships defined in the model should be created in a single
+     * batch (when the model block ends, or before the first software system/container instance is added), rather than
+     * as each relationship is defined. The same implied relationships are created either way, although they are
+     * assigned IDs after those of the relationships defined in the model. Relationships defined in dynamic views
+     * always have their implied relationships created immediately.
+     *
+     * @param deferImpliedRelationships     true to create implied relationships in a batch, false otherwise
+     */
+    public void setDeferImpliedRelationships(boolean deferImpliedRelationships) {
+        this.deferImpliedRelationships = deferImpliedRelationships;
     }
 
-    private String getParsedDsl() {
-        StringBuilder buf = new StringBuilder();
+    /**
+     * Sets whether the files in a directory should be read and lexed concurrently (on the common ForkJoinPool) when
+     * parsing a directory. The files are still parsed one at a time, in the same order as they would be otherwise,
+     * so the resulting workspace (identifiers, IDs and DSL) is the same. Files are not memory-mapped in this mode.
+     *
+     * @param parallelDirectoryParsing      true to lex the files in a directory concurrently, false otherwise
+     */
+    public void setParallelDirectoryParsing(boolean parallelDirectoryParsing) {
+        this.parallelDirectoryParsing = parallelDirectoryParsing;
+    }
+
+    /**
+     * Sets whether the contents of system landscape, system context, container, component and deployment views should
+     * be resolved concurrently (on the common ForkJoinPool). Each view is still created (and added to the workspace) in
+     * the order it is defined, and the include/exclude/autoLayout/animation statements of each view are run in order,
+     * on a single thread, once the view has been parsed. Outstanding views are resolved before the parser moves on to
+     * anything that can change the model (e.g. dynamic views), so the resulting workspace is the same.
+     *
+     * @param parallelViewResolution        true to resolve views concurrently, false otherwise
+     */
+    public void setParallelViewResolution(boolean parallelViewResolution) {
+        this.parallelViewResolution = parallelViewResolution;
+    }
 
-        for (String line : dslSourceLines) {
-            buf.append(line);
-            buf.append(System.lineSeparator());
+    /**
+     * Sets a cache of lexed files, used instead of reading every file (including those referenced by !include) from
+     * disk. The same cache can be shared by several parsers, so that files that are included from several places, or
+     * by several workspaces, are only read and lexed once (unless they change).
+     *
+     * @param lexedFileCache    a LexedDslFileCache, or null to read every file from disk
+     */
+    public void setLexedDslFileCache(LexedDslFileCache lexedFileCache) {
+        this.lexedFileCache = lexedFileCache;
+    }
+
+    /**
+     * Sets an on-disk cache of parsed workspaces. When a file or directory is the first thing to be parsed, and none of
+     * the files it depends on have changed since it was cached, the workspace is read from the cache; nothing else can
+     * be parsed after that, because the identifiers used in the DSL are not cached. Otherwise, the workspace is cached
+     * once the file or directory has been parsed.
+     *
+     * @param parseCache    a StructurizrDslParseCache, or null to not use a cache
+     */
+    public void setParseCache(StructurizrDslParseCache parseCache) {
+        this.parseCache = parseCache;
+    }
+
+    /**
+     * Gets the workspace that has been created by parsing the Structurizr DSL.
+     *
+     * @return  a Workspace instance
+     */
+    public Workspace getWorkspace() {
+        if (loadedFromParseCache) {
+            // the DSL was cached along with the workspace
+            return workspace;
         }
 
-        return buf.toString();
+        DslUtils.setDsl(workspace, dslSource.toString());
+
+        return workspace;
     }
 
     /**
@@ -98,13 +239,34 @@ public final class StructurizrDslParser extends StructurizrDslTokens {
             throw new RuntimeException("The file at " + path.getAbsolutePath() + " does not exist");
         }
 
+        checkNotLoadedFromParseCache();
+        boolean cacheable = parseCache != null && dslSource.length() == 0 && contextStack.isEmpty();
+        if (cacheable) {
+            Workspace cachedWorkspace = parseCache.get(path, getParseCacheOptions());
+            if (cachedWorkspace != null) {
+                workspace = cachedWorkspace;
+                loadedFromParseCache = true;
+                return;
+            }
+
+            parseDependencies = new StructurizrDslParseCache.Dependencies();
+            parseDependencies.addFile(path);
+        }
+
         List<File> files = FileUtils.findFiles(path);
-        try {
+        if (parallelDirectoryParsing && files.size() > 1) {
+            parseFilesInParallel(files);
+        } else {
             for (File file : files) {
-                parse(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8), file);
+                parseFile(file);
             }
-        } catch (IOException e) {
-            throw new StructurizrDslParserException(e.getMessage());
+        }
+
+        resolveViews();
+
+        if (cacheable) {
+            parseCache.put(path, getParseCacheOptions(), parseDependencies, getWorkspace());
+            parseDependencies = null;
         }
     }
 
@@ -118,548 +280,1027 @@ public final class StructurizrDslParser extends StructurizrDslTokens {
             throw new RuntimeException("A DSL fragment must be specified");
         }
 
-        List<String> lines = Arrays.asList(dsl.split("\\r?\\n"));
-        parse(lines, new File("."));
+        parse(new StringReader(dsl));
     }
 
-    void parse(List<String> lines, File file) throws StructurizrDslParserException {
-        int lineNumber = 1;
-        for (String line : lines) {
-            boolean includeInDslSourceLines = true;
+    /**
+     * Parses Structurizr DSL from the specified reader, adding the parsed content to the workspace.
+     * The DSL is read a line at a time, so the whole document is never held in memory as a list of lines.
+     * The reader is not closed.
+     *
+     * @param reader    a Reader
+     */
+    public void parse(Reader reader) throws StructurizrDslParserException {
+        if (reader == null) {
+            throw new RuntimeException("A reader must be specified");
+        }
+
+        checkNotLoadedFromParseCache();
+
+        try {
+            parse(new BufferedReader(reader), new File("."));
+        } catch (IOException e) {
+            throw new StructurizrDslParserException(e.getMessage());
+        }
+
+        resolveViews();
+    }
+
+    /**
+     * Parses Structurizr DSL from the specified input stream, adding the parsed content to the workspace.
+     * The input stream is not closed.
+     *
+     * @param in        an InputStream
+     * @param charset   the character set used to decode the input stream
+     */
+    public void parse(InputStream in, Charset charset) throws StructurizrDslParserException {
+        if (in == null) {
+            throw new RuntimeException("An input stream must be specified");
+        }
+
+        if (charset == null) {
+            throw new RuntimeException("A character set must be specified");
+        }
+
+        parse(new InputStreamReader(in, charset));
+    }
+
+    /**
+     * Builds a syntax tree from the specified Structurizr DSL file(s), without adding anything to the workspace.
+     * If "path" represents a directory, all files in that directory (recursively) are included in the tree.
+     * Files referenced by !include are expanded in place (unless running in restricted mode).
+     *
+     * @param path      a File object representing a file or directory
+     * @return  a StructurizrDslSyntaxTree
+     */
+    public StructurizrDslSyntaxTree parseSyntaxTree(File path) throws StructurizrDslParserException {
+        if (path == null) {
+            throw new RuntimeException("A file must be specified");
+        }
+
+        if (!path.exists()) {
+            throw new RuntimeException("The file at " + path.getAbsolutePath() + " does not exist");
+        }
 
+        StructurizrDslSyntaxTree.Builder builder = new StructurizrDslSyntaxTree.Builder(restricted);
+        for (File file : FileUtils.findFiles(path)) {
             try {
-                if (EMPTY_LINE_PATTERN.matcher(line).matches()) {
-                    // do nothing
-                } else if (COMMENT_PATTERN.matcher(line).matches()) {
-                    // do nothing
-                } else {
-                    List<String> listOfTokens = new ArrayList<>();
-                    Matcher m = TOKENS_PATTERN.matcher(line.trim());
-                    while (m.find()) {
-                        String token = null;
-                        if (m.group(1) != null) {
-                            // this is a token specified between double-quotes
-                            token = m.group(1);
-                        } else {
-                            // this is a token specified without double-quotes
-                            token = m.group(3);
-                        }
-
-                        if (token != null) {
-                            token = substituteStrings(token);
-                            listOfTokens.add(token);
-                        }
-                    }
+                builder.add(lex(file));
+            } catch (IOException e) {
+                throw new StructurizrDslParserException(e.getMessage());
+            }
+        }
 
-                    Tokens tokens = new Tokens(listOfTokens);
+        return builder.build();
+    }
 
-                    String identifier = null;
-                    if (tokens.size() > 3 && ASSIGNMENT_OPERATOR_TOKEN.equals(tokens.get(1))) {
-                        identifier = tokens.get(0).toLowerCase();
-                        validateIdentifier(identifier);
+    /**
+     * Builds a syntax tree from the specified Structurizr DSL fragment, without adding anything to the workspace.
+     *
+     * @param dsl       a DSL fragment
+     * @return  a StructurizrDslSyntaxTree
+     */
+    public StructurizrDslSyntaxTree parseSyntaxTree(String dsl) throws StructurizrDslParserException {
+        if (StringUtils.isNullOrEmpty(dsl)) {
+            throw new RuntimeException("A DSL fragment must be specified");
+        }
 
-                        tokens = new Tokens(listOfTokens.subList(2, listOfTokens.size()));
-                    }
+        StructurizrDslSyntaxTree.Builder builder = new StructurizrDslSyntaxTree.Builder(restricted);
+        try {
+            builder.add(LexedDslFile.lex(new BufferedReader(new StringReader(dsl)), new File(".")));
+        } catch (IOException e) {
+            throw new StructurizrDslParserException(e.getMessage());
+        }
 
-                    String firstToken = tokens.get(0);
+        return builder.build();
+    }
 
-                    if (line.trim().startsWith(MULTI_LINE_COMMENT_START_TOKEN) && line.trim().endsWith(MULTI_LINE_COMMENT_END_TOKEN)) {
-                        // do nothing
-                    } else if (firstToken.startsWith(MULTI_LINE_COMMENT_START_TOKEN)) {
-                        startContext(new CommentDslContext());
+    /**
+     * Parses the specified syntax tree, adding the parsed content to the workspace. This produces the same result as
+     * parsing the DSL that the tree was built from, except that relationships in the model may refer to elements
+     * that are defined later in the model (these relationships are created before the first deployment environment
+     * that follows them, or at the end of the model).
+     *
+     * @param syntaxTree    a StructurizrDslSyntaxTree
+     */
+    public void parse(StructurizrDslSyntaxTree syntaxTree) throws StructurizrDslParserException {
+        if (syntaxTree == null) {
+            throw new RuntimeException("A syntax tree must be specified");
+        }
 
-                    } else if (inContext(CommentDslContext.class) && line.trim().endsWith(MULTI_LINE_COMMENT_END_TOKEN)) {
-                        endContext();
+        checkNotLoadedFromParseCache();
 
-                    } else if (inContext(CommentDslContext.class)) {
-                        // do nothing
+        for (StructurizrDslSyntaxTree.Node node : syntaxTree.getNodes()) {
+            parse(node);
+        }
 
-                    } else if (DslContext.CONTEXT_END_TOKEN.equals(tokens.get(0))) {
-                        endContext();
+        resolveViews();
+    }
 
-                    } else if (tokens.size() > 2 && RELATIONSHIP_TOKEN.equals(tokens.get(1)) && (inContext(ModelDslContext.class) || inContext(EnterpriseDslContext.class) || inContext(CustomElementDslContext.class) || inContext(PersonDslContext.class) || inContext(SoftwareSystemDslContext.class) || inContext(ContainerDslContext.class) || inContext(ComponentDslContext.class) || inContext(DeploymentEnvironmentDslContext.class) || inContext(DeploymentNodeDslContext.class) || inContext(InfrastructureNodeDslContext.class) || inContext(SoftwareSystemInstanceDslContext.class) || inContext(ContainerInstanceDslContext.class))) {
-                        Relationship relationship = new ExplicitRelationshipParser().parse(getContext(), tokens.withoutContextStartToken());
+    private void parse(StructurizrDslSyntaxTree.Node node) throws StructurizrDslParserException {
+        if (node.isInclude()) {
+            // the included lines follow this node
+            return;
+        }
 
-                        if (shouldStartContext(tokens)) {
-                            startContext(new RelationshipDslContext(relationship));
-                        }
+        if (!resolvingDeferredRelationships && refersToUndefinedElements(node)) {
+            Stack<DslContext> contexts = new Stack<>();
+            contexts.addAll(contextStack);
+            deferredRelationships.add(new DeferredRelationship(node, contexts));
+            appendToDslSource(node);
+            return;
+        }
+
+        if (node.isBlockEnd() && isEndOfModel()) {
+            parseDeferredRelationships(true);
+        } else if (DEPLOYMENT_ENVIRONMENT_TOKEN.equalsIgnoreCase(node.getKeyword()) && inContext(ModelDslContext.class)) {
+            // deployment elements replicate the relationships of static structure elements
+            parseDeferredRelationships(false);
+        }
+
+        parse(node.getText(), node.getLine().getTokens(), node.getLine().startsWithMultiLineComment(), node.getLine().endsWithMultiLineComment(), node.getLineNumber(), getSyntaxTreeLine(node));
+
+        for (StructurizrDslSyntaxTree.Node child : node.getChildren()) {
+            parse(child);
+        }
+
+        if (node.getEnd() != null) {
+            parse(node.getEnd());
+        }
+    }
 
-                        if (identifier != null) {
-                            relationships.put(identifier, relationship);
-                        }
+    private DslLine getSyntaxTreeLine(StructurizrDslSyntaxTree.Node node) {
+        if (syntaxTreeLine == null || syntaxTreeLine.getFile() != node.getFile()) {
+            syntaxTreeLine = new DslLine(node.getFile());
+        }
+
+        return syntaxTreeLine;
+    }
 
-                    } else if (tokens.size() >= 2 && RELATIONSHIP_TOKEN.equals(tokens.get(0)) && (inContext(CustomElementDslContext.class) || inContext(PersonDslContext.class) || inContext(SoftwareSystemDslContext.class) || inContext(ContainerDslContext.class) || inContext(ComponentDslContext.class) || inContext(DeploymentNodeDslContext.class) || inContext(InfrastructureNodeDslContext.class) || inContext(SoftwareSystemInstanceDslContext.class) || inContext(ContainerInstanceDslContext.class))) {
-                        Relationship relationship = new ImplicitRelationshipParser().parse(getContext(ModelItemDslContext.class), tokens.withoutContextStartToken());
+    /**
+     * Determines whether the specified node is a relationship in the model, between elements that haven't been defined yet.
+     */
+    private boolean refersToUndefinedElements(StructurizrDslSyntaxTree.Node node) {
+        LexedDslFile.Line line = node.getLine();
+        int count = line.getTokenCount();
+        if (count == 0 || inContext(CommentDslContext.class) || contextStack.stream().noneMatch(c -> c instanceof ModelDslContext)) {
+            return false;
+        }
+
+        int start = 0;
+        if (count > 3 && ASSIGNMENT_OPERATOR_TOKEN.equals(line.getToken(1))) {
+            start = 2;
+        }
 
-                        if (shouldStartContext(tokens)) {
-                            startContext(new RelationshipDslContext(relationship));
-                        }
+        if (count > start + 2 && RELATIONSHIP_TOKEN.equals(line.getToken(start + 1))) {
+            // <identifier> -> <identifier> ...
+            return isUndefinedElement(line.getToken(start)) || isUndefinedElement(line.getToken(start + 2));
+        } else if (count > start + 1 && RELATIONSHIP_TOKEN.equals(line.getToken(start)) && inContext(ModelItemDslContext.class)) {
+            // -> <identifier> ...
+            return isUndefinedElement(line.getToken(start + 1));
+        }
 
-                        if (identifier != null) {
-                            relationships.put(identifier, relationship);
-                        }
+        return false;
+    }
 
-                    } else if (CUSTOM_ELEMENT_TOKEN.equalsIgnoreCase(firstToken) && (inContext(ModelDslContext.class))) {
-                        CustomElement customElement = new CustomElementParser().parse(getContext(GroupableDslContext.class), tokens.withoutContextStartToken());
+    private boolean isUndefinedElement(String identifier) {
+        return identifiers.getElement(substituteStrings(identifier)) == null;
+    }
 
-                        if (shouldStartContext(tokens)) {
-                            startContext(new CustomElementDslContext(customElement));
-                        }
+    private boolean isEndOfModel() {
+        return inContext(ModelDslContext.class) && !getContext(ModelDslContext.class).hasGroup();
+    }
 
-                        if (identifier != null) {
-                            elements.put(identifier, customElement);
-                        }
+    /**
+     * Parses deferred relationships, each in the context it was defined in.
+     *
+     * @param all   true to parse all deferred relationships, false to parse only those whose elements are now defined
+     */
+    private void parseDeferredRelationships(boolean all) throws StructurizrDslParserException {
+        if (deferredRelationships.isEmpty()) {
+            return;
+        }
 
-                    } else if (PERSON_TOKEN.equalsIgnoreCase(firstToken) && (inContext(ModelDslContext.class) || inContext(EnterpriseDslContext.class))) {
-                        Person person = new PersonParser().parse(getContext(GroupableDslContext.class), tokens.withoutContextStartToken());
+        Stack<DslContext> currentContextStack = contextStack;
+        resolvingDeferredRelationships = true;
+        try {
+            Iterator<DeferredRelationship> iterator = deferredRelationships.iterator();
+            while (iterator.hasNext()) {
+                DeferredRelationship deferredRelationship = iterator.next();
+                contextStack = deferredRelationship.contexts;
+
+                if (all || !refersToUndefinedElements(deferredRelationship.node)) {
+                    iterator.remove();
+                    parse(deferredRelationship.node);
+                }
+            }
+        } finally {
+            contextStack = currentContextStack;
+            resolvingDeferredRelationships = false;
+        }
+    }
 
-                        if (shouldStartContext(tokens)) {
-                            startContext(new PersonDslContext(person));
-                        }
+    private void appendToDslSource(StructurizrDslSyntaxTree.Node node) {
+        dslSource.append(node.getText());
+        dslSource.append(System.lineSeparator());
 
-                        if (identifier != null) {
-                            elements.put(identifier, person);
-                        }
+        for (StructurizrDslSyntaxTree.Node child : node.getChildren()) {
+            appendToDslSource(child);
+        }
 
-                    } else if (SOFTWARE_SYSTEM_TOKEN.equalsIgnoreCase(firstToken) && (inContext(ModelDslContext.class) || inContext(EnterpriseDslContext.class))) {
-                        SoftwareSystem softwareSystem = new SoftwareSystemParser().parse(getContext(GroupableDslContext.class), tokens.withoutContextStartToken());
+        if (node.getEnd() != null) {
+            appendToDslSource(node.getEnd());
+        }
+    }
 
-                        if (shouldStartContext(tokens)) {
-                            startContext(new SoftwareSystemDslContext(softwareSystem));
-                        }
+    private static final class DeferredRelationship {
 
-                        if (identifier != null) {
-                            elements.put(identifier, softwareSystem);
-                        }
+        private final StructurizrDslSyntaxTree.Node node;
+        private final Stack<DslContext> contexts;
 
-                    } else if (CONTAINER_TOKEN.equalsIgnoreCase(firstToken) && inContext(SoftwareSystemDslContext.class)) {
-                        Container container = new ContainerParser().parse(getContext(SoftwareSystemDslContext.class), tokens.withoutContextStartToken());
+        DeferredRelationship(StructurizrDslSyntaxTree.Node node, Stack<DslContext> contexts) {
+            this.node = node;
+            this.contexts = contexts;
+        }
 
-                        if (shouldStartContext(tokens)) {
-                            startContext(new ContainerDslContext(container));
-                        }
+    }
 
-                        if (identifier != null) {
-                            elements.put(identifier, container);
-                        }
+    private void checkNotLoadedFromParseCache() {
+        if (loadedFromParseCache) {
+            throw new RuntimeException("The workspace has been loaded from the parse cache, so nothing else can be parsed");
+        }
+    }
 
-                    } else if (COMPONENT_TOKEN.equalsIgnoreCase(firstToken) && inContext(ContainerDslContext.class)) {
-                        Component component = new ComponentParser().parse(getContext(ContainerDslContext.class), tokens.withoutContextStartToken());
+    private String getParseCacheOptions() {
+        return "restricted=" + restricted + ",deferImpliedRelationships=" + deferImpliedRelationships;
+    }
 
-                        if (shouldStartContext(tokens)) {
-                            startContext(new ComponentDslContext(component));
-                        }
+    private void recordParseDependency(File file) {
+        if (parseDependencies != null) {
+            parseDependencies.addFile(file);
+        }
+    }
 
-                        if (identifier != null) {
-                            elements.put(identifier, component);
-                        }
+    private void parseFilesInParallel(List<File> files) throws StructurizrDslParserException {
+        List<ForkJoinTask<LexedDslFile>> tasks = new ArrayList<>();
+        for (File file : files) {
+            tasks.add(ForkJoinPool.commonPool().submit(() -> lex(file)));
+        }
 
-                    } else if (GROUP_TOKEN.equalsIgnoreCase(firstToken) && inContext(ModelDslContext.class) && !getContext(ModelDslContext.class).hasGroup()) {
-                        String group = new GroupParser().parse(tokens.withoutContextStartToken());
+        try {
+            // each file is parsed as soon as it (and the files before it) have been lexed
+            for (ForkJoinTask<LexedDslFile> task : tasks) {
+                LexedDslFile lexedFile;
+                try {
+                    lexedFile = task.get();
+                } catch (ExecutionException e) {
+                    throw new StructurizrDslParserException(e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new StructurizrDslParserException(e.getMessage());
+                }
 
-                        startContext(new ModelDslContext(group));
-                    } else if (GROUP_TOKEN.equalsIgnoreCase(firstToken) && inContext(EnterpriseDslContext.class) && !getContext(EnterpriseDslContext.class).hasGroup()) {
-                        String group = new GroupParser().parse(tokens.withoutContextStartToken());
+                parse(lexedFile);
+            }
+        } finally {
+            for (ForkJoinTask<LexedDslFile> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
 
-                        startContext(new EnterpriseDslContext(group));
-                    } else if (GROUP_TOKEN.equalsIgnoreCase(firstToken) && inContext(SoftwareSystemDslContext.class) && !getContext(SoftwareSystemDslContext.class).hasGroup()) {
-                        String group = new GroupParser().parse(tokens.withoutContextStartToken());
+    /**
+     * Parses a statement that populates a view, either immediately, or (when resolving views in parallel) once the
+     * whole view has been parsed.
+     */
+    private <T extends DslContext> void parseViewStatement(DslLine line, Class<T> contextType, ViewStatementParser<T> parser) {
+        T context = getContext(contextType);
+        Tokens tokens = line.getTokens();
 
-                        SoftwareSystem softwareSystem = getContext(SoftwareSystemDslContext.class).getSoftwareSystem();
-                        startContext(new SoftwareSystemDslContext(softwareSystem, group));
-                    } else if (GROUP_TOKEN.equalsIgnoreCase(firstToken) && inContext(ContainerDslContext.class) && !getContext(ContainerDslContext.class).hasGroup()) {
-                        String group = new GroupParser().parse(tokens.withoutContextStartToken());
+        if (viewStatements == null) {
+            parser.parse(context, tokens);
+        } else {
+            viewStatements.add(new ViewStatement(line.getLineNumber(), line.getSource(), () -> parser.parse(context, tokens)));
+        }
+    }
 
-                        Container container = getContext(ContainerDslContext.class).getContainer();
-                        startContext(new ContainerDslContext(container, group));
-                    } else if (URL_TOKEN.equalsIgnoreCase(firstToken) && inContext(ModelItemDslContext.class)) {
-                        new ModelItemParser().parseUrl(getContext(ModelItemDslContext.class), tokens);
+    private void submitViewStatements() {
+        List<ViewStatement> statements = viewStatements;
+        viewStatements = null;
+
+        if (!statements.isEmpty()) {
+            // views only read the model, and the model isn't changed until the outstanding views have been resolved
+            modelIndex.refresh();
+            viewResolutions.add(ForkJoinPool.commonPool().submit(() -> {
+                try {
+                    for (ViewStatement statement : statements) {
+                        statement.parse();
+                    }
+                } catch (StructurizrDslParserException e) {
+                    return e;
+                }
 
-                    } else if (PROPERTIES_TOKEN.equalsIgnoreCase(firstToken) && inContext(ModelItemDslContext.class)) {
-                        startContext(new ModelItemPropertiesDslContext(getContext(ModelItemDslContext.class).getModelItem()));
+                return null;
+            }));
+        }
+    }
 
-                    } else if (inContext(ModelItemPropertiesDslContext.class)) {
-                        new ModelItemParser().parseProperty(getContext(ModelItemPropertiesDslContext.class), tokens);
+    /**
+     * Determines whether outstanding views can continue to be resolved while lines in the specified context are
+     * parsed (i.e. whether the lines can't change the model).
+     */
+    private boolean canResolveViewsDuring(DslContext context) {
+        return context instanceof ViewsDslContext ||
+                context instanceof StaticViewDslContext ||
+                context instanceof StaticViewAnimationDslContext ||
+                context instanceof DeploymentViewDslContext ||
+                context instanceof DeploymentViewAnimationDslContext ||
+                context instanceof CommentDslContext;
+    }
 
-                    } else if (PERSPECTIVES_TOKEN.equalsIgnoreCase(firstToken) && inContext(ModelItemDslContext.class)) {
-                        startContext(new ModelItemPerspectivesDslContext(getContext(ModelItemDslContext.class).getModelItem()));
+    /**
+     * Waits for the outstanding views to be resolved, in the order they were defined.
+     */
+    private void resolveViews() throws StructurizrDslParserException {
+        try {
+            for (ForkJoinTask<StructurizrDslParserException> task : viewResolutions) {
+                StructurizrDslParserException exception;
+                try {
+                    exception = task.get();
+                } catch (ExecutionException e) {
+                    throw new StructurizrDslParserException(e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new StructurizrDslParserException(e.getMessage());
+                }
 
-                    } else if (inContext(ModelItemPerspectivesDslContext.class)) {
-                        new ModelItemParser().parsePerspective(getContext(ModelItemPerspectivesDslContext.class), tokens);
+                if (exception != null) {
+                    throw exception;
+                }
+            }
+        } finally {
+            for (ForkJoinTask<StructurizrDslParserException> task : viewResolutions) {
+                task.cancel(false);
+            }
+            viewResolutions.clear();
+        }
+    }
 
-                    } else if (WORKSPACE_TOKEN.equalsIgnoreCase(firstToken) && contextStack.empty()) {
-                        new WorkspaceParser().parse(workspace, tokens.withoutContextStartToken());
-                        startContext(new WorkspaceDslContext());
+    @FunctionalInterface
+    private interface ViewStatementParser<T extends DslContext> {
 
-                    } else if (IMPLIED_RELATIONSHIPS_TOKEN.equalsIgnoreCase(firstToken) && inContext(ModelDslContext.class)) {
-                        new ImpliedRelationshipsParser().parse(getContext(), tokens);
+        void parse(T context, Tokens tokens);
 
-                    } else if (MODEL_TOKEN.equalsIgnoreCase(firstToken) && inContext(WorkspaceDslContext.class)) {
-                        startContext(new ModelDslContext());
+    }
 
-                    } else if (VIEWS_TOKEN.equalsIgnoreCase(firstToken) && inContext(WorkspaceDslContext.class)) {
-                        startContext(new ViewsDslContext());
+    private static final class ViewStatement {
 
-                    } else if (BRANDING_TOKEN.equalsIgnoreCase(firstToken) && inContext(ViewsDslContext.class)) {
-                        startContext(new BrandingDslContext(file));
+        private final int lineNumber;
+        private final String line;
+        private final Runnable statement;
 
-                    } else if (BRANDING_LOGO_TOKEN.equalsIgnoreCase(firstToken) && inContext(BrandingDslContext.class)) {
-                        if (!restricted) {
-                            new BrandingParser().parseLogo(getContext(BrandingDslContext.class), tokens);
-                        }
+        ViewStatement(int lineNumber, String line, Runnable statement) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.statement = statement;
+        }
 
-                    } else if (BRANDING_FONT_TOKEN.equalsIgnoreCase(firstToken) && inContext(BrandingDslContext.class)) {
-                        new BrandingParser().parseFont(getContext(BrandingDslContext.class), tokens);
+        void parse() throws StructurizrDslParserException {
+            try {
+                statement.run();
+            } catch (Exception e) {
+                throw new StructurizrDslParserException(e.getMessage(), lineNumber, line);
+            }
+        }
 
-                    } else if (STYLES_TOKEN.equalsIgnoreCase(firstToken) && inContext(ViewsDslContext.class)) {
-                        startContext(new StylesDslContext());
+    }
 
-                    } else if (ELEMENT_STYLE_TOKEN.equalsIgnoreCase(firstToken) && inContext(StylesDslContext.class)) {
-                        ElementStyle elementStyle = new ElementStyleParser().parseElementStyle(getContext(), tokens.withoutContextStartToken());
-                        startContext(new ElementStyleDslContext(elementStyle, file));
+    private LexedDslFile lex(File file) throws IOException {
+        return lexedFileCache != null ? lexedFileCache.get(file) : LexedDslFile.lex(file);
+    }
 
-                    } else if (ELEMENT_STYLE_BACKGROUND_TOKEN.equalsIgnoreCase(firstToken) && inContext(ElementStyleDslContext.class)) {
-                        new ElementStyleParser().parseBackground(getContext(ElementStyleDslContext.class), tokens);
+    private void parseFile(File file) throws StructurizrDslParserException {
+        if (lexedFileCache != null) {
+            try {
+                parse(lexedFileCache.get(file));
+            } catch (IOException e) {
+                throw new StructurizrDslParserException(e.getMessage());
+            }
 
-                    } else if ((ELEMENT_STYLE_COLOUR_TOKEN.equalsIgnoreCase(firstToken) || ELEMENT_STYLE_COLOR_TOKEN.equalsIgnoreCase(firstToken)) && inContext(ElementStyleDslContext.class)) {
-                        new ElementStyleParser().parseColour(getContext(ElementStyleDslContext.class), tokens);
+            return;
+        }
 
-                    } else if (ELEMENT_STYLE_STROKE_TOKEN.equalsIgnoreCase(firstToken) && inContext(ElementStyleDslContext.class)) {
-                        new ElementStyleParser().parseStroke(getContext(ElementStyleDslContext.class), tokens);
+        if (memoryMapped && MemoryMappedDslFile.canMap(file)) {
+            try {
+                parse(new MemoryMappedDslFile(file), file);
+            } catch (IOException e) {
+                throw new StructurizrDslParserException(e.getMessage());
+            }
 
-                    } else if (ELEMENT_STYLE_SHAPE_TOKEN.equalsIgnoreCase(firstToken) && inContext(ElementStyleDslContext.class)) {
-                        new ElementStyleParser().parseShape(getContext(ElementStyleDslContext.class), tokens);
+            return;
+        }
 
-                    } else if (ELEMENT_STYLE_BORDER_TOKEN.equalsIgnoreCase(firstToken) && inContext(ElementStyleDslContext.class)) {
-                        new ElementStyleParser().parseBorder(getContext(ElementStyleDslContext.class), tokens);
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            parse(reader, file);
+        } catch (IOException e) {
+            throw new StructurizrDslParserException(e.getMessage());
+        }
+    }
 
-                    } else if (ELEMENT_STYLE_OPACITY_TOKEN.equalsIgnoreCase(firstToken) && inContext(ElementStyleDslContext.class)) {
-                        new ElementStyleParser().parseOpacity(getContext(ElementStyleDslContext.class), tokens);
+    void parse(BufferedReader reader, File file) throws StructurizrDslParserException, IOException {
+        DslLine dslLine = new DslLine(file);
 
-                    } else if (ELEMENT_STYLE_WIDTH_TOKEN.equalsIgnoreCase(firstToken) && inContext(ElementStyleDslContext.class)) {
-                        new ElementStyleParser().parseWidth(getContext(ElementStyleDslContext.class), tokens);
+        int lineNumber = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            parse(line, lineNumber, dslLine);
+            lineNumber++;
+        }
+    }
 
-                    } else if (ELEMENT_STYLE_HEIGHT_TOKEN.equalsIgnoreCase(firstToken) && inContext(ElementStyleDslContext.class)) {
-                        new ElementStyleParser().parseHeight(getContext(ElementStyleDslContext.class), tokens);
+    private void parse(MemoryMappedDslFile mappedFile, File file) throws StructurizrDslParserException, IOException {
+        DslLine dslLine = new DslLine(file);
 
-                    } else if (ELEMENT_STYLE_FONT_SIZE_TOKEN.equalsIgnoreCase(firstToken) && inContext(ElementStyleDslContext.class)) {
-                        new ElementStyleParser().parseFontSize(getContext(ElementStyleDslContext.class), tokens);
+        int lineNumber = 1;
+        while (mappedFile.nextLine()) {
+            if (mappedFile.isEmptyOrSingleLineComment()) {
+                mappedFile.appendLineTo(dslSource);
+                dslSource.append(System.lineSeparator());
+            } else {
+                parse(mappedFile.getLine(), lineNumber, dslLine);
+            }
 
-                    } else if (ELEMENT_STYLE_METADATA_TOKEN.equalsIgnoreCase(firstToken) && inContext(ElementStyleDslContext.class)) {
-                        new ElementStyleParser().parseMetadata(getContext(ElementStyleDslContext.class), tokens);
+            lineNumber++;
+        }
+    }
 
-                    } else if (ELEMENT_STYLE_DESCRIPTION_TOKEN.equalsIgnoreCase(firstToken) && inContext(ElementStyleDslContext.class)) {
-                        new ElementStyleParser().parseDescription(getContext(ElementStyleDslContext.class), tokens);
+    private void parse(LexedDslFile lexedFile) throws StructurizrDslParserException {
+        DslLine dslLine = new DslLine(lexedFile.getFile());
 
-                    } else if (ELEMENT_STYLE_ICON_TOKEN.equalsIgnoreCase(firstToken) && inContext(ElementStyleDslContext.class)) {
-                        if (!restricted) {
-                            new ElementStyleParser().parseIcon(getContext(ElementStyleDslContext.class), tokens);
-                        }
+        int lineNumber = 1;
+        for (LexedDslFile.Line line : lexedFile.getLines()) {
+            parse(line.getText(), line.getTokens(), line.startsWithMultiLineComment(), line.endsWithMultiLineComment(), lineNumber, dslLine);
+            lineNumber++;
+        }
+    }
 
-                    } else if (RELATIONSHIP_STYLE_TOKEN.equalsIgnoreCase(firstToken) && inContext(StylesDslContext.class)) {
-                        RelationshipStyle relationshipStyle = new RelationshipStyleParser().parseRelationshipStyle(getContext(), tokens.withoutContextStartToken());
-                        startContext(new RelationshipStyleDslContext(relationshipStyle));
+    private void parse(String line, int lineNumber, DslLine dslLine) throws StructurizrDslParserException {
+        if (lexer.lex(line)) {
+            String[] arrayOfTokens = new String[lexer.getTokenCount()];
+            for (int i = 0; i < arrayOfTokens.length; i++) {
+                arrayOfTokens[i] = lexer.getToken(i);
+            }
 
-                    } else if (RELATIONSHIP_STYLE_THICKNESS_TOKEN.equalsIgnoreCase(firstToken) && inContext(RelationshipStyleDslContext.class)) {
-                        new RelationshipStyleParser().parseThickness(getContext(RelationshipStyleDslContext.class), tokens);
+            parse(line, arrayOfTokens, lexer.lineStartsWith(MULTI_LINE_COMMENT_START_TOKEN), lexer.lineEndsWith(MULTI_LINE_COMMENT_END_TOKEN), lineNumber, dslLine);
+        } else {
+            parse(line, null, false, false, lineNumber, dslLine);
+        }
+    }
 
-                    } else if ((RELATIONSHIP_STYLE_COLOUR_TOKEN.equalsIgnoreCase(firstToken) || RELATIONSHIP_STYLE_COLOR_TOKEN.equalsIgnoreCase(firstToken)) && inContext(RelationshipStyleDslContext.class)) {
-                        new RelationshipStyleParser().parseColour(getContext(RelationshipStyleDslContext.class), tokens);
+    /**
+     * Parses a line that has already been lexed.
+     *
+     * @param arrayOfTokens     the tokens on the line (constants are substituted in place), or null if the line is empty or a single line comment
+     */
+    private void parse(String line, String[] arrayOfTokens, boolean multiLineCommentStart, boolean multiLineCommentEnd, int lineNumber, DslLine dslLine) throws StructurizrDslParserException {
+        boolean includeInDslSourceLines = true;
 
-                    } else if (RELATIONSHIP_STYLE_DASHED_TOKEN.equalsIgnoreCase(firstToken) && inContext(RelationshipStyleDslContext.class)) {
-                        new RelationshipStyleParser().parseDashed(getContext(RelationshipStyleDslContext.class), tokens);
+        if (!viewResolutions.isEmpty() && !canResolveViewsDuring(getContext())) {
+            resolveViews();
+        }
 
-                    } else if (RELATIONSHIP_STYLE_OPACITY_TOKEN.equalsIgnoreCase(firstToken) && inContext(RelationshipStyleDslContext.class)) {
-                        new RelationshipStyleParser().parseOpacity(getContext(RelationshipStyleDslContext.class), tokens);
+        try {
+            if (arrayOfTokens == null) {
+                // do nothing
+            } else {
+                for (int i = 0; i < arrayOfTokens.length; i++) {
+                    arrayOfTokens[i] = substituteStrings(arrayOfTokens[i]);
+                }
 
-                    } else if (RELATIONSHIP_STYLE_WIDTH_TOKEN.equalsIgnoreCase(firstToken) && inContext(RelationshipStyleDslContext.class)) {
-                        new RelationshipStyleParser().parseWidth(getContext(RelationshipStyleDslContext.class), tokens);
+                Tokens tokens = new Tokens(arrayOfTokens);
 
-                    } else if (RELATIONSHIP_STYLE_FONT_SIZE_TOKEN.equalsIgnoreCase(firstToken) && inContext(RelationshipStyleDslContext.class)) {
-                        new RelationshipStyleParser().parseFontSize(getContext(RelationshipStyleDslContext.class), tokens);
+                String identifier = null;
+                if (tokens.size() > 3 && ASSIGNMENT_OPERATOR_TOKEN.equals(tokens.get(1))) {
+                    identifier = tokens.get(0);
+                    validateIdentifier(identifier);
 
-                    } else if (RELATIONSHIP_STYLE_POSITION_TOKEN.equalsIgnoreCase(firstToken) && inContext(RelationshipStyleDslContext.class)) {
-                        new RelationshipStyleParser().parsePosition(getContext(RelationshipStyleDslContext.class), tokens);
+                    tokens = tokens.from(2);
+                }
 
-                    } else if (RELATIONSHIP_STYLE_ROUTING_TOKEN.equalsIgnoreCase(firstToken) && inContext(RelationshipStyleDslContext.class)) {
-                        new RelationshipStyleParser().parseRouting(getContext(RelationshipStyleDslContext.class), tokens);
+                String firstToken = tokens.get(0);
 
-                    } else if (ENTERPRISE_TOKEN.equalsIgnoreCase(firstToken) && inContext(ModelDslContext.class)) {
-                        new EnterpriseParser().parse(getContext(), tokens.withoutContextStartToken());
-                        startContext(new EnterpriseDslContext());
+                if (multiLineCommentStart && multiLineCommentEnd) {
+                    // do nothing
+                } else if (firstToken.startsWith(MULTI_LINE_COMMENT_START_TOKEN)) {
+                    startContext(new CommentDslContext());
 
-                    } else if (DEPLOYMENT_ENVIRONMENT_TOKEN.equalsIgnoreCase(firstToken) && inContext(ModelDslContext.class)) {
-                        String environment = new DeploymentEnvironmentParser().parse(tokens.withoutContextStartToken());
-                        startContext(new DeploymentEnvironmentDslContext(environment));
+                } else if (inContext(CommentDslContext.class) && multiLineCommentEnd) {
+                    endContext();
 
-                        if (identifier != null) {
-                            DeploymentEnvironment deploymentEnvironment = new DeploymentEnvironment(environment);
-                            elements.put(identifier, deploymentEnvironment);
-                        }
+                } else if (inContext(CommentDslContext.class)) {
+                    // do nothing
 
-                    } else if (DEPLOYMENT_GROUP_TOKEN.equalsIgnoreCase(firstToken) && inContext(DeploymentEnvironmentDslContext.class)) {
-                        String group = new DeploymentGroupParser().parse(tokens.withoutContextStartToken());
+                } else if (DslContext.CONTEXT_END_TOKEN.equals(tokens.get(0))) {
+                    endContext();
 
-                        if (identifier != null) {
-                            DeploymentGroup deploymentGroup = new DeploymentGroup(group);
-                            elements.put(identifier, deploymentGroup);
-                        }
+                } else {
+                    dslLine.reset(tokens, identifier, lineNumber, line);
+                    dispatch(dslLine);
+                    includeInDslSourceLines = dslLine.isIncludeInDslSourceLines();
+                }
+            }
 
-                    } else if (DEPLOYMENT_NODE_TOKEN.equalsIgnoreCase(firstToken) && (inContext(DeploymentEnvironmentDslContext.class) || inContext(DeploymentNodeDslContext.class))) {
-                        DeploymentNode deploymentNode = new DeploymentNodeParser().parse(getContext(), tokens.withoutContextStartToken());
+            if (includeInDslSourceLines && !resolvingDeferredRelationships) {
+                dslSource.append(line);
+                dslSource.append(System.lineSeparator());
+            }
+        } catch (Exception e) {
+            throw new StructurizrDslParserException(e.getMessage(), lineNumber, line);
+        }
+    }
 
-                        if (shouldStartContext(tokens)) {
-                            startContext(new DeploymentNodeDslContext(deploymentNode));
-                        }
+    private void dispatch(DslLine line) throws Exception {
+        DslContext context = getContext();
+        Class<?> contextType = context == null ? null : context.getClass();
 
-                        if (identifier != null) {
-                            elements.put(identifier, deploymentNode);
-                        }
-                    } else if (INFRASTRUCTURE_NODE_TOKEN.equalsIgnoreCase(firstToken) && inContext(DeploymentNodeDslContext.class)) {
-                        InfrastructureNode infrastructureNode = new InfrastructureNodeParser().parse(getContext(DeploymentNodeDslContext.class), tokens.withoutContextStartToken());
+        for (StructurizrDslDispatcher.Rule rule : dispatcher.getRules(contextType, line.getTokens().get(0))) {
+            if (rule.accepts(line)) {
+                rule.handle(line);
+                return;
+            }
+        }
 
-                        if (shouldStartContext(tokens)) {
-                            startContext(new InfrastructureNodeDslContext(infrastructureNode));
-                        }
+        throw new StructurizrDslParserException("Unexpected tokens");
+    }
 
-                        if (identifier != null) {
-                            elements.put(identifier, infrastructureNode);
-                        }
+    private void registerHandlers() {
+        final Class<?>[] modelItemContexts = in(CustomElementDslContext.class, PersonDslContext.class, SoftwareSystemDslContext.class, ContainerDslContext.class, ComponentDslContext.class, DeploymentNodeDslContext.class, InfrastructureNodeDslContext.class, SoftwareSystemInstanceDslContext.class, ContainerInstanceDslContext.class);
+        final Class<?>[] explicitRelationshipContexts = in(ModelDslContext.class, EnterpriseDslContext.class, CustomElementDslContext.class, PersonDslContext.class, SoftwareSystemDslContext.class, ContainerDslContext.class, ComponentDslContext.class, DeploymentEnvironmentDslContext.class, DeploymentNodeDslContext.class, InfrastructureNodeDslContext.class, SoftwareSystemInstanceDslContext.class, ContainerInstanceDslContext.class);
 
-                    } else if (SOFTWARE_SYSTEM_INSTANCE_TOKEN.equalsIgnoreCase(firstToken) && inContext(DeploymentNodeDslContext.class)) {
-                        SoftwareSystemInstance softwareSystemInstance = new SoftwareSystemInstanceParser().parse(getContext(DeploymentNodeDslContext.class), tokens.withoutContextStartToken());
+        dispatcher.register(null, explicitRelationshipContexts, line -> line.getTokens().size() > 2 && RELATIONSHIP_TOKEN.equals(line.getTokens().get(1)), line -> {
+            Relationship relationship = explicitRelationshipParser.parse(getContext(), line.getTokens().withoutContextStartToken());
 
-                        if (shouldStartContext(tokens)) {
-                            startContext(new SoftwareSystemInstanceDslContext(softwareSystemInstance));
-                        }
+            if (shouldStartContext(line.getTokens())) {
+                startContext(new RelationshipDslContext(relationship));
+            }
 
-                        if (identifier != null) {
-                            elements.put(identifier, softwareSystemInstance);
-                        }
+            registerIdentifier(line, relationship);
+        });
 
-                    } else if (CONTAINER_INSTANCE_TOKEN.equalsIgnoreCase(firstToken) && inContext(DeploymentNodeDslContext.class)) {
-                        ContainerInstance containerInstance = new ContainerInstanceParser().parse(getContext(DeploymentNodeDslContext.class), tokens.withoutContextStartToken());
+        dispatcher.register(RELATIONSHIP_TOKEN, modelItemContexts, line -> line.getTokens().size() >= 2, line -> {
+            Relationship relationship = implicitRelationshipParser.parse(getContext(ModelItemDslContext.class), line.getTokens().withoutContextStartToken());
 
-                        if (shouldStartContext(tokens)) {
-                            startContext(new ContainerInstanceDslContext(containerInstance));
-                        }
+            if (shouldStartContext(line.getTokens())) {
+                startContext(new RelationshipDslContext(relationship));
+            }
 
-                        if (identifier != null) {
-                            elements.put(identifier, containerInstance);
-                        }
+            registerIdentifier(line, relationship);
+        });
 
-                    } else if (HEALTH_CHECK_TOKEN.equalsIgnoreCase(firstToken) && inContext(StaticStructureElementInstanceDslContext.class)) {
-                        new HealthCheckParser().parse(getContext(StaticStructureElementInstanceDslContext.class), tokens.withoutContextStartToken());
-                    } else if (CUSTOM_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(ViewsDslContext.class)) {
-                        CustomView view = new CustomViewParser().parse(getContext(), tokens.withoutContextStartToken());
-                        startContext(new CustomViewDslContext(view));
+        dispatcher.register(CUSTOM_ELEMENT_TOKEN, in(ModelDslContext.class), line -> {
+            CustomElement customElement = customElementParser.parse(getContext(GroupableDslContext.class), line.getTokens().withoutContextStartToken());
 
-                    } else if (SYSTEM_LANDSCAPE_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(ViewsDslContext.class)) {
-                        SystemLandscapeView view = new SystemLandscapeViewParser().parse(getContext(), tokens.withoutContextStartToken());
-                        startContext(new SystemLandscapeViewDslContext(view));
+            if (shouldStartContext(line.getTokens())) {
+                startContext(new CustomElementDslContext(customElement));
+            }
 
-                    } else if (SYSTEM_CONTEXT_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(ViewsDslContext.class)) {
-                        SystemContextView view = new SystemContextViewParser().parse(getContext(), tokens.withoutContextStartToken());
-                        startContext(new SystemContextViewDslContext(view));
+            registerIdentifier(line, customElement);
+        });
 
-                    } else if (CONTAINER_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(ViewsDslContext.class)) {
-                        ContainerView view = new ContainerViewParser().parse(getContext(), tokens.withoutContextStartToken());
-                        startContext(new ContainerViewDslContext(view));
+        dispatcher.register(PERSON_TOKEN, in(ModelDslContext.class, EnterpriseDslContext.class), line -> {
+            Person person = personParser.parse(getContext(GroupableDslContext.class), line.getTokens().withoutContextStartToken());
 
-                    } else if (COMPONENT_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(ViewsDslContext.class)) {
-                        ComponentView view = new ComponentViewParser().parse(getContext(), tokens.withoutContextStartToken());
-                        startContext(new ComponentViewDslContext(view));
+            if (shouldStartContext(line.getTokens())) {
+                startContext(new PersonDslContext(person));
+            }
 
-                    } else if (DYNAMIC_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(ViewsDslContext.class)) {
-                        DynamicView view = new DynamicViewParser().parse(getContext(), tokens.withoutContextStartToken());
-                        startContext(new DynamicViewDslContext(view));
+            registerIdentifier(line, person);
+        });
 
-                    } else if (DEPLOYMENT_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(ViewsDslContext.class)) {
-                        DeploymentView view = new DeploymentViewParser().parse(getContext(), tokens.withoutContextStartToken());
-                        startContext(new DeploymentViewDslContext(view));
+        dispatcher.register(SOFTWARE_SYSTEM_TOKEN, in(ModelDslContext.class, EnterpriseDslContext.class), line -> {
+            SoftwareSystem softwareSystem = softwareSystemParser.parse(getContext(GroupableDslContext.class), line.getTokens().withoutContextStartToken());
 
-                    } else if (FILTERED_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(ViewsDslContext.class)) {
-                        new FilteredViewParser().parse(getContext(), tokens);
+            if (shouldStartContext(line.getTokens())) {
+                startContext(new SoftwareSystemDslContext(softwareSystem));
+            }
 
-                    } else if (tokens.size() > 2 && RELATIONSHIP_TOKEN.equals(tokens.get(1)) && inContext(DynamicViewDslContext.class)) {
-                        new DynamicViewContentParser().parseRelationship(getContext(DynamicViewDslContext.class), tokens);
+            registerIdentifier(line, softwareSystem);
+        });
 
-                    } else if (INCLUDE_IN_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(CustomViewDslContext.class)) {
-                        new CustomViewContentParser().parseInclude(getContext(CustomViewDslContext.class), tokens);
+        dispatcher.register(CONTAINER_TOKEN, in(SoftwareSystemDslContext.class), line -> {
+            Container container = containerParser.parse(getContext(SoftwareSystemDslContext.class), line.getTokens().withoutContextStartToken());
 
-                    } else if (EXCLUDE_IN_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(CustomViewDslContext.class)) {
-                        new CustomViewContentParser().parseExclude(getContext(CustomViewDslContext.class), tokens);
+            if (shouldStartContext(line.getTokens())) {
+                startContext(new ContainerDslContext(container));
+            }
 
-                    } else if (ANIMATION_STEP_IN_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(CustomViewDslContext.class)) {
-                        new CustomViewAnimationStepParser().parse(getContext(CustomViewDslContext.class), tokens);
+            registerIdentifier(line, container);
+        });
 
-                    } else if (ANIMATION_IN_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(CustomViewDslContext.class)) {
-                        startContext(new CustomViewAnimationDslContext(getContext(CustomViewDslContext.class).getCustomView()));
+        dispatcher.register(COMPONENT_TOKEN, in(ContainerDslContext.class), line -> {
+            Component component = componentParser.parse(getContext(ContainerDslContext.class), line.getTokens().withoutContextStartToken());
 
-                    } else if (inContext(CustomViewAnimationDslContext.class)) {
-                        new CustomViewAnimationStepParser().parse(getContext(CustomViewAnimationDslContext.class), tokens);
+            if (shouldStartContext(line.getTokens())) {
+                startContext(new ComponentDslContext(component));
+            }
 
-                    } else if (AUTOLAYOUT_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(CustomViewDslContext.class)) {
-                        new AutoLayoutParser().parse(getContext(CustomViewDslContext.class), tokens);
+            registerIdentifier(line, component);
+        });
 
-                    } else if (INCLUDE_IN_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(StaticViewDslContext.class)) {
-                        new StaticViewContentParser().parseInclude(getContext(StaticViewDslContext.class), tokens);
+        dispatcher.register(GROUP_TOKEN, in(ModelDslContext.class), line -> !getContext(ModelDslContext.class).hasGroup(), line -> {
+            String group = groupParser.parse(line.getTokens().withoutContextStartToken());
 
-                    } else if (EXCLUDE_IN_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(StaticViewDslContext.class)) {
-                        new StaticViewContentParser().parseExclude(getContext(StaticViewDslContext.class), tokens);
+            startContext(new ModelDslContext(group));
+        });
 
-                    } else if (ANIMATION_STEP_IN_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(StaticViewDslContext.class)) {
-                        new StaticViewAnimationStepParser().parse(getContext(StaticViewDslContext.class), tokens);
+        dispatcher.register(GROUP_TOKEN, in(EnterpriseDslContext.class), line -> !getContext(EnterpriseDslContext.class).hasGroup(), line -> {
+            String group = groupParser.parse(line.getTokens().withoutContextStartToken());
 
-                    } else if (ANIMATION_IN_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(StaticViewDslContext.class)) {
-                        startContext(new StaticViewAnimationDslContext(getContext(StaticViewDslContext.class).getView()));
+            startContext(new EnterpriseDslContext(group));
+        });
 
-                    } else if (inContext(StaticViewAnimationDslContext.class)) {
-                        new StaticViewAnimationStepParser().parse(getContext(StaticViewAnimationDslContext.class), tokens);
+        dispatcher.register(GROUP_TOKEN, in(SoftwareSystemDslContext.class), line -> !getContext(SoftwareSystemDslContext.class).hasGroup(), line -> {
+            String group = groupParser.parse(line.getTokens().withoutContextStartToken());
 
-                    } else if (INCLUDE_IN_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(DeploymentViewDslContext.class)) {
-                        new DeploymentViewContentParser().parseInclude(getContext(DeploymentViewDslContext.class), tokens);
+            SoftwareSystem softwareSystem = getContext(SoftwareSystemDslContext.class).getSoftwareSystem();
+            startContext(new SoftwareSystemDslContext(softwareSystem, group));
+        });
 
-                    } else if (EXCLUDE_IN_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(DeploymentViewDslContext.class)) {
-                        new DeploymentViewContentParser().parseExclude(getContext(DeploymentViewDslContext.class), tokens);
+        dispatcher.register(GROUP_TOKEN, in(ContainerDslContext.class), line -> !getContext(ContainerDslContext.class).hasGroup(), line -> {
+            String group = groupParser.parse(line.getTokens().withoutContextStartToken());
 
-                    } else if (ANIMATION_STEP_IN_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(DeploymentViewDslContext.class)) {
-                        new DeploymentViewAnimationStepParser().parse(getContext(DeploymentViewDslContext.class), tokens);
+            Container container = getContext(ContainerDslContext.class).getContainer();
+            startContext(new ContainerDslContext(container, group));
+        });
 
-                    } else if (ANIMATION_IN_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(DeploymentViewDslContext.class)) {
-                        startContext(new DeploymentViewAnimationDslContext(getContext(DeploymentViewDslContext.class).getView()));
+        dispatcher.register(URL_TOKEN, in(ModelItemDslContext.class), line -> modelItemParser.parseUrl(getContext(ModelItemDslContext.class), line.getTokens()));
 
-                    } else if (inContext(DeploymentViewAnimationDslContext.class)) {
-                        new DeploymentViewAnimationStepParser().parse(getContext(DeploymentViewAnimationDslContext.class), tokens);
+        dispatcher.register(PROPERTIES_TOKEN, in(ModelItemDslContext.class), line -> startContext(new ModelItemPropertiesDslContext(getContext(ModelItemDslContext.class).getModelItem())));
 
-                    } else if (AUTOLAYOUT_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(StaticViewDslContext.class)) {
-                        new AutoLayoutParser().parse(getContext(StaticViewDslContext.class), tokens);
+        dispatcher.register(null, in(ModelItemPropertiesDslContext.class), line -> modelItemParser.parseProperty(getContext(ModelItemPropertiesDslContext.class), line.getTokens()));
 
-                    } else if (AUTOLAYOUT_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(DynamicViewDslContext.class)) {
-                        new AutoLayoutParser().parse(getContext(DynamicViewDslContext.class), tokens);
+        dispatcher.register(PERSPECTIVES_TOKEN, in(ModelItemDslContext.class), line -> startContext(new ModelItemPerspectivesDslContext(getContext(ModelItemDslContext.class).getModelItem())));
 
-                    } else if (AUTOLAYOUT_VIEW_TOKEN.equalsIgnoreCase(firstToken) && inContext(DeploymentViewDslContext.class)) {
-                        new AutoLayoutParser().parse(getContext(DeploymentViewDslContext.class), tokens);
+        dispatcher.register(null, in(ModelItemPerspectivesDslContext.class), line -> modelItemParser.parsePerspective(getContext(ModelItemPerspectivesDslContext.class), line.getTokens()));
 
-                    } else if (VIEW_TITLE_TOKEN.equalsIgnoreCase(firstToken) && inContext(StaticViewDslContext.class)) {
-                        new ViewParser().parseTitle(getContext(StaticViewDslContext.class), tokens);
+        dispatcher.register(WORKSPACE_TOKEN, NO_CONTEXT, line -> {
+            workspaceParser.parse(workspace, line.getTokens().withoutContextStartToken());
+            startContext(new WorkspaceDslContext());
+        });
 
-                    } else if (VIEW_TITLE_TOKEN.equalsIgnoreCase(firstToken) && inContext(DynamicViewDslContext.class)) {
-                        new ViewParser().parseTitle(getContext(DynamicViewDslContext.class), tokens);
+        dispatcher.register(IMPLIED_RELATIONSHIPS_TOKEN, in(ModelDslContext.class), line -> impliedRelationshipsParser.parse(getContext(), line.getTokens()));
 
-                    } else if (VIEW_TITLE_TOKEN.equalsIgnoreCase(firstToken) && inContext(DeploymentViewDslContext.class)) {
-                        new ViewParser().parseTitle(getContext(DeploymentViewDslContext.class), tokens);
+        dispatcher.register(MODEL_TOKEN, in(WorkspaceDslContext.class), line -> {
+            if (deferImpliedRelationships && workspace.getModel().getImpliedRelationshipsStrategy() instanceof CreateImpliedRelationshipsUnlessAnyRelationshipExistsStrategy) {
+                workspace.getModel().setImpliedRelationshipsStrategy(new DeferredImpliedRelationshipsStrategy());
+            }
 
-                    } else if (THEMES_TOKEN.equalsIgnoreCase(firstToken) && inContext(ViewsDslContext.class)) {
-                        new ThemesParser().parse(getContext(), tokens);
+            startContext(new ModelDslContext());
+        });
 
-                    } else if (TERMINOLOGY_TOKEN.equalsIgnoreCase(firstToken) && inContext(ViewsDslContext.class)) {
-                        startContext(new TerminologyDslContext());
+        dispatcher.register(VIEWS_TOKEN, in(WorkspaceDslContext.class), line -> startContext(new ViewsDslContext()));
 
-                    } else if (ENTERPRISE_TOKEN.equalsIgnoreCase(firstToken) && inContext(TerminologyDslContext.class)) {
-                        new TerminologyParser().parseEnterprise(getContext(), tokens);
+        dispatcher.register(BRANDING_TOKEN, in(ViewsDslContext.class), line -> startContext(new BrandingDslContext(line.getFile())));
 
-                    } else if (PERSON_TOKEN.equalsIgnoreCase(firstToken) && inContext(TerminologyDslContext.class)) {
-                        new TerminologyParser().parsePerson(getContext(), tokens);
+        dispatcher.register(BRANDING_LOGO_TOKEN, in(BrandingDslContext.class), line -> {
+            if (!restricted) {
+                BrandingDslContext context = getContext(BrandingDslContext.class);
+                brandingParser.parseLogo(context, line.getTokens());
+                recordParseDependency(new File(context.getFile().getParentFile(), line.getTokens().get(1)));
+            }
+        });
+
+        dispatcher.register(BRANDING_FONT_TOKEN, in(BrandingDslContext.class), line -> brandingParser.parseFont(getContext(BrandingDslContext.class), line.getTokens()));
+
+        dispatcher.register(STYLES_TOKEN, in(ViewsDslContext.class), line -> startContext(new StylesDslContext()));
+
+        dispatcher.register(ELEMENT_STYLE_TOKEN, in(StylesDslContext.class), line -> {
+            ElementStyle elementStyle = elementStyleParser.parseElementStyle(getContext(), line.getTokens().withoutContextStartToken());
+            startContext(new ElementStyleDslContext(elementStyle, line.getFile()));
+        });
+
+        dispatcher.register(ELEMENT_STYLE_BACKGROUND_TOKEN, in(ElementStyleDslContext.class), line -> elementStyleParser.parseBackground(getContext(ElementStyleDslContext.class), line.getTokens()));
+        dispatcher.register(ELEMENT_STYLE_COLOUR_TOKEN, in(ElementStyleDslContext.class), line -> elementStyleParser.parseColour(getContext(ElementStyleDslContext.class), line.getTokens()));
+        dispatcher.register(ELEMENT_STYLE_COLOR_TOKEN, in(ElementStyleDslContext.class), line -> elementStyleParser.parseColour(getContext(ElementStyleDslContext.class), line.getTokens()));
+        dispatcher.register(ELEMENT_STYLE_STROKE_TOKEN, in(ElementStyleDslContext.class), line -> elementStyleParser.parseStroke(getContext(ElementStyleDslContext.class), line.getTokens()));
+        dispatcher.register(ELEMENT_STYLE_SHAPE_TOKEN, in(ElementStyleDslContext.class), line -> elementStyleParser.parseShape(getContext(ElementStyleDslContext.class), line.getTokens()));
+        dispatcher.register(ELEMENT_STYLE_BORDER_TOKEN, in(ElementStyleDslContext.class), line -> elementStyleParser.parseBorder(getContext(ElementStyleDslContext.class), line.getTokens()));
+        dispatcher.register(ELEMENT_STYLE_OPACITY_TOKEN, in(ElementStyleDslContext.class), line -> elementStyleParser.parseOpacity(getContext(ElementStyleDslContext.class), line.getTokens()));
+        dispatcher.register(ELEMENT_STYLE_WIDTH_TOKEN, in(ElementStyleDslContext.class), line -> elementStyleParser.parseWidth(getContext(ElementStyleDslContext.class), line.getTokens()));
+        dispatcher.register(ELEMENT_STYLE_HEIGHT_TOKEN, in(ElementStyleDslContext.class), line -> elementStyleParser.parseHeight(getContext(ElementStyleDslContext.class), line.getTokens()));
+        dispatcher.register(ELEMENT_STYLE_FONT_SIZE_TOKEN, in(ElementStyleDslContext.class), line -> elementStyleParser.parseFontSize(getContext(ElementStyleDslContext.class), line.getTokens()));
+        dispatcher.register(ELEMENT_STYLE_METADATA_TOKEN, in(ElementStyleDslContext.class), line -> elementStyleParser.parseMetadata(getContext(ElementStyleDslContext.class), line.getTokens()));
+        dispatcher.register(ELEMENT_STYLE_DESCRIPTION_TOKEN, in(ElementStyleDslContext.class), line -> elementStyleParser.parseDescription(getContext(ElementStyleDslContext.class), line.getTokens()));
+        dispatcher.register(ELEMENT_STYLE_ICON_TOKEN, in(ElementStyleDslContext.class), line -> {
+            if (!restricted) {
+                ElementStyleDslContext context = getContext(ElementStyleDslContext.class);
+                elementStyleParser.parseIcon(context, line.getTokens());
+                recordParseDependency(new File(context.getFile().getParentFile(), line.getTokens().get(1)));
+            }
+        });
+
+        dispatcher.register(RELATIONSHIP_STYLE_TOKEN, in(StylesDslContext.class), line -> {
+            RelationshipStyle relationshipStyle = relationshipStyleParser.parseRelationshipStyle(getContext(), line.getTokens().withoutContextStartToken());
+            startContext(new RelationshipStyleDslContext(relationshipStyle));
+        });
+
+        dispatcher.register(RELATIONSHIP_STYLE_THICKNESS_TOKEN, in(RelationshipStyleDslContext.class), line -> relationshipStyleParser.parseThickness(getContext(RelationshipStyleDslContext.class), line.getTokens()));
+        dispatcher.register(RELATIONSHIP_STYLE_COLOUR_TOKEN, in(RelationshipStyleDslContext.class), line -> relationshipStyleParser.parseColour(getContext(RelationshipStyleDslContext.class), line.getTokens()));
+        dispatcher.register(RELATIONSHIP_STYLE_COLOR_TOKEN, in(RelationshipStyleDslContext.class), line -> relationshipStyleParser.parseColour(getContext(RelationshipStyleDslContext.class), line.getTokens()));
+        dispatcher.register(RELATIONSHIP_STYLE_DASHED_TOKEN, in(RelationshipStyleDslContext.class), line -> relationshipStyleParser.parseDashed(getContext(RelationshipStyleDslContext.class), line.getTokens()));
+        dispatcher.register(RELATIONSHIP_STYLE_OPACITY_TOKEN, in(RelationshipStyleDslContext.class), line -> relationshipStyleParser.parseOpacity(getContext(RelationshipStyleDslContext.class), line.getTokens()));
+        dispatcher.register(RELATIONSHIP_STYLE_WIDTH_TOKEN, in(RelationshipStyleDslContext.class), line -> relationshipStyleParser.parseWidth(getContext(RelationshipStyleDslContext.class), line.getTokens()));
+        dispatcher.register(RELATIONSHIP_STYLE_FONT_SIZE_TOKEN, in(RelationshipStyleDslContext.class), line -> relationshipStyleParser.parseFontSize(getContext(RelationshipStyleDslContext.class), line.getTokens()));
+        dispatcher.register(RELATIONSHIP_STYLE_POSITION_TOKEN, in(RelationshipStyleDslContext.class), line -> relationshipStyleParser.parsePosition(getContext(RelationshipStyleDslContext.class), line.getTokens()));
+        dispatcher.register(RELATIONSHIP_STYLE_ROUTING_TOKEN, in(RelationshipStyleDslContext.class), line -> relationshipStyleParser.parseRouting(getContext(RelationshipStyleDslContext.class), line.getTokens()));
+
+        dispatcher.register(ENTERPRISE_TOKEN, in(ModelDslContext.class), line -> {
+            enterpriseParser.parse(getContext(), line.getTokens().withoutContextStartToken());
+            startContext(new EnterpriseDslContext());
+        });
+
+        dispatcher.register(DEPLOYMENT_ENVIRONMENT_TOKEN, in(ModelDslContext.class), line -> {
+            String environment = deploymentEnvironmentParser.parse(line.getTokens().withoutContextStartToken());
+            startContext(new DeploymentEnvironmentDslContext(environment));
+
+            if (line.getIdentifier() != null) {
+                DeploymentEnvironment deploymentEnvironment = new DeploymentEnvironment(environment);
+                identifiers.register(line.getIdentifier(), deploymentEnvironment);
+            }
+        });
 
-                    } else if (SOFTWARE_SYSTEM_TOKEN.equalsIgnoreCase(firstToken) && inContext(TerminologyDslContext.class)) {
-                        new TerminologyParser().parseSoftwareSystem(getContext(), tokens);
+        dispatcher.register(DEPLOYMENT_GROUP_TOKEN, in(DeploymentEnvironmentDslContext.class), line -> {
+            String group = deploymentGroupParser.parse(line.getTokens().withoutContextStartToken());
 
-                    } else if (CONTAINER_TOKEN.equalsIgnoreCase(firstToken) && inContext(TerminologyDslContext.class)) {
-                        new TerminologyParser().parseContainer(getContext(), tokens);
+            if (line.getIdentifier() != null) {
+                DeploymentGroup deploymentGroup = new DeploymentGroup(group, getContext(DeploymentEnvironmentDslContext.class).getEnvironment());
+                identifiers.register(line.getIdentifier(), deploymentGroup);
+            }
+        });
 
-                    } else if (COMPONENT_TOKEN.equalsIgnoreCase(firstToken) && inContext(TerminologyDslContext.class)) {
-                        new TerminologyParser().parseComponent(getContext(), tokens);
+        dispatcher.register(DEPLOYMENT_NODE_TOKEN, in(DeploymentEnvironmentDslContext.class, DeploymentNodeDslContext.class), line -> {
+            DeploymentNode deploymentNode = deploymentNodeParser.parse(getContext(), line.getTokens().withoutContextStartToken());
+            workspaceIndex.addDeploymentEnvironment(deploymentNode.getEnvironment());
 
-                    } else if (DEPLOYMENT_NODE_TOKEN.equalsIgnoreCase(firstToken) && inContext(TerminologyDslContext.class)) {
-                        new TerminologyParser().parseDeploymentNode(getContext(), tokens);
+            if (shouldStartContext(line.getTokens())) {
+                startContext(new DeploymentNodeDslContext(deploymentNode));
+            }
 
-                    } else if (INFRASTRUCTURE_NODE_TOKEN.equalsIgnoreCase(firstToken) && inContext(TerminologyDslContext.class)) {
-                        new TerminologyParser().parseInfrastructureNode(getContext(), tokens);
+            registerIdentifier(line, deploymentNode);
+        });
 
-                    } else if (TERMINOLOGY_RELATIONSHIP_TOKEN.equalsIgnoreCase(firstToken) && inContext(TerminologyDslContext.class)) {
-                        new TerminologyParser().parseRelationship(getContext(), tokens);
+        dispatcher.register(INFRASTRUCTURE_NODE_TOKEN, in(DeploymentNodeDslContext.class), line -> {
+            InfrastructureNode infrastructureNode = infrastructureNodeParser.parse(getContext(DeploymentNodeDslContext.class), line.getTokens().withoutContextStartToken());
 
-                    } else if (CONFIGURATION_TOKEN.equalsIgnoreCase(firstToken) && inContext(WorkspaceDslContext.class)) {
-                        startContext(new ConfigurationDslContext());
+            if (shouldStartContext(line.getTokens())) {
+                startContext(new InfrastructureNodeDslContext(infrastructureNode));
+            }
 
-                    } else if (USERS_TOKEN.equalsIgnoreCase(firstToken) && inContext(ConfigurationDslContext.class)) {
-                        startContext(new UsersDslContext());
+            registerIdentifier(line, infrastructureNode);
+        });
 
-                    } else if (inContext(UsersDslContext.class)) {
-                        new UserRoleParser().parse(getContext(), tokens);
+        dispatcher.register(SOFTWARE_SYSTEM_INSTANCE_TOKEN, in(DeploymentNodeDslContext.class), line -> {
+            createDeferredImpliedRelationships();
+            SoftwareSystemInstance softwareSystemInstance = softwareSystemInstanceParser.parse(getContext(DeploymentNodeDslContext.class), line.getTokens().withoutContextStartToken());
 
-                    } else if (INCLUDE_FILE_TOKEN.equalsIgnoreCase(firstToken)) {
-                        if (!restricted) {
-                            IncludedDslContext context = new IncludedDslContext(file);
-                            new IncludeParser().parse(context, tokens);
-                            parse(context.getLines(), context.getFile());
-                            includeInDslSourceLines = false;
-                        }
+            if (shouldStartContext(line.getTokens())) {
+                startContext(new SoftwareSystemInstanceDslContext(softwareSystemInstance));
+            }
 
-                    } else if (DOCS_TOKEN.equalsIgnoreCase(firstToken) && inContext(WorkspaceDslContext.class)) {
-                        if (!restricted) {
-                            new DocsParser().parse(getContext(WorkspaceDslContext.class), file, tokens);
-                        }
+            registerIdentifier(line, softwareSystemInstance);
+        });
 
-                    } else if (DOCS_TOKEN.equalsIgnoreCase(firstToken) && inContext(SoftwareSystemDslContext.class)) {
-                        if (!restricted) {
-                            new DocsParser().parse(getContext(SoftwareSystemDslContext.class), file, tokens);
-                        }
+        dispatcher.register(CONTAINER_INSTANCE_TOKEN, in(DeploymentNodeDslContext.class), line -> {
+            createDeferredImpliedRelationships();
+            ContainerInstance containerInstance = containerInstanceParser.parse(getContext(DeploymentNodeDslContext.class), line.getTokens().withoutContextStartToken());
 
-                    } else if (ADRS_TOKEN.equalsIgnoreCase(firstToken) && inContext(WorkspaceDslContext.class)) {
-                        if (!restricted) {
-                            new AdrsParser().parse(getContext(WorkspaceDslContext.class), file, tokens);
-                        }
+            if (shouldStartContext(line.getTokens())) {
+                startContext(new ContainerInstanceDslContext(containerInstance));
+            }
 
-                    } else if (ADRS_TOKEN.equalsIgnoreCase(firstToken) && inContext(SoftwareSystemDslContext.class)) {
-                        if (!restricted) {
-                            new AdrsParser().parse(getContext(SoftwareSystemDslContext.class), file, tokens);
-                        }
+            registerIdentifier(line, containerInstance);
+        });
+
+        dispatcher.register(HEALTH_CHECK_TOKEN, in(StaticStructureElementInstanceDslContext.class), line -> healthCheckParser.parse(getContext(StaticStructureElementInstanceDslContext.class), line.getTokens().withoutContextStartToken()));
+
+        dispatcher.register(CUSTOM_VIEW_TOKEN, in(ViewsDslContext.class), line -> {
+            CustomView view = customViewParser.parse(getContext(), line.getTokens().withoutContextStartToken());
+            startContext(new CustomViewDslContext(view));
+        });
+
+        dispatcher.register(SYSTEM_LANDSCAPE_VIEW_TOKEN, in(ViewsDslContext.class), line -> {
+            SystemLandscapeView view = systemLandscapeViewParser.parse(getContext(), line.getTokens().withoutContextStartToken());
+            workspaceIndex.addView(view);
+            startContext(new SystemLandscapeViewDslContext(view));
+        });
+
+        dispatcher.register(SYSTEM_CONTEXT_VIEW_TOKEN, in(ViewsDslContext.class), line -> {
+            SystemContextView view = systemContextViewParser.parse(getContext(), line.getTokens().withoutContextStartToken());
+            workspaceIndex.addView(view);
+            startContext(new SystemContextViewDslContext(view));
+        });
+
+        dispatcher.register(CONTAINER_VIEW_TOKEN, in(ViewsDslContext.class), line -> {
+            ContainerView view = containerViewParser.parse(getContext(), line.getTokens().withoutContextStartToken());
+            workspaceIndex.addView(view);
+            startContext(new ContainerViewDslContext(view));
+        });
+
+        dispatcher.register(COMPONENT_VIEW_TOKEN, in(ViewsDslContext.class), line -> {
+            ComponentView view = componentViewParser.parse(getContext(), line.getTokens().withoutContextStartToken());
+            workspaceIndex.addView(view);
+            startContext(new ComponentViewDslContext(view));
+        });
+
+        dispatcher.register(DYNAMIC_VIEW_TOKEN, in(ViewsDslContext.class), line -> {
+            DynamicView view = dynamicViewParser.parse(getContext(), line.getTokens().withoutContextStartToken());
+            workspaceIndex.addView(view);
+            startContext(new DynamicViewDslContext(view));
+        });
+
+        dispatcher.register(DEPLOYMENT_VIEW_TOKEN, in(ViewsDslContext.class), line -> {
+            DeploymentView view = deploymentViewParser.parse(getContext(), line.getTokens().withoutContextStartToken());
+            workspaceIndex.addView(view);
+            startContext(new DeploymentViewDslContext(view));
+        });
+
+        dispatcher.register(FILTERED_VIEW_TOKEN, in(ViewsDslContext.class), line -> filteredViewParser.parse(getContext(), line.getTokens()));
+
+        dispatcher.register(null, in(DynamicViewDslContext.class), line -> line.getTokens().size() > 2 && RELATIONSHIP_TOKEN.equals(line.getTokens().get(1)), line -> dynamicViewContentParser.parseRelationship(getContext(DynamicViewDslContext.class), line.getTokens()));
+
+        dispatcher.register(INCLUDE_IN_VIEW_TOKEN, in(CustomViewDslContext.class), line -> customViewContentParser.parseInclude(getContext(CustomViewDslContext.class), line.getTokens()));
+        dispatcher.register(EXCLUDE_IN_VIEW_TOKEN, in(CustomViewDslContext.class), line -> customViewContentParser.parseExclude(getContext(CustomViewDslContext.class), line.getTokens()));
+        dispatcher.register(ANIMATION_STEP_IN_VIEW_TOKEN, in(CustomViewDslContext.class), line -> customViewAnimationStepParser.parse(getContext(CustomViewDslContext.class), line.getTokens()));
+        dispatcher.register(ANIMATION_IN_VIEW_TOKEN, in(CustomViewDslContext.class), line -> startContext(new CustomViewAnimationDslContext(getContext(CustomViewDslContext.class).getCustomView())));
+        dispatcher.register(null, in(CustomViewAnimationDslContext.class), line -> customViewAnimationStepParser.parse(getContext(CustomViewAnimationDslContext.class), line.getTokens()));
+        dispatcher.register(AUTOLAYOUT_VIEW_TOKEN, in(CustomViewDslContext.class), line -> autoLayoutParser.parse(getContext(CustomViewDslContext.class), line.getTokens()));
+
+        dispatcher.register(INCLUDE_IN_VIEW_TOKEN, in(StaticViewDslContext.class), line -> parseViewStatement(line, StaticViewDslContext.class, staticViewContentParser::parseInclude));
+        dispatcher.register(EXCLUDE_IN_VIEW_TOKEN, in(StaticViewDslContext.class), line -> parseViewStatement(line, StaticViewDslContext.class, staticViewContentParser::parseExclude));
+        dispatcher.register(ANIMATION_STEP_IN_VIEW_TOKEN, in(StaticViewDslContext.class), line -> parseViewStatement(line, StaticViewDslContext.class, staticViewAnimationStepParser::parse));
+        dispatcher.register(ANIMATION_IN_VIEW_TOKEN, in(StaticViewDslContext.class), line -> startContext(new StaticViewAnimationDslContext(getContext(StaticViewDslContext.class).getView())));
+        dispatcher.register(null, in(StaticViewAnimationDslContext.class), line -> parseViewStatement(line, StaticViewAnimationDslContext.class, staticViewAnimationStepParser::parse));
+
+        dispatcher.register(INCLUDE_IN_VIEW_TOKEN, in(DeploymentViewDslContext.class), line -> parseViewStatement(line, DeploymentViewDslContext.class, deploymentViewContentParser::parseInclude));
+        dispatcher.register(EXCLUDE_IN_VIEW_TOKEN, in(DeploymentViewDslContext.class), line -> parseViewStatement(line, DeploymentViewDslContext.class, deploymentViewContentParser::parseExclude));
+        dispatcher.register(ANIMATION_STEP_IN_VIEW_TOKEN, in(DeploymentViewDslContext.class), line -> parseViewStatement(line, DeploymentViewDslContext.class, deploymentViewAnimationStepParser::parse));
+        dispatcher.register(ANIMATION_IN_VIEW_TOKEN, in(DeploymentViewDslContext.class), line -> startContext(new DeploymentViewAnimationDslContext(getContext(DeploymentViewDslContext.class).getView())));
+        dispatcher.register(null, in(DeploymentViewAnimationDslContext.class), line -> parseViewStatement(line, DeploymentViewAnimationDslContext.class, deploymentViewAnimationStepParser::parse));
+
+        dispatcher.register(AUTOLAYOUT_VIEW_TOKEN, in(StaticViewDslContext.class), line -> parseViewStatement(line, StaticViewDslContext.class, autoLayoutParser::parse));
+        dispatcher.register(AUTOLAYOUT_VIEW_TOKEN, in(DynamicViewDslContext.class), line -> autoLayoutParser.parse(getContext(DynamicViewDslContext.class), line.getTokens()));
+        dispatcher.register(AUTOLAYOUT_VIEW_TOKEN, in(DeploymentViewDslContext.class), line -> parseViewStatement(line, DeploymentViewDslContext.class, autoLayoutParser::parse));
+
+        dispatcher.register(VIEW_TITLE_TOKEN, in(StaticViewDslContext.class), line -> viewParser.parseTitle(getContext(StaticViewDslContext.class), line.getTokens()));
+        dispatcher.register(VIEW_TITLE_TOKEN, in(DynamicViewDslContext.class), line -> viewParser.parseTitle(getContext(DynamicViewDslContext.class), line.getTokens()));
+        dispatcher.register(VIEW_TITLE_TOKEN, in(DeploymentViewDslContext.class), line -> viewParser.parseTitle(getContext(DeploymentViewDslContext.class), line.getTokens()));
+
+        dispatcher.register(THEMES_TOKEN, in(ViewsDslContext.class), line -> themesParser.parse(getContext(), line.getTokens()));
+
+        dispatcher.register(TERMINOLOGY_TOKEN, in(ViewsDslContext.class), line -> startContext(new TerminologyDslContext()));
+        dispatcher.register(ENTERPRISE_TOKEN, in(TerminologyDslContext.class), line -> terminologyParser.parseEnterprise(getContext(), line.getTokens()));
+        dispatcher.register(PERSON_TOKEN, in(TerminologyDslContext.class), line -> terminologyParser.parsePerson(getContext(), line.getTokens()));
+        dispatcher.register(SOFTWARE_SYSTEM_TOKEN, in(TerminologyDslContext.class), line -> terminologyParser.parseSoftwareSystem(getContext(), line.getTokens()));
+        dispatcher.register(CONTAINER_TOKEN, in(TerminologyDslContext.class), line -> terminologyParser.parseContainer(getContext(), line.getTokens()));
+        dispatcher.register(COMPONENT_TOKEN, in(TerminologyDslContext.class), line -> terminologyParser.parseComponent(getContext(), line.getTokens()));
+        dispatcher.register(DEPLOYMENT_NODE_TOKEN, in(TerminologyDslContext.class), line -> terminologyParser.parseDeploymentNode(getContext(), line.getTokens()));
+        dispatcher.register(INFRASTRUCTURE_NODE_TOKEN, in(TerminologyDslContext.class), line -> terminologyParser.parseInfrastructureNode(getContext(), line.getTokens()));
+        dispatcher.register(TERMINOLOGY_RELATIONSHIP_TOKEN, in(TerminologyDslContext.class), line -> terminologyParser.parseRelationship(getContext(), line.getTokens()));
+
+        dispatcher.register(CONFIGURATION_TOKEN, in(WorkspaceDslContext.class), line -> startContext(new ConfigurationDslContext()));
+        dispatcher.register(USERS_TOKEN, in(ConfigurationDslContext.class), line -> startContext(new UsersDslContext()));
+        dispatcher.register(null, in(UsersDslContext.class), line -> userRoleParser.parse(getContext(), line.getTokens()));
+
+        dispatcher.register(INCLUDE_FILE_TOKEN, ANY_CONTEXT, line -> {
+            if (!restricted) {
+                IncludedDslContext context = new IncludedDslContext(line.getFile());
+                includeParser.parse(context, line.getTokens());
+                recordParseDependency(context.getFile());
+                parseFile(context.getFile());
+                line.setIncludeInDslSourceLines(false);
+            }
+        });
 
-                    } else if (CONSTANT_TOKEN.equalsIgnoreCase(firstToken)) {
-                        Constant constant = new ConstantParser().parse(getContext(), tokens);
-                        constants.put(constant.getName(), constant);
+        dispatcher.register(DOCS_TOKEN, in(WorkspaceDslContext.class), line -> {
+            if (!restricted) {
+                docsParser.parse(getContext(WorkspaceDslContext.class), line.getFile(), line.getTokens());
+                recordParseDependency(new File(line.getFile().getParentFile(), line.getTokens().get(1)));
+            }
+        });
 
-                    } else {
-                        throw new StructurizrDslParserException("Unexpected tokens");
-                    }
-                }
+        dispatcher.register(DOCS_TOKEN, in(SoftwareSystemDslContext.class), line -> {
+            if (!restricted) {
+                docsParser.parse(getContext(SoftwareSystemDslContext.class), line.getFile(), line.getTokens());
+                recordParseDependency(new File(line.getFile().getParentFile(), line.getTokens().get(1)));
+            }
+        });
 
-                if (includeInDslSourceLines) {
-                    dslSourceLines.add(line);
-                }
+        dispatcher.register(ADRS_TOKEN, in(WorkspaceDslContext.class), line -> {
+            if (!restricted) {
+                adrsParser.parse(getContext(WorkspaceDslContext.class), line.getFile(), line.getTokens());
+                recordParseDependency(new File(line.getFile().getParentFile(), line.getTokens().get(1)));
+            }
+        });
 
-                lineNumber++;
-            } catch (Exception e) {
-                throw new StructurizrDslParserException(e.getMessage(), lineNumber, line);
+        dispatcher.register(ADRS_TOKEN, in(SoftwareSystemDslContext.class), line -> {
+            if (!restricted) {
+                adrsParser.parse(getContext(SoftwareSystemDslContext.class), line.getFile(), line.getTokens());
+                recordParseDependency(new File(line.getFile().getParentFile(), line.getTokens().get(1)));
             }
+        });
+
+        dispatcher.register(CONSTANT_TOKEN, ANY_CONTEXT, line -> {
+            Constant constant = constantParser.parse(getContext(), line.getTokens());
+            constants.put(constant.getName(), constant);
+        });
+    }
+
+    private void createDeferredImpliedRelationships() {
+        // instances replicate the relationships of the elements they are instances of, including implied relationships
+        if (workspace.getModel().getImpliedRelationshipsStrategy() instanceof DeferredImpliedRelationshipsStrategy) {
+            ((DeferredImpliedRelationshipsStrategy)workspace.getModel().getImpliedRelationshipsStrategy()).createPendingImpliedRelationships();
+        }
+    }
+
+    private void registerIdentifier(DslLine line, Element element) {
+        if (line.getIdentifier() != null) {
+            identifiers.register(line.getIdentifier(), element);
+        }
+    }
+
+    private void registerIdentifier(DslLine line, Relationship relationship) {
+        if (line.getIdentifier() != null) {
+            identifiers.register(line.getIdentifier(), relationship);
         }
     }
 
     private String substituteStrings(String token) {
-        Matcher m = STRING_SUBSTITUTION_PATTERN.matcher(token);
-        while (m.find()) {
-            String before = m.group(0);
-            String after = null;
-            String name = before.substring(2, before.length()-1);
-            if (constants.containsKey(name)) {
-                after = constants.get(name).getValue();
-            } else {
-                if (!restricted) {
-                    String environmentVariable = System.getenv().get(name);
-                    if (environmentVariable != null) {
-                        after = environmentVariable;
-                    }
+        // ${name}, where name is one or more of a-zA-Z0-9-_.
+        int start = token.indexOf(STRING_SUBSTITUTION_START);
+        if (start == -1) {
+            return token;
+        }
+
+        StringBuilder buf = null;
+        int copiedUpTo = 0;
+        while (start != -1) {
+            int nameStart = start + STRING_SUBSTITUTION_START.length();
+            int nameEnd = nameStart;
+            while (nameEnd < token.length() && isSubstitutionNameCharacter(token.charAt(nameEnd))) {
+                nameEnd++;
+            }
+
+            if (nameEnd == nameStart || nameEnd == token.length() || token.charAt(nameEnd) != STRING_SUBSTITUTION_END) {
+                start = token.indexOf(STRING_SUBSTITUTION_START, start + 1);
+                continue;
+            }
+
+            String value = getSubstitutionValue(token.substring(nameStart, nameEnd));
+            if (value != null) {
+                if (buf == null) {
+                    buf = new StringBuilder(token.length() + value.length());
                 }
+                buf.append(token, copiedUpTo, start);
+                buf.append(value);
+                copiedUpTo = nameEnd + 1;
             }
 
-            if (after != null) {
-                token = token.replace(before, after);
+            start = token.indexOf(STRING_SUBSTITUTION_START, nameEnd + 1);
+        }
+
+        if (buf == null) {
+            return token;
+        }
+
+        buf.append(token, copiedUpTo, token.length());
+        return buf.toString();
+    }
+
+    private String getSubstitutionValue(String name) {
+        // constant values are substituted when they are defined, so chained constants are only resolved once
+        Constant constant = constants.get(name);
+        if (constant != null) {
+            return constant.getValue();
+        }
+
+        if (!restricted) {
+            if (environment == null) {
+                environment = System.getenv();
             }
+
+            String value = environment.get(name);
+            if (parseDependencies != null) {
+                parseDependencies.addEnvironmentVariable(name, value);
+            }
+
+            return value;
         }
 
-        return token;
+        return null;
+    }
+
+    private static boolean isSubstitutionNameCharacter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '.';
     }
 
     private boolean shouldStartContext(Tokens tokens) {
@@ -668,9 +1309,14 @@ public final class StructurizrDslParser extends StructurizrDslTokens {
 
     private void startContext(DslContext context) {
         context.setWorkspace(workspace);
-        context.setElements(elements);
-        context.setRelationships(relationships);
+        context.setIdentifiersRegister(identifiers);
+        context.setModelIndex(modelIndex);
+        context.setWorkspaceIndex(workspaceIndex);
         contextStack.push(context);
+
+        if (parallelViewResolution && (context instanceof StaticViewDslContext || context instanceof DeploymentViewDslContext)) {
+            viewStatements = new ArrayList<>();
+        }
     }
 
     private DslContext getContext() {
@@ -693,13 +1339,17 @@ public final class StructurizrDslParser extends StructurizrDslTokens {
         if (!contextStack.empty()) {
             DslContext context = contextStack.pop();
             context.end();
+
+            if (viewStatements != null && (context instanceof StaticViewDslContext || context instanceof DeploymentViewDslContext)) {
+                submitViewStatements();
+            }
         } else {
             throw new RuntimeException("Unexpected end of context");
         }
     }
 
     private void validateIdentifier(String identifier) {
-        if (elements.containsKey(identifier) || relationships.containsKey(identifier)) {
+        if (identifiers.isRegistered(identifier)) {
             throw new RuntimeException("The identifier \"" + identifier + "\" is already in use");
         }
 
@@ -0,0 +1,815 @@
+package com.structurizr.dsl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static com.structurizr.dsl.StructurizrDslTokens.INCLUDE_FILE_TOKEN;
+
+/**
+ * A syntax tree of some Structurizr DSL, consisting of one node per line, with the lines inside a { ... } block as
+ * the children of the line that opens it. Files referenced by !include are expanded in place, after the node for
+ * the !include line. Every line is kept as written (including comments and blank lines), along with its position.
+ *
+ * A syntax tree doesn't depend on the workspace, so it can be inspected by tooling, or used to populate any number
+ * of workspaces via StructurizrDslParser.parse(StructurizrDslSyntaxTree).
+ *
+ * Syntax trees are immutable; editing a tree creates a new tree that shares the unchanged subtrees with the original.
+ * The lines in a block are positioned relative to the line that opens it, so an edit that adds or removes lines only
+ * copies the blocks that contain it and the nodes that follow it at each of those levels, rather than every line
+ * after it.
+ */
+public final class StructurizrDslSyntaxTree {
+
+    private static final String MULTI_LINE_COMMENT_START_TOKEN = "/*";
+    private static final String BLOCK_START_TOKEN = DslContext.CONTEXT_START_TOKEN;
+    private static final String BLOCK_END_TOKEN = DslContext.CONTEXT_END_TOKEN;
+    private static final String STRING_SUBSTITUTION_START = "${";
+
+    private final List<Subtree> subtrees;
+    private final boolean restricted;
+
+    private StructurizrDslSyntaxTree(List<Subtree> subtrees, boolean restricted) {
+        this.subtrees = subtrees;
+        this.restricted = restricted;
+    }
+
+    /**
+     * Gets the top-level nodes.
+     *
+     * @return  a List of Node objects
+     */
+    public List<Node> getNodes() {
+        return Node.list(subtrees, 0);
+    }
+
+    /**
+     * Creates a new syntax tree by replacing some lines of a file. Only the replacement lines are lexed, and only the
+     * nodes in the innermost { ... } block around the edit are rebuilt (unless the edit opens or closes blocks or
+     * multi-line comments, in which case the enclosing blocks are rebuilt too). Everything else is shared with this
+     * tree, apart from the blocks that contain the edit, and (when lines are added or removed) the nodes that follow
+     * the edit in each of those blocks, which are copied with new line numbers, but still share their children.
+     *
+     * @param file                  the file to edit, which must not be one that has been included via !include
+     * @param startLineNumber       the (1-based) line number of the first line to replace
+     * @param endLineNumber         the line number of the last line to replace (startLineNumber-1 to insert lines)
+     * @param lines                 the replacement lines
+     * @return  a new StructurizrDslSyntaxTree
+     */
+    public StructurizrDslSyntaxTree edit(File file, int startLineNumber, int endLineNumber, List<String> lines) throws StructurizrDslParserException {
+        if (file == null) {
+            throw new RuntimeException("A file must be specified");
+        }
+
+        if (startLineNumber < 1 || endLineNumber < startLineNumber - 1) {
+            throw new RuntimeException("The line numbers " + startLineNumber + "-" + endLineNumber + " are not valid");
+        }
+
+        if (lines == null) {
+            throw new RuntimeException("The replacement lines must be specified");
+        }
+
+        return new StructurizrDslSyntaxTree(new Edit(file, startLineNumber, endLineNumber, LexedDslFile.lex(lines)).apply(), restricted);
+    }
+
+    /**
+     * A single line of DSL. The lines of a tree are shared with the trees created by editing it, so a Node is a view
+     * of a line at its position in a particular tree; the same line may be represented by several Node objects.
+     */
+    public static final class Node {
+
+        private final Subtree subtree;
+        private final int lineNumber;
+
+        private Node(Subtree subtree, int lineNumber) {
+            this.subtree = subtree;
+            this.lineNumber = lineNumber;
+        }
+
+        private static List<Node> list(List<Subtree> subtrees, int parentLineNumber) {
+            return new AbstractList<Node>() {
+                @Override
+                public Node get(int index) {
+                    Subtree subtree = subtrees.get(index);
+                    return new Node(subtree, parentLineNumber + subtree.lineNumber);
+                }
+
+                @Override
+                public int size() {
+                    return subtrees.size();
+                }
+            };
+        }
+
+        /**
+         * Gets the file that this line was read from.
+         *
+         * @return  a File
+         */
+        public File getFile() {
+            return subtree.file;
+        }
+
+        /**
+         * Gets the (1-based) line number within the file.
+         *
+         * @return  a line number
+         */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Gets the text of this line, as written.
+         *
+         * @return  the line
+         */
+        public String getText() {
+            return subtree.line.getText();
+        }
+
+        /**
+         * Gets the tokens on this line, before constants have been substituted.
+         *
+         * @return  a List of tokens (empty if the line is empty or a single line comment)
+         */
+        public List<String> getTokens() {
+            String[] tokens = subtree.line.getTokens();
+            return tokens != null ? Collections.unmodifiableList(Arrays.asList(tokens)) : Collections.emptyList();
+        }
+
+        /**
+         * Gets the lines inside the block opened by this line.
+         *
+         * @return  a List of Node objects (empty if this line doesn't open a block)
+         */
+        public List<Node> getChildren() {
+            return list(subtree.children, lineNumber);
+        }
+
+        /**
+         * Gets the line that closes the block opened by this line.
+         *
+         * @return  a Node, or null if this line doesn't open a block (or the block isn't closed)
+         */
+        public Node getEnd() {
+            return subtree.end != null ? new Node(subtree.end, lineNumber + subtree.end.lineNumber) : null;
+        }
+
+        /**
+         * Determines whether this is an !include line whose file has been expanded in place.
+         *
+         * @return  true if the included lines follow this node, false otherwise
+         */
+        public boolean isInclude() {
+            return subtree.include;
+        }
+
+        LexedDslFile.Line getLine() {
+            return subtree.line;
+        }
+
+        /**
+         * Determines whether this node and the specified node represent the same (shared) subtree.
+         */
+        boolean isSharedWith(Node node) {
+            return node != null && subtree == node.subtree;
+        }
+
+        /**
+         * Gets the first token on this line, ignoring any identifier assignment (e.g. "x = ").
+         */
+        String getKeyword() {
+            return subtree.getKeyword();
+        }
+
+        boolean isBlockEnd() {
+            return subtree.isBlockEnd();
+        }
+
+    }
+
+    /**
+     * A line, along with the lines inside the block that it opens; these are shared between the trees created by
+     * editing a tree, so don't depend on the position of the block. The line number is relative to the line that
+     * opens the enclosing block (or absolute at the top level), except while the tree is being built.
+     */
+    private static final class Subtree {
+
+        private final File file;
+        private int lineNumber;
+        private final LexedDslFile.Line line;
+        private final List<Subtree> children;
+        private Subtree end;
+        private boolean include;
+        private int includeSize;
+        private boolean multiLineComment;
+        private boolean block;
+
+        // the number of lines in this subtree (this line, its children and the line that ends the block)
+        private int size;
+
+        // whether this subtree contains lines from a file other than the one that this line is in
+        private boolean multipleFiles;
+
+        private Subtree(File file, int lineNumber, LexedDslFile.Line line) {
+            this.file = file;
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.children = new ArrayList<>();
+        }
+
+        /**
+         * Creates a copy of the specified subtree's line, with the specified (absolute) line number, ready to be added
+         * to a Builder again.
+         */
+        private Subtree(Subtree subtree, int lineNumber) {
+            this(subtree.file, lineNumber, subtree.line);
+            this.include = subtree.include;
+            this.includeSize = subtree.includeSize;
+        }
+
+        /**
+         * Creates a copy of the specified (built) subtree, with the specified line number, children and end.
+         */
+        private Subtree(Subtree subtree, int lineNumber, List<Subtree> children, Subtree end) {
+            this.file = subtree.file;
+            this.lineNumber = lineNumber;
+            this.line = subtree.line;
+            this.children = children;
+            this.end = end;
+            this.include = subtree.include;
+            this.includeSize = subtree.includeSize;
+            this.multiLineComment = subtree.multiLineComment;
+            this.block = subtree.block;
+
+            this.size = end != null ? 2 : 1;
+            for (Subtree child : children) {
+                this.size += child.size;
+                this.multipleFiles |= child.multipleFiles || !file.equals(child.file);
+            }
+            this.multipleFiles |= end != null && !file.equals(end.file);
+        }
+
+        String getKeyword() {
+            int count = line.getTokenCount();
+            if (count == 0) {
+                return null;
+            } else if (count > 3 && StructurizrDslTokens.ASSIGNMENT_OPERATOR_TOKEN.equals(line.getToken(1))) {
+                return line.getToken(2);
+            } else {
+                return line.getToken(0);
+            }
+        }
+
+        boolean isBlockEnd() {
+            return line.getTokenCount() > 0 && BLOCK_END_TOKEN.equals(line.getToken(0));
+        }
+
+    }
+
+    /**
+     * Builds a syntax tree from a sequence of lexed files. The lines of every file are treated as a single
+     * sequence, so a block can be opened in one file and closed in another (e.g. when parsing a directory).
+     */
+    static final class Builder {
+
+        private final boolean restricted;
+        private final IncludeParser includeParser = new IncludeParser();
+
+        private final List<Subtree> subtrees = new ArrayList<>();
+        private final Deque<Subtree> blocks = new ArrayDeque<>();
+        private int commentDepth = 0;
+        private int unmatchedBlockEnds = 0;
+        private int count = 0;
+
+        Builder(boolean restricted) {
+            this.restricted = restricted;
+        }
+
+        void add(LexedDslFile lexedFile) throws StructurizrDslParserException {
+            int lineNumber = 1;
+            for (LexedDslFile.Line line : lexedFile.getLines()) {
+                add(new Subtree(lexedFile.getFile(), lineNumber, line));
+                lineNumber++;
+            }
+        }
+
+        StructurizrDslSyntaxTree build() {
+            return new StructurizrDslSyntaxTree(getSubtrees(0), restricted);
+        }
+
+        /**
+         * Gets the subtrees that have been built, with their line numbers relative to the specified line number.
+         */
+        private List<Subtree> getSubtrees(int parentLineNumber) {
+            for (Subtree subtree : subtrees) {
+                seal(subtree, parentLineNumber);
+            }
+
+            return subtrees;
+        }
+
+        /**
+         * Determines whether every block and multi-line comment that has been opened has also been closed.
+         */
+        boolean isComplete() {
+            return blocks.isEmpty() && commentDepth == 0;
+        }
+
+        /**
+         * Determines whether any lines have closed a block that wasn't opened by the lines added to this builder.
+         */
+        boolean hasUnmatchedBlockEnds() {
+            return unmatchedBlockEnds > 0;
+        }
+
+        private void add(Subtree subtree) throws StructurizrDslParserException {
+            LexedDslFile.Line line = subtree.line;
+            int tokenCount = line.getTokenCount();
+            count++;
+
+            // a subtree that is being rebuilt keeps the lines it included only if it's still an !include line
+            boolean include = subtree.include;
+            int includeSize = subtree.includeSize;
+            subtree.include = false;
+            subtree.includeSize = 0;
+
+            // multi-line comments are recognised in the same way as StructurizrDslParser does
+            if (tokenCount == 0 || (line.startsWithMultiLineComment() && line.endsWithMultiLineComment())) {
+                subtree.multiLineComment = commentDepth > 0;
+                append(subtree);
+            } else if (subtree.getKeyword().startsWith(MULTI_LINE_COMMENT_START_TOKEN)) {
+                commentDepth++;
+                subtree.multiLineComment = true;
+                append(subtree);
+            } else if (commentDepth > 0) {
+                if (line.endsWithMultiLineComment()) {
+                    commentDepth--;
+                }
+                subtree.multiLineComment = true;
+                append(subtree);
+            } else if (subtree.isBlockEnd() && !blocks.isEmpty()) {
+                blocks.pop().end = subtree;
+            } else {
+                append(subtree);
+
+                if (subtree.isBlockEnd()) {
+                    unmatchedBlockEnds++;
+                } else if (BLOCK_START_TOKEN.equals(line.getToken(tokenCount - 1))) {
+                    subtree.block = true;
+                    blocks.push(subtree);
+                } else if (INCLUDE_FILE_TOKEN.equalsIgnoreCase(line.getToken(0))) {
+                    if (include) {
+                        subtree.include = true;
+                        subtree.includeSize = includeSize;
+                    } else {
+                        expandInclude(subtree);
+                    }
+                }
+            }
+        }
+
+        private void append(Subtree subtree) {
+            if (blocks.isEmpty()) {
+                subtrees.add(subtree);
+            } else {
+                blocks.peek().children.add(subtree);
+            }
+        }
+
+        private void expandInclude(Subtree subtree) throws StructurizrDslParserException {
+            LexedDslFile.Line line = subtree.line;
+
+            // files referenced using constants are included when the tree is parsed, once the constants are known
+            if (restricted || line.getTokenCount() != 2 || line.getToken(1).contains(STRING_SUBSTITUTION_START)) {
+                return;
+            }
+
+            IncludedDslContext context = new IncludedDslContext(subtree.file);
+            try {
+                includeParser.parse(context, new Tokens(line.getTokens()));
+            } catch (RuntimeException e) {
+                throw new StructurizrDslParserException(e.getMessage(), subtree.lineNumber, line.getText());
+            }
+
+            subtree.include = true;
+            int countBeforeInclude = count;
+            try {
+                add(LexedDslFile.lex(context.getFile()));
+            } catch (IOException e) {
+                throw new StructurizrDslParserException(e.getMessage());
+            }
+            subtree.includeSize = count - countBeforeInclude;
+        }
+
+        /**
+         * Works out the size of the specified subtree, and makes its line numbers relative (they are absolute while
+         * the subtree is being built).
+         */
+        private static void seal(Subtree subtree, int parentLineNumber) {
+            int lineNumber = subtree.lineNumber;
+            subtree.lineNumber = lineNumber - parentLineNumber;
+            subtree.size = 1;
+            subtree.multipleFiles = false;
+
+            for (Subtree child : subtree.children) {
+                seal(child, lineNumber);
+                subtree.size += child.size;
+                subtree.multipleFiles |= child.multipleFiles || !subtree.file.equals(child.file);
+            }
+
+            if (subtree.end != null) {
+                seal(subtree.end, lineNumber);
+                subtree.size++;
+                subtree.multipleFiles |= !subtree.file.equals(subtree.end.file);
+            }
+        }
+
+    }
+
+    /**
+     * Replaces some lines of a file, rebuilding the subtrees in the smallest run of sibling subtrees around the edit
+     * that is balanced (i.e. doesn't open or close blocks and multi-line comments outside of itself).
+     */
+    private final class Edit {
+
+        private final File file;
+        private final int startLineNumber;
+        private final int endLineNumber;
+        private final List<LexedDslFile.Line> lines;
+        private final int lineNumberDelta;
+
+        // the edit replaces the lines at [start, end) when the tree is flattened (in document order)
+        private int start = -1;
+        private int end = -1;
+
+        Edit(File file, int startLineNumber, int endLineNumber, List<LexedDslFile.Line> lines) {
+            this.file = file;
+            this.startLineNumber = startLineNumber;
+            this.endLineNumber = endLineNumber;
+            this.lines = lines;
+            this.lineNumberDelta = lines.size() - (endLineNumber - startLineNumber + 1);
+        }
+
+        List<Subtree> apply() throws StructurizrDslParserException {
+            locate();
+
+            // find the innermost block that contains the whole edit (but not the lines that open and close it);
+            // a block that isn't closed contains everything after it
+            Deque<Level> levels = new ArrayDeque<>();
+            levels.push(new Level(null, subtrees, 0, 0));
+            while (true) {
+                Level level = levels.peek();
+                Level innerLevel = null;
+
+                int index = level.offset;
+                for (Subtree subtree : level.subtrees) {
+                    if (index >= end) {
+                        break;
+                    }
+
+                    if (index < start && subtree.block) {
+                        int endOfBlock = subtree.end != null ? index + subtree.size - 1 : index + subtree.size;
+                        if (end <= endOfBlock) {
+                            innerLevel = new Level(subtree, subtree.children, index + 1, level.lineNumber + subtree.lineNumber);
+                            break;
+                        }
+                    }
+
+                    index += subtree.size;
+                }
+
+                if (innerLevel == null) {
+                    break;
+                }
+
+                levels.push(innerLevel);
+            }
+
+            // rebuild the subtrees around the edit, moving out a level if they aren't balanced
+            Level level = levels.pop();
+            int from = firstSubtreeEndingAfter(level, start);
+            Region region = rebuild(level, from, lastSubtreeStartingBefore(level, end, from));
+
+            while (region == null) {
+                Subtree block = level.block;
+                level = levels.pop();
+                from = level.subtrees.indexOf(block);
+                region = rebuild(level, from, from);
+            }
+
+            List<Subtree> result = replace(level.subtrees, region.from, region.to, region.subtrees);
+
+            // and then copy the blocks that contain the rebuilt subtrees (which precede the edit, so don't move)
+            while (!levels.isEmpty()) {
+                Subtree block = level.block;
+                level = levels.pop();
+
+                int index = level.subtrees.indexOf(block);
+                Subtree copy = new Subtree(block, block.lineNumber, result, block.end != null ? shift(block.end, 0) : null);
+                result = replace(level.subtrees, index, index, Collections.singletonList(copy));
+            }
+
+            return result;
+        }
+
+        /**
+         * Finds the position of the edit within the flattened tree.
+         */
+        private void locate() {
+            int index = 0;
+            int includedUntil = 0;
+            int lastLineNumber = 0;
+            int endOfFile = -1;
+
+            // the line number of each pending subtree's parent
+            Deque<Subtree> pending = new ArrayDeque<>(subtrees.size());
+            Deque<Integer> parentLineNumbers = new ArrayDeque<>(subtrees.size());
+            for (int i = subtrees.size() - 1; i >= 0; i--) {
+                pending.push(subtrees.get(i));
+                parentLineNumbers.push(0);
+            }
+
+            while (!pending.isEmpty()) {
+                Subtree subtree = pending.pop();
+                int lineNumber = parentLineNumbers.pop() + subtree.lineNumber;
+
+                if (file.equals(subtree.file)) {
+                    if (index < includedUntil) {
+                        throw new RuntimeException("The file " + file.getAbsolutePath() + " has been included via !include, so can't be edited");
+                    }
+
+                    int next = index + 1 + subtree.includeSize;
+                    if (start == -1 && lineNumber >= startLineNumber) {
+                        start = index;
+                    }
+
+                    if (lineNumber <= endLineNumber) {
+                        end = next;
+                    }
+
+                    lastLineNumber = lineNumber;
+                    endOfFile = next;
+                }
+
+                if (subtree.include) {
+                    includedUntil = Math.max(includedUntil, index + 1 + subtree.includeSize);
+                }
+
+                if (subtree.end != null) {
+                    pending.push(subtree.end);
+                    parentLineNumbers.push(lineNumber);
+                }
+                for (int i = subtree.children.size() - 1; i >= 0; i--) {
+                    pending.push(subtree.children.get(i));
+                    parentLineNumbers.push(lineNumber);
+                }
+
+                index++;
+            }
+
+            if (endOfFile == -1) {
+                throw new RuntimeException("The file " + file.getAbsolutePath() + " is not part of this syntax tree");
+            }
+
+            if (startLineNumber > lastLineNumber + 1 || endLineNumber > lastLineNumber) {
+                throw new RuntimeException("The line numbers " + startLineNumber + "-" + endLineNumber + " are not valid for " + file.getAbsolutePath() + ", which has " + lastLineNumber + " lines");
+            }
+
+            if (start == -1) {
+                start = endOfFile;
+            }
+
+            if (endLineNumber < startLineNumber) {
+                end = start;
+            }
+        }
+
+        private int firstSubtreeEndingAfter(Level level, int position) {
+            int index = level.offset;
+            for (int i = 0; i < level.subtrees.size(); i++) {
+                index += level.subtrees.get(i).size;
+                if (index > position) {
+                    return i;
+                }
+            }
+
+            return level.subtrees.size();
+        }
+
+        private int lastSubtreeStartingBefore(Level level, int position, int from) {
+            int index = level.offset;
+            int last = from - 1;
+            for (int i = 0; i < level.subtrees.size() && index < position; i++) {
+                if (i >= from) {
+                    last = i;
+                }
+                index += level.subtrees.get(i).size;
+            }
+
+            return last;
+        }
+
+        /**
+         * Rebuilds the subtrees from..to (inclusive) of the specified level, with the edit applied.
+         *
+         * @return  the rebuilt region, or null if the subtrees aren't balanced
+         */
+        private Region rebuild(Level level, int from, int to) throws StructurizrDslParserException {
+            // a multi-line comment, or the lines included by an !include, are rebuilt as a whole
+            boolean extended = true;
+            while (extended) {
+                extended = false;
+                while (from > 0 && level.subtrees.get(from - 1).multiLineComment) {
+                    from--;
+                    extended = true;
+                }
+                while (to + 1 < level.subtrees.size() && level.subtrees.get(to + 1).multiLineComment) {
+                    to++;
+                    extended = true;
+                }
+                for (int i = from; i <= to; i++) {
+                    Subtree subtree = level.subtrees.get(i);
+                    if (subtree.include) {
+                        int includedUntil = offsetOf(level, i) + 1 + subtree.includeSize;
+                        while (to + 1 < level.subtrees.size() && offsetOf(level, to + 1) < includedUntil) {
+                            to++;
+                            extended = true;
+                        }
+                    }
+                }
+            }
+
+            // the lines are flattened with absolute line numbers, which is what the builder expects
+            List<Subtree> flattenedLines = new ArrayList<>();
+            for (int i = from; i <= to; i++) {
+                flatten(level.subtrees.get(i), level.lineNumber, flattenedLines);
+            }
+
+            Builder builder = new Builder(restricted);
+            int index = offsetOf(level, from);
+            int excludedUntil = index;
+            boolean edited = false;
+            for (Subtree line : flattenedLines) {
+                if (index >= start && !edited) {
+                    addEditedLines(builder);
+                    edited = true;
+                }
+
+                if ((index < start || index >= end) && index >= excludedUntil) {
+                    boolean include = line.include;
+                    int includeSize = line.includeSize;
+                    if (index >= end) {
+                        line.lineNumber = shiftedLineNumber(line);
+                    }
+                    builder.add(line);
+
+                    if (include && !line.include) {
+                        // the !include line is now in a comment, so the lines it included are dropped
+                        excludedUntil = index + 1 + includeSize;
+                    }
+                }
+
+                index++;
+            }
+
+            if (!edited) {
+                addEditedLines(builder);
+            }
+
+            // there's nothing to close the blocks and comments at the top level, or in a block that isn't closed,
+            // so they can be left open if everything up to the end of the level is rebuilt
+            boolean topLevel = level.block == null;
+            boolean openEnded = topLevel || level.block.end == null;
+            if (!builder.isComplete() && openEnded && to < level.subtrees.size() - 1) {
+                return rebuild(level, from, level.subtrees.size() - 1);
+            }
+
+            if ((!builder.isComplete() && !openEnded) || (!topLevel && builder.hasUnmatchedBlockEnds())) {
+                return null;
+            }
+
+            return new Region(from, to, builder.getSubtrees(level.lineNumber));
+        }
+
+        private void addEditedLines(Builder builder) throws StructurizrDslParserException {
+            int lineNumber = startLineNumber;
+            for (LexedDslFile.Line line : lines) {
+                builder.add(new Subtree(file, lineNumber, line));
+                lineNumber++;
+            }
+        }
+
+        private int offsetOf(Level level, int index) {
+            int offset = level.offset;
+            for (int i = 0; i < index; i++) {
+                offset += level.subtrees.get(i).size;
+            }
+
+            return offset;
+        }
+
+        /**
+         * Adds a copy of each line in the specified subtree (with its absolute line number) to the specified list.
+         */
+        private void flatten(Subtree subtree, int parentLineNumber, List<Subtree> flattenedLines) {
+            int lineNumber = parentLineNumber + subtree.lineNumber;
+            flattenedLines.add(new Subtree(subtree, lineNumber));
+            for (Subtree child : subtree.children) {
+                flatten(child, lineNumber, flattenedLines);
+            }
+
+            if (subtree.end != null) {
+                flatten(subtree.end, lineNumber, flattenedLines);
+            }
+        }
+
+        /**
+         * Replaces the subtrees from..to (inclusive), shifting the subtrees that follow them.
+         */
+        private List<Subtree> replace(List<Subtree> subtrees, int from, int to, List<Subtree> replacementSubtrees) {
+            List<Subtree> result = new ArrayList<>(subtrees.size() - (to - from + 1) + replacementSubtrees.size());
+            result.addAll(subtrees.subList(0, from));
+            result.addAll(replacementSubtrees);
+            for (int i = to + 1; i < subtrees.size(); i++) {
+                result.add(shift(subtrees.get(i), 0));
+            }
+
+            return result;
+        }
+
+        private int shiftedLineNumber(Subtree line) {
+            return file.equals(line.file) ? line.lineNumber + lineNumberDelta : line.lineNumber;
+        }
+
+        /**
+         * Gets the specified subtree (which follows the edit), with the lines in the edited file shifted by the number
+         * of lines that the edit added or removed, given that its parent has been shifted by parentDelta lines. Since
+         * line numbers are relative, only the lines in a different file to their parent need to be copied, and the
+         * subtree is shared if nothing has changed.
+         */
+        private Subtree shift(Subtree subtree, int parentDelta) {
+            int delta = file.equals(subtree.file) ? lineNumberDelta : 0;
+            if (delta == parentDelta && !subtree.multipleFiles) {
+                return subtree;
+            }
+
+            List<Subtree> children = subtree.children;
+            Subtree end = subtree.end;
+            if (subtree.multipleFiles) {
+                for (int i = 0; i < subtree.children.size(); i++) {
+                    Subtree child = shift(subtree.children.get(i), delta);
+                    if (child != subtree.children.get(i)) {
+                        if (children == subtree.children) {
+                            children = new ArrayList<>(subtree.children);
+                        }
+                        children.set(i, child);
+                    }
+                }
+
+                end = end != null ? shift(end, delta) : null;
+            }
+
+            if (delta == parentDelta && children == subtree.children && end == subtree.end) {
+                return subtree;
+            }
+
+            return new Subtree(subtree, subtree.lineNumber + delta - parentDelta, children, end);
+        }
+
+    }
+
+    private static final class Region {
+
+        private final int from;
+        private final int to;
+        private final List<Subtree> subtrees;
+
+        Region(int from, int to, List<Subtree> subtrees) {
+            this.from = from;
+            this.to = to;
+            this.subtrees = subtrees;
+        }
+
+    }
+
+    private static final class Level {
+
+        private final Subtree block;
+        private final List<Subtree> subtrees;
+        private final int offset;
+
+        // the (absolute) line number of the block
+        private final int lineNumber;
+
+        Level(Subtree block, List<Subtree> subtrees, int offset, int lineNumber) {
+            this.block = block;
+            this.subtrees = subtrees;
+            this.offset = offset;
+            this.lineNumber = lineNumber;
+        }
+
+    }
+
+}
@@ -4,38 +4,112 @@ import java.util.List;
 
 final class Tokens {
 
-    private List<String> tokens;
+    private static final String ESCAPED_DOUBLE_QUOTE = "\\\"";
+    private static final String DOUBLE_QUOTE = "\"";
+
+    // the tokens as found in the DSL, and the same tokens trimmed/unescaped (these arrays are shared between sub-ranges)
+    private final String[] tokens;
+    private final String[] values;
+    private final int offset;
+    private final int size;
 
     Tokens(List<String> tokens) {
+        this(tokens.toArray(new String[0]));
+    }
+
+    Tokens(String... tokens) {
+        this(tokens, unescape(tokens), 0, tokens.length);
+    }
+
+    private Tokens(String[] tokens, String[] values, int offset, int size) {
         this.tokens = tokens;
+        this.values = values;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    private static String[] unescape(String[] tokens) {
+        String[] values = tokens;
+
+        for (int i = 0; i < tokens.length; i++) {
+            String value = unescape(tokens[i]);
+
+            if (value != tokens[i]) {
+                if (values == tokens) {
+                    values = tokens.clone();
+                }
+                values[i] = value;
+            }
+        }
+
+        return values;
+    }
+
+    private static String unescape(String token) {
+        String value = token.trim();
+
+        int index = value.indexOf(ESCAPED_DOUBLE_QUOTE);
+        if (index == -1) {
+            return value;
+        }
+
+        StringBuilder buf = new StringBuilder(value.length());
+        int start = 0;
+        while (index != -1) {
+            buf.append(value, start, index).append(DOUBLE_QUOTE);
+            start = index + ESCAPED_DOUBLE_QUOTE.length();
+            index = value.indexOf(ESCAPED_DOUBLE_QUOTE, start);
+        }
+        buf.append(value, start, value.length());
+
+        return buf.toString().trim();
     }
 
     String get(int index) {
-        return tokens.get(index).trim().replaceAll("\\\\\"", "\"").trim();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return values[offset + index];
     }
 
     int size() {
-        return tokens.size();
+        return size;
     }
 
     boolean contains(String token) {
-        return tokens.contains(token.trim());
+        String trimmedToken = token.trim();
+        for (int i = offset; i < offset + size; i++) {
+            if (tokens[i].equals(trimmedToken)) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     Tokens withoutContextStartToken() {
-        if (tokens.get(tokens.size()-1).equals(DslContext.CONTEXT_START_TOKEN)) {
-            return new Tokens(tokens.subList(0, tokens.size()-1));
+        if (tokens[offset + size - 1].equals(DslContext.CONTEXT_START_TOKEN)) {
+            return new Tokens(tokens, values, offset, size - 1);
         } else {
             return this;
         }
     }
 
+    Tokens from(int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return new Tokens(tokens, values, offset + index, size - index);
+    }
+
     boolean includes(int index) {
-        return tokens.size() - 1 >= index;
+        return size - 1 >= index;
     }
 
     boolean hasMoreThan(int index) {
         return includes(index + 1);
     }
-    
-}
\ No newline at end of file
+
+}
@@ -6,7 +6,7 @@ import com.structurizr.view.ContainerView;
 import com.structurizr.view.ElementView;
 import com.structurizr.view.StaticView;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -15,49 +15,28 @@ abstract class ViewContentParser extends AbstractParser {
     private static final String WILDCARD = "*";
 
     protected Set<Relationship> findRelationships(ViewDslContext context, String sourceElementIdentifier, String destinationElementIdentifier) {
-        Set<Element> sourceElements = new HashSet<>();
-        Set<Element> destinationElements = new HashSet<>();
-        Set<Relationship> relationships = new HashSet<>();
-
-        if (sourceElementIdentifier.equals(WILDCARD)) {
-            sourceElements.addAll(context.getView().getElements().stream().map(ElementView::getElement).collect(Collectors.toSet()));
-        } else {
-            Element sourceElement = context.getElement(sourceElementIdentifier);
-            if (sourceElement == null) {
-                throw new RuntimeException("The element \"" + sourceElementIdentifier + "\" does not exist");
-            }
-
-            if (!context.getView().isElementInView(sourceElement)) {
-                throw new RuntimeException("The element \"" + sourceElementIdentifier + "\" does not exist in the view");
-            }
-
-            sourceElements.add(sourceElement);
-        }
+        Set<Element> elementsInView = context.getView().getElements().stream().map(ElementView::getElement).collect(Collectors.toSet());
+        Set<Element> sourceElements = findElements(context, sourceElementIdentifier, elementsInView);
+        Set<Element> destinationElements = findElements(context, destinationElementIdentifier, elementsInView);
 
-        if (destinationElementIdentifier.equals(WILDCARD)) {
-            destinationElements.addAll(context.getView().getElements().stream().map(ElementView::getElement).collect(Collectors.toSet()));
-        } else {
-            Element destinationElement = context.getElement(destinationElementIdentifier);
-            if (destinationElement == null) {
-                throw new RuntimeException("The element \"" + destinationElementIdentifier + "\" does not exist");
-            }
+        return context.getModelIndex().getRelationshipsBetween(sourceElements, destinationElements);
+    }
 
-            if (!context.getView().isElementInView(destinationElement)) {
-                throw new RuntimeException("The element \"" + destinationElementIdentifier + "\" does not exist in the view");
-            }
+    private Set<Element> findElements(ViewDslContext context, String identifier, Set<Element> elementsInView) {
+        if (identifier.equals(WILDCARD)) {
+            return elementsInView;
+        }
 
-            destinationElements.add(destinationElement);
+        Element element = context.getElement(identifier);
+        if (element == null) {
+            throw new RuntimeException("The element \"" + identifier + "\" does not exist");
         }
 
-        for (Element sourceElement : sourceElements) {
-            for (Relationship relationship : sourceElement.getRelationships()) {
-                if (destinationElements.contains(relationship.getDestination())) {
-                    relationships.add(relationship);
-                }
-            }
+        if (!elementsInView.contains(element)) {
+            throw new RuntimeException("The element \"" + identifier + "\" does not exist in the view");
         }
 
-        return relationships;
+        return Collections.singleton(element);
     }
 
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.structurizr.dsl;
 
+import com.structurizr.model.Model;
 import com.structurizr.view.View;
 
 class ViewDslContext extends DslContext {
@@ -14,4 +15,9 @@ class ViewDslContext extends DslContext {
         return view;
     }
 
+    @Override
+    Model getModel() {
+        return view.getModel();
+    }
+
 }
\ No newline at end of file
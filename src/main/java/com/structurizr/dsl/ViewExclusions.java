@@ -0,0 +1,72 @@
+package com.structurizr.dsl;
+
+import com.structurizr.model.Element;
+import com.structurizr.model.Relationship;
+import com.structurizr.view.RelationshipView;
+import com.structurizr.view.View;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Collects the elements and relationships to be excluded from a view by an "exclude" statement, and then removes
+ * them together.
+ *
+ * Removing an element from a view also scans the relationships in the view, to remove those connected to it. So the
+ * relationships connected to every excluded element are found in a single pass and removed first, leaving only the
+ * relationships that remain in the view to be scanned as each element is removed.
+ */
+final class ViewExclusions {
+
+    private final Set<Element> elements = new LinkedHashSet<>();
+    private final Set<Relationship> relationships = new LinkedHashSet<>();
+    private final Set<String> replicatedRelationshipIds = new HashSet<>();
+
+    void exclude(Element element) {
+        elements.add(element);
+    }
+
+    void exclude(Relationship relationship) {
+        relationships.add(relationship);
+    }
+
+    /**
+     * Excludes the specified relationship, along with any relationships replicated from it (e.g. between container instances).
+     */
+    void excludeWithReplicas(Relationship relationship) {
+        relationships.add(relationship);
+        replicatedRelationshipIds.add(relationship.getId());
+    }
+
+    /**
+     * Removes the excluded elements and relationships from the specified view.
+     *
+     * @param view              the view to remove elements and relationships from
+     * @param elementRemover    removes a single element from the view
+     */
+    void apply(View view, Consumer<Element> elementRemover) {
+        Set<Relationship> relationshipsToRemove = new HashSet<>(relationships);
+
+        if (!elements.isEmpty() || !replicatedRelationshipIds.isEmpty()) {
+            for (RelationshipView relationshipView : view.getRelationships()) {
+                Relationship relationship = relationshipView.getRelationship();
+                if (elements.contains(relationship.getSource()) || elements.contains(relationship.getDestination())) {
+                    relationshipsToRemove.add(relationship);
+                } else if (relationship.getLinkedRelationshipId() != null && replicatedRelationshipIds.contains(relationship.getLinkedRelationshipId())) {
+                    relationshipsToRemove.add(relationship);
+                }
+            }
+        }
+
+        for (Relationship relationship : relationshipsToRemove) {
+            view.remove(relationship);
+        }
+
+        for (Element element : elements) {
+            elementRemover.accept(element);
+        }
+    }
+
+}
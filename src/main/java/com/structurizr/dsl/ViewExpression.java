@@ -0,0 +1,543 @@
+package com.structurizr.dsl;
+
+import com.structurizr.model.*;
+
+import java.util.*;
+
+/**
+ * A compiled view expression (e.g. "element.type==Container && element.tag!=Database"); a tree of predicates
+ * over either elements or relationships.
+ *
+ * Expressions are evaluated by asking the tree which items it can select from the model index, and only when no
+ * index applies (e.g. "!element.tag==Tag") by testing every element or relationship in the model. Compiled
+ * expressions are shared, so the identifiers they refer to are resolved (bound) once per evaluation.
+ */
+abstract class ViewExpression<T extends ModelItem> {
+
+    private final Class<T> type;
+
+    ViewExpression(Class<T> type) {
+        this.type = type;
+    }
+
+    Class<T> getType() {
+        return type;
+    }
+
+    boolean isElementExpression() {
+        return type == Element.class;
+    }
+
+    @SuppressWarnings("unchecked")
+    ViewExpression<Element> asElementExpression() {
+        return (ViewExpression<Element>)(ViewExpression<?>)this;
+    }
+
+    @SuppressWarnings("unchecked")
+    ViewExpression<Relationship> asRelationshipExpression() {
+        return (ViewExpression<Relationship>)(ViewExpression<?>)this;
+    }
+
+    /**
+     * Resolves the identifiers referred to by this expression, so that they are looked up once rather than for every
+     * model item that is tested (an identifier that doesn't exist is reported even if nothing is tested).
+     *
+     * @return  an equivalent expression with its identifiers resolved, or this expression if it has none
+     */
+    ViewExpression<T> bind(DslContext context) {
+        return this;
+    }
+
+    /**
+     * Determines whether the specified model item matches this expression (which should have been bound, if it's
+     * going to be used to test many model items).
+     */
+    abstract boolean matches(T modelItem, DslContext context);
+
+    /**
+     * Selects the matching model items using the model index.
+     *
+     * @return  the set of matching model items, or null if no index applies to this expression
+     */
+    Set<T> select(ModelIndex index, DslContext context) {
+        return null;
+    }
+
+    /**
+     * Finds all of the model items that match this expression.
+     */
+    final Set<T> evaluate(DslContext context) {
+        ViewExpression<T> expression = bind(context);
+        ModelIndex index = context.getModelIndex();
+
+        Set<T> modelItems = expression.select(index, context);
+        if (modelItems == null) {
+            modelItems = new LinkedHashSet<>();
+            for (T modelItem : all(index)) {
+                if (expression.matches(modelItem, context)) {
+                    modelItems.add(modelItem);
+                }
+            }
+        }
+
+        return modelItems;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<T> all(ModelIndex index) {
+        return (Set<T>)(isElementExpression() ? index.getElements() : index.getRelationships());
+    }
+
+    /**
+     * Restricts the specified element expression to the deployment elements in the given deployment environment.
+     */
+    static ViewExpression<Element> inEnvironment(String environment, ViewExpression<Element> expression) {
+        return new And<>(Element.class, Arrays.asList(new ElementEnvironment(environment), expression));
+    }
+
+    static Element findElement(DslContext context, String identifier) {
+        Element element = context.getElement(identifier);
+        if (element == null) {
+            throw new RuntimeException("The element \"" + identifier + "\" does not exist");
+        }
+
+        return element;
+    }
+
+    private static <T extends ModelItem> List<ViewExpression<T>> bindAll(List<ViewExpression<T>> expressions, DslContext context) {
+        List<ViewExpression<T>> boundExpressions = new ArrayList<>(expressions.size());
+        boolean bound = false;
+        for (ViewExpression<T> expression : expressions) {
+            ViewExpression<T> boundExpression = expression.bind(context);
+            boundExpressions.add(boundExpression);
+            bound = bound || boundExpression != expression;
+        }
+
+        return bound ? boundExpressions : expressions;
+    }
+
+    static final class And<T extends ModelItem> extends ViewExpression<T> {
+
+        private final List<ViewExpression<T>> expressions;
+
+        And(Class<T> type, List<ViewExpression<T>> expressions) {
+            super(type);
+            this.expressions = expressions;
+        }
+
+        @Override
+        ViewExpression<T> bind(DslContext context) {
+            List<ViewExpression<T>> boundExpressions = bindAll(expressions, context);
+
+            return boundExpressions != expressions ? new And<>(getType(), boundExpressions) : this;
+        }
+
+        @Override
+        boolean matches(T modelItem, DslContext context) {
+            for (ViewExpression<T> expression : expressions) {
+                if (!expression.matches(modelItem, context)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        Set<T> select(ModelIndex index, DslContext context) {
+            // start with the smallest indexed selection, and filter it using everything else
+            Set<T> smallest = null;
+            ViewExpression<T> selected = null;
+            for (ViewExpression<T> expression : expressions) {
+                Set<T> modelItems = expression.select(index, context);
+                if (modelItems != null && (smallest == null || modelItems.size() < smallest.size())) {
+                    smallest = modelItems;
+                    selected = expression;
+                }
+            }
+
+            if (smallest == null) {
+                return null;
+            }
+
+            Set<T> result = new LinkedHashSet<>();
+            for (T modelItem : smallest) {
+                boolean matches = true;
+                for (ViewExpression<T> expression : expressions) {
+                    if (expression != selected && !expression.matches(modelItem, context)) {
+                        matches = false;
+                        break;
+                    }
+                }
+
+                if (matches) {
+                    result.add(modelItem);
+                }
+            }
+
+            return result;
+        }
+
+    }
+
+    static final class Or<T extends ModelItem> extends ViewExpression<T> {
+
+        private final List<ViewExpression<T>> expressions;
+
+        Or(Class<T> type, List<ViewExpression<T>> expressions) {
+            super(type);
+            this.expressions = expressions;
+        }
+
+        @Override
+        ViewExpression<T> bind(DslContext context) {
+            List<ViewExpression<T>> boundExpressions = bindAll(expressions, context);
+
+            return boundExpressions != expressions ? new Or<>(getType(), boundExpressions) : this;
+        }
+
+        @Override
+        boolean matches(T modelItem, DslContext context) {
+            for (ViewExpression<T> expression : expressions) {
+                if (expression.matches(modelItem, context)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        Set<T> select(ModelIndex index, DslContext context) {
+            // the union can only be taken from the index if every alternative can
+            Set<T> result = new LinkedHashSet<>();
+            for (ViewExpression<T> expression : expressions) {
+                Set<T> modelItems = expression.select(index, context);
+                if (modelItems == null) {
+                    return null;
+                }
+
+                result.addAll(modelItems);
+            }
+
+            return result;
+        }
+
+    }
+
+    static final class Not<T extends ModelItem> extends ViewExpression<T> {
+
+        private final ViewExpression<T> expression;
+
+        Not(ViewExpression<T> expression) {
+            super(expression.getType());
+            this.expression = expression;
+        }
+
+        @Override
+        ViewExpression<T> bind(DslContext context) {
+            ViewExpression<T> boundExpression = expression.bind(context);
+
+            return boundExpression != expression ? new Not<>(boundExpression) : this;
+        }
+
+        @Override
+        boolean matches(T modelItem, DslContext context) {
+            return !expression.matches(modelItem, context);
+        }
+
+    }
+
+    static final class ElementTag extends ViewExpression<Element> {
+
+        private final String[] tags;
+
+        ElementTag(String[] tags) {
+            super(Element.class);
+            this.tags = tags;
+        }
+
+        @Override
+        boolean matches(Element element, DslContext context) {
+            return hasAllTags(element, tags);
+        }
+
+        @Override
+        Set<Element> select(ModelIndex index, DslContext context) {
+            return index.getElementsWithAllTags(tags);
+        }
+
+    }
+
+    static final class ElementType extends ViewExpression<Element> {
+
+        private final Class<? extends Element> elementType;
+
+        ElementType(Class<? extends Element> elementType) {
+            super(Element.class);
+            this.elementType = elementType;
+        }
+
+        @Override
+        boolean matches(Element element, DslContext context) {
+            return element.getClass() == elementType;
+        }
+
+        @Override
+        Set<Element> select(ModelIndex index, DslContext context) {
+            return index.getElementsOfType(elementType);
+        }
+
+    }
+
+    static final class ElementParent extends ViewExpression<Element> {
+
+        private final String identifier;
+        private final Element parent;
+
+        ElementParent(String identifier) {
+            this(identifier, null);
+        }
+
+        private ElementParent(String identifier, Element parent) {
+            super(Element.class);
+            this.identifier = identifier;
+            this.parent = parent;
+        }
+
+        @Override
+        ViewExpression<Element> bind(DslContext context) {
+            return new ElementParent(identifier, findElement(context, identifier));
+        }
+
+        @Override
+        boolean matches(Element element, DslContext context) {
+            return element.getParent() == getParent(context);
+        }
+
+        @Override
+        Set<Element> select(ModelIndex index, DslContext context) {
+            return index.getElementsWithParent(getParent(context));
+        }
+
+        private Element getParent(DslContext context) {
+            return parent != null ? parent : findElement(context, identifier);
+        }
+
+    }
+
+    static final class ElementEnvironment extends ViewExpression<Element> {
+
+        private final String environment;
+
+        ElementEnvironment(String environment) {
+            super(Element.class);
+            this.environment = environment;
+        }
+
+        @Override
+        boolean matches(Element element, DslContext context) {
+            return element instanceof DeploymentElement && environment.equals(((DeploymentElement)element).getEnvironment());
+        }
+
+        @Override
+        Set<Element> select(ModelIndex index, DslContext context) {
+            return index.getElementsInEnvironment(environment);
+        }
+
+    }
+
+    static final class ElementDeploymentGroup extends ViewExpression<Element> {
+
+        private final String identifier;
+        private final DeploymentGroup deploymentGroup;
+
+        ElementDeploymentGroup(String identifier) {
+            this(identifier, null);
+        }
+
+        private ElementDeploymentGroup(String identifier, DeploymentGroup deploymentGroup) {
+            super(Element.class);
+            this.identifier = identifier;
+            this.deploymentGroup = deploymentGroup;
+        }
+
+        @Override
+        ViewExpression<Element> bind(DslContext context) {
+            return new ElementDeploymentGroup(identifier, findDeploymentGroup(context));
+        }
+
+        @Override
+        boolean matches(Element element, DslContext context) {
+            if (element instanceof StaticStructureElementInstance) {
+                StaticStructureElementInstance instance = (StaticStructureElementInstance)element;
+                DeploymentGroup deploymentGroup = findDeploymentGroup(context);
+
+                return deploymentGroup.getEnvironment().equals(instance.getEnvironment()) && deploymentGroup.getName().equals(instance.getDeploymentGroup());
+            }
+
+            return false;
+        }
+
+        @Override
+        Set<Element> select(ModelIndex index, DslContext context) {
+            DeploymentGroup deploymentGroup = findDeploymentGroup(context);
+
+            return index.getElementsInDeploymentGroup(deploymentGroup.getEnvironment(), deploymentGroup.getName());
+        }
+
+        private DeploymentGroup findDeploymentGroup(DslContext context) {
+            if (deploymentGroup != null) {
+                return deploymentGroup;
+            }
+
+            Element element = findElement(context, identifier);
+            if (!(element instanceof DeploymentGroup)) {
+                throw new RuntimeException("The element \"" + identifier + "\" is not a deployment group");
+            }
+
+            return (DeploymentGroup)element;
+        }
+
+    }
+
+    static final class ElementInstanceOf extends ViewExpression<Element> {
+
+        private final String identifier;
+        private final Element element;
+
+        ElementInstanceOf(String identifier) {
+            this(identifier, null);
+        }
+
+        private ElementInstanceOf(String identifier, Element element) {
+            super(Element.class);
+            this.identifier = identifier;
+            this.element = element;
+        }
+
+        @Override
+        ViewExpression<Element> bind(DslContext context) {
+            return new ElementInstanceOf(identifier, findElement(context, identifier));
+        }
+
+        @Override
+        boolean matches(Element element, DslContext context) {
+            return element instanceof StaticStructureElementInstance && ((StaticStructureElementInstance)element).getElement() == getElement(context);
+        }
+
+        @Override
+        Set<Element> select(ModelIndex index, DslContext context) {
+            return index.getInstancesOf(getElement(context));
+        }
+
+        private Element getElement(DslContext context) {
+            return element != null ? element : findElement(context, identifier);
+        }
+
+    }
+
+    static final class RelationshipTag extends ViewExpression<Relationship> {
+
+        private final String[] tags;
+
+        RelationshipTag(String[] tags) {
+            super(Relationship.class);
+            this.tags = tags;
+        }
+
+        @Override
+        boolean matches(Relationship relationship, DslContext context) {
+            return hasAllTags(relationship, tags);
+        }
+
+        @Override
+        Set<Relationship> select(ModelIndex index, DslContext context) {
+            return index.getRelationshipsWithAllTags(tags);
+        }
+
+    }
+
+    static final class RelationshipSource extends ViewExpression<Relationship> {
+
+        private final String identifier;
+        private final Element source;
+
+        RelationshipSource(String identifier) {
+            this(identifier, null);
+        }
+
+        private RelationshipSource(String identifier, Element source) {
+            super(Relationship.class);
+            this.identifier = identifier;
+            this.source = source;
+        }
+
+        @Override
+        ViewExpression<Relationship> bind(DslContext context) {
+            return new RelationshipSource(identifier, findElement(context, identifier));
+        }
+
+        @Override
+        boolean matches(Relationship relationship, DslContext context) {
+            return relationship.getSource() == getSource(context);
+        }
+
+        @Override
+        Set<Relationship> select(ModelIndex index, DslContext context) {
+            return index.getRelationshipsFrom(getSource(context));
+        }
+
+        private Element getSource(DslContext context) {
+            return source != null ? source : findElement(context, identifier);
+        }
+
+    }
+
+    static final class RelationshipDestination extends ViewExpression<Relationship> {
+
+        private final String identifier;
+        private final Element destination;
+
+        RelationshipDestination(String identifier) {
+            this(identifier, null);
+        }
+
+        private RelationshipDestination(String identifier, Element destination) {
+            super(Relationship.class);
+            this.identifier = identifier;
+            this.destination = destination;
+        }
+
+        @Override
+        ViewExpression<Relationship> bind(DslContext context) {
+            return new RelationshipDestination(identifier, findElement(context, identifier));
+        }
+
+        @Override
+        boolean matches(Relationship relationship, DslContext context) {
+            return relationship.getDestination() == getDestination(context);
+        }
+
+        @Override
+        Set<Relationship> select(ModelIndex index, DslContext context) {
+            return index.getRelationshipsTo(getDestination(context));
+        }
+
+        private Element getDestination(DslContext context) {
+            return destination != null ? destination : findElement(context, identifier);
+        }
+
+    }
+
+    private static boolean hasAllTags(ModelItem modelItem, String[] tags) {
+        for (String tag : tags) {
+            if (!modelItem.hasTag(tag.trim())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+}
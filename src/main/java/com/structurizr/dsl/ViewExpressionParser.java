@@ -0,0 +1,224 @@
+package com.structurizr.dsl;
+
+import com.structurizr.model.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.structurizr.dsl.StructurizrDslExpressions.*;
+
+/**
+ * Compiles view expressions such as "element.type==Container && !element.tag==Database" into a tree of predicates,
+ * caching the result by the text of the expression (views often use the same expressions many times).
+ *
+ * The grammar is:
+ *
+ *   expression := and ("||" and)*
+ *   and        := unary ("&&" unary)*
+ *   unary      := "!" unary | "(" expression ")" | property ("==" | "!=") value
+ */
+final class ViewExpressionParser {
+
+    private static final Map<String, Class<? extends Element>> ELEMENT_TYPES = new HashMap<>();
+
+    static {
+        ELEMENT_TYPES.put("custom", CustomElement.class);
+        ELEMENT_TYPES.put("person", Person.class);
+        ELEMENT_TYPES.put("softwaresystem", SoftwareSystem.class);
+        ELEMENT_TYPES.put("container", Container.class);
+        ELEMENT_TYPES.put("component", Component.class);
+        ELEMENT_TYPES.put("deploymentnode", DeploymentNode.class);
+        ELEMENT_TYPES.put("infrastructurenode", InfrastructureNode.class);
+        ELEMENT_TYPES.put("softwaresysteminstance", SoftwareSystemInstance.class);
+        ELEMENT_TYPES.put("containerinstance", ContainerInstance.class);
+    }
+
+    // views can be resolved concurrently, and compiled expressions are immutable
+    private final Map<String, ViewExpression<?>> expressions = new ConcurrentHashMap<>();
+
+    /**
+     * Determines whether the specified token is an expression, rather than an identifier (identifiers can't contain "=").
+     */
+    static boolean isExpression(String token) {
+        return token.contains(EQUALS) || token.contains(NOT_EQUALS);
+    }
+
+    ViewExpression<?> parse(String expression) {
+        ViewExpression<?> compiledExpression = expressions.get(expression);
+        if (compiledExpression == null) {
+            compiledExpression = new Compiler(expression).compile();
+            expressions.put(expression, compiledExpression);
+        }
+
+        return compiledExpression;
+    }
+
+    private static final class Compiler {
+
+        private final String expression;
+        private int position = 0;
+        private int depth = 0;
+
+        private Compiler(String expression) {
+            this.expression = expression;
+        }
+
+        private ViewExpression<?> compile() {
+            ViewExpression<?> result = parseOr();
+
+            skipWhitespace();
+            if (position < expression.length()) {
+                throw error("unexpected \"" + expression.substring(position) + "\"");
+            }
+
+            return result;
+        }
+
+        private ViewExpression<?> parseOr() {
+            List<ViewExpression<?>> alternatives = new ArrayList<>();
+            alternatives.add(parseAnd());
+            while (consume(OR)) {
+                alternatives.add(parseAnd());
+            }
+
+            return combine(alternatives, false);
+        }
+
+        private ViewExpression<?> parseAnd() {
+            List<ViewExpression<?>> conditions = new ArrayList<>();
+            conditions.add(parseUnary());
+            while (consume(AND)) {
+                conditions.add(parseUnary());
+            }
+
+            return combine(conditions, true);
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private ViewExpression<?> parseUnary() {
+            if (consume(NOT)) {
+                return new ViewExpression.Not(parseUnary());
+            }
+
+            if (consume("(")) {
+                depth++;
+                ViewExpression<?> result = parseOr();
+                if (!consume(")")) {
+                    throw error("expected \")\"");
+                }
+                depth--;
+
+                return result;
+            }
+
+            return parseProperty();
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private ViewExpression<?> combine(List<ViewExpression<?>> expressions, boolean and) {
+            if (expressions.size() == 1) {
+                return expressions.get(0);
+            }
+
+            Class type = expressions.get(0).getType();
+            for (ViewExpression<?> expression : expressions) {
+                if (expression.getType() != type) {
+                    throw error("element and relationship properties can't be combined");
+                }
+            }
+
+            return and ? new ViewExpression.And(type, expressions) : new ViewExpression.Or(type, expressions);
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private ViewExpression<?> parseProperty() {
+            skipWhitespace();
+
+            int equals = expression.indexOf(EQUALS, position);
+            int notEquals = expression.indexOf(NOT_EQUALS, position);
+            int operator = equals == -1 ? notEquals : (notEquals == -1 ? equals : Math.min(equals, notEquals));
+            if (operator == -1) {
+                throw error("expected <property>==<value> or <property>!=<value>");
+            }
+
+            String property = expression.substring(position, operator).trim().toLowerCase();
+            boolean negated = operator == notEquals;
+            position = operator + EQUALS.length();
+            String value = parseValue();
+
+            ViewExpression<?> result;
+            switch (property) {
+                case ELEMENT_TAG:
+                    result = new ViewExpression.ElementTag(value.split(","));
+                    break;
+                case ELEMENT_TYPE:
+                    Class<? extends Element> elementType = ELEMENT_TYPES.get(value.toLowerCase());
+                    if (elementType == null) {
+                        throw error("the element type \"" + value + "\" is not valid");
+                    }
+                    result = new ViewExpression.ElementType(elementType);
+                    break;
+                case ELEMENT_PARENT:
+                    result = new ViewExpression.ElementParent(value);
+                    break;
+                case ELEMENT_DEPLOYMENT_GROUP:
+                    result = new ViewExpression.ElementDeploymentGroup(value);
+                    break;
+                case ELEMENT_INSTANCE_OF:
+                    result = new ViewExpression.ElementInstanceOf(value);
+                    break;
+                case RELATIONSHIP_TAG:
+                    result = new ViewExpression.RelationshipTag(value.split(","));
+                    break;
+                case RELATIONSHIP_SOURCE:
+                    result = new ViewExpression.RelationshipSource(value);
+                    break;
+                case RELATIONSHIP_DESTINATION:
+                    result = new ViewExpression.RelationshipDestination(value);
+                    break;
+                default:
+                    throw error("the property \"" + property + "\" is not valid");
+            }
+
+            return negated ? new ViewExpression.Not(result) : result;
+        }
+
+        private String parseValue() {
+            // the value runs until the next operator, or the closing parenthesis of the enclosing group
+            int end = position;
+            while (end < expression.length()
+                    && !expression.startsWith(AND, end)
+                    && !expression.startsWith(OR, end)
+                    && !(depth > 0 && expression.charAt(end) == ')')) {
+                end++;
+            }
+
+            String value = expression.substring(position, end).trim();
+            position = end;
+
+            return value;
+        }
+
+        private boolean consume(String s) {
+            skipWhitespace();
+            if (expression.startsWith(s, position)) {
+                position += s.length();
+                return true;
+            }
+
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+                position++;
+            }
+        }
+
+        private RuntimeException error(String message) {
+            return new RuntimeException("The expression \"" + expression + "\" is not valid: " + message);
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.structurizr.dsl;
+
+import com.structurizr.Workspace;
+import com.structurizr.model.DeploymentNode;
+import com.structurizr.view.View;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes the views in a workspace by key, and the names of the deployment environments that contain deployment
+ * nodes, so that view definitions can be checked without scanning every view or deployment node in the workspace.
+ *
+ * The parser adds views and deployment environments as they are defined.
+ */
+final class WorkspaceIndex {
+
+    private final Map<String, View> viewsByKey = new HashMap<>();
+    private final Set<String> deploymentEnvironments = new HashSet<>();
+
+    WorkspaceIndex() {
+    }
+
+    /**
+     * Creates an index of the views and deployment environments that already exist in the specified workspace.
+     */
+    WorkspaceIndex(Workspace workspace) {
+        for (View view : workspace.getViews().getViews()) {
+            addView(view);
+        }
+
+        for (DeploymentNode deploymentNode : workspace.getModel().getDeploymentNodes()) {
+            addDeploymentEnvironment(deploymentNode.getEnvironment());
+        }
+    }
+
+    void addView(View view) {
+        viewsByKey.put(view.getKey(), view);
+    }
+
+    View getView(String key) {
+        return viewsByKey.get(key);
+    }
+
+    void addDeploymentEnvironment(String environment) {
+        deploymentEnvironments.add(environment);
+    }
+
+    /**
+     * Determines whether the specified deployment environment contains any deployment nodes.
+     */
+    boolean hasDeploymentEnvironment(String environment) {
+        return deploymentEnvironments.contains(environment);
+    }
+
+}
@@ -107,7 +107,7 @@ class ContainerInstanceParserTests extends AbstractTests {
         DeploymentNodeDslContext context = new DeploymentNodeDslContext(deploymentNode);
         Map<String, Element> elements = new HashMap<>();
         elements.put("container", container);
-        elements.put("group", new DeploymentGroup("Group"));
+        elements.put("group", new DeploymentGroup("Group", "Live"));
         context.setElements(elements);
 
         parser.parse(context, tokens("containerInstance", "container", "group"));
@@ -129,7 +129,7 @@ class ContainerInstanceParserTests extends AbstractTests {
         DeploymentNodeDslContext context = new DeploymentNodeDslContext(deploymentNode);
         Map<String, Element> elements = new HashMap<>();
         elements.put("container", container);
-        elements.put("group", new DeploymentGroup("Group"));
+        elements.put("group", new DeploymentGroup("Group", "Live"));
         context.setElements(elements);
 
         parser.parse(context, tokens("containerInstance", "container", "group", "Tag 1, Tag 2"));
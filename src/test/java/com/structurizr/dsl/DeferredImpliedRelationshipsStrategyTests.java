@@ -0,0 +1,84 @@
+package com.structurizr.dsl;
+
+import com.structurizr.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeferredImpliedRelationshipsStrategyTests extends AbstractTests {
+
+    private DeferredImpliedRelationshipsStrategy strategy = new DeferredImpliedRelationshipsStrategy();
+
+    @BeforeEach
+    void setUp() {
+        model.setImpliedRelationshipsStrategy(strategy);
+    }
+
+    @Test
+    void test_createPendingImpliedRelationships() {
+        Person user = model.addPerson("User");
+        SoftwareSystem softwareSystem = model.addSoftwareSystem("Software System");
+        Container container = softwareSystem.addContainer("Container");
+        Component component = container.addComponent("Component");
+        user.uses(component, "Uses", "HTTPS");
+        assertEquals(1, model.getRelationships().size());
+
+        strategy.createPendingImpliedRelationships();
+        assertEquals(3, model.getRelationships().size());
+        Relationship relationship = user.getEfferentRelationshipWith(softwareSystem);
+        assertEquals("Uses", relationship.getDescription());
+        assertEquals("HTTPS", relationship.getTechnology());
+        assertTrue(user.hasEfferentRelationshipWith(container));
+    }
+
+    @Test
+    void test_createPendingImpliedRelationships_DoesNotCreateImpliedRelationshipsWhenAnyRelationshipAlreadyExists() {
+        SoftwareSystem a = model.addSoftwareSystem("A");
+        Container a1 = a.addContainer("A1");
+        SoftwareSystem b = model.addSoftwareSystem("B");
+        Container b1 = b.addContainer("B1");
+        Container b2 = b.addContainer("B2");
+
+        a.uses(b, "Uses");
+        a1.uses(b1, "Reads from");
+        a1.uses(b2, "Writes to");
+        b1.uses(b2, "Calls");
+        strategy.createPendingImpliedRelationships();
+
+        assertEquals(7, model.getRelationships().size());
+        assertEquals("Uses", a.getEfferentRelationshipWith(b).getDescription());
+        assertEquals("Writes to", a.getEfferentRelationshipWith(b2).getDescription());
+        assertEquals("Reads from", a1.getEfferentRelationshipWith(b).getDescription());
+        assertFalse(b1.hasEfferentRelationshipWith(b));
+    }
+
+    @Test
+    void test_setEnabled_CreatesPendingImpliedRelationships_WhenDisabled() {
+        SoftwareSystem a = model.addSoftwareSystem("A");
+        Container a1 = a.addContainer("A1");
+        SoftwareSystem b = model.addSoftwareSystem("B");
+        Container b1 = b.addContainer("B1");
+
+        a1.uses(b1, "Uses");
+        strategy.setEnabled(false);
+        assertTrue(a.hasEfferentRelationshipWith(b));
+
+        b1.uses(a1, "Uses");
+        strategy.createPendingImpliedRelationships();
+        assertFalse(b.hasEfferentRelationshipWith(a));
+    }
+
+    @Test
+    void test_end_ReturnsTheImmediateStrategy() {
+        SoftwareSystem a = model.addSoftwareSystem("A");
+        Container a1 = a.addContainer("A1");
+        SoftwareSystem b = model.addSoftwareSystem("B");
+
+        a1.uses(b, "Uses");
+        model.setImpliedRelationshipsStrategy(strategy.end());
+        assertTrue(a.hasEfferentRelationshipWith(b));
+        assertTrue(model.getImpliedRelationshipsStrategy() instanceof CreateImpliedRelationshipsUnlessAnyRelationshipExistsStrategy);
+    }
+
+}
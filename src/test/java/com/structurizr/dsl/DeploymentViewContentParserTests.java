@@ -20,7 +20,7 @@ class DeploymentViewContentParserTests extends AbstractTests {
             parser.parseInclude(new DeploymentViewDslContext(null), tokens("include"));
             fail();
         } catch (RuntimeException iae) {
-            assertEquals("Expected: include <*|identifier> [identifier...] or include <*|identifier> -> <*|identifier>", iae.getMessage());
+            assertEquals("Expected: include <*|identifier|expression> [identifier|expression...] or include <*|identifier> -> <*|identifier>", iae.getMessage());
         }
     }
 
@@ -207,13 +207,104 @@ class DeploymentViewContentParserTests extends AbstractTests {
         assertNotNull(view.getElementView(containerInstance));
     }
 
+    @Test
+    void test_parseInclude_AddsTheElementsInTheDeploymentEnvironmentWithTheSpecifiedTag() {
+        SoftwareSystem ss1 = model.addSoftwareSystem("SS1", "Description");
+        Container c1 = ss1.addContainer("C1", "Description", "Technology");
+        Container c2 = ss1.addContainer("C2", "Description", "Technology");
+
+        DeploymentNode dev1 = model.addDeploymentNode("Dev", "Dev 1", "Description", "Technology");
+        dev1.add(c1).addTags("Tag");
+
+        DeploymentNode live1 = model.addDeploymentNode("Live", "Live 1", "Description", "Technology");
+        DeploymentNode live2 = live1.addDeploymentNode("Live 2", "Description", "Technology");
+        ContainerInstance live3 = live2.add(c1);
+        live3.addTags("Tag");
+        live2.add(c2);
+
+        DeploymentView view = views.createDeploymentView("key", "Description");
+        view.setEnvironment("Live");
+        DeploymentViewDslContext context = new DeploymentViewDslContext(view);
+        context.setWorkspace(workspace);
+
+        parser.parseInclude(context, tokens("include", "element.tag==Tag"));
+
+        assertEquals(3, view.getElements().size());
+        assertTrue(view.getElements().stream().anyMatch(ev -> ev.getElement().equals(live1)));
+        assertTrue(view.getElements().stream().anyMatch(ev -> ev.getElement().equals(live2)));
+        assertTrue(view.getElements().stream().anyMatch(ev -> ev.getElement().equals(live3)));
+    }
+
+    @Test
+    void test_parseInclude_AddsTheInstancesInTheSpecifiedDeploymentGroup() {
+        SoftwareSystem ss1 = model.addSoftwareSystem("SS1", "Description");
+        Container c1 = ss1.addContainer("C1", "Description", "Technology");
+        Container c2 = ss1.addContainer("C2", "Description", "Technology");
+
+        DeploymentNode live1 = model.addDeploymentNode("Live", "Live 1", "Description", "Technology");
+        ContainerInstance live2 = live1.add(c1, "Group 1");
+        ContainerInstance live3 = live1.add(c1, "Group 2");
+        ContainerInstance live4 = live1.add(c2, "Group 1");
+
+        Map<String, Element> elements = new HashMap<>();
+        elements.put("c1", c1);
+        elements.put("group1", new DeploymentGroup("Group 1", "Live"));
+
+        DeploymentView view = views.createDeploymentView("key", "Description");
+        view.setEnvironment("Live");
+        DeploymentViewDslContext context = new DeploymentViewDslContext(view);
+        context.setWorkspace(workspace);
+        context.setElements(elements);
+
+        parser.parseInclude(context, tokens("include", "element.instanceOf==c1 && element.deploymentGroup==group1"));
+
+        assertEquals(2, view.getElements().size());
+        assertTrue(view.getElements().stream().anyMatch(ev -> ev.getElement().equals(live1)));
+        assertTrue(view.getElements().stream().anyMatch(ev -> ev.getElement().equals(live2)));
+
+        try {
+            parser.parseInclude(context, tokens("include", "element.deploymentGroup==c1"));
+            fail();
+        } catch (RuntimeException re) {
+            assertEquals("The element \"c1\" is not a deployment group", re.getMessage());
+        }
+    }
+
+    @Test
+    void test_parseExclude_RemovesTheElementsWithTheSpecifiedTag() {
+        SoftwareSystem ss1 = model.addSoftwareSystem("SS1", "Description");
+        Container c1 = ss1.addContainer("C1", "Description", "Technology");
+        Container c2 = ss1.addContainer("C2", "Description", "Technology");
+        c1.uses(c2, "Uses");
+
+        DeploymentNode live1 = model.addDeploymentNode("Live", "Live 1", "Description", "Technology");
+        ContainerInstance live2 = live1.add(c1);
+        ContainerInstance live3 = live1.add(c2);
+        live3.addTags("Tag");
+
+        DeploymentView view = views.createDeploymentView("key", "Description");
+        view.setEnvironment("Live");
+        view.add(live1);
+        assertEquals(3, view.getElements().size());
+        assertEquals(1, view.getRelationships().size());
+
+        DeploymentViewDslContext context = new DeploymentViewDslContext(view);
+        context.setWorkspace(workspace);
+
+        parser.parseExclude(context, tokens("exclude", "element.tag==Tag"));
+
+        assertEquals(2, view.getElements().size());
+        assertTrue(view.getElements().stream().noneMatch(ev -> ev.getElement().equals(live3)));
+        assertEquals(0, view.getRelationships().size());
+    }
+
     @Test
     void test_parseExclude_ThrowsAnException_WhenTheNoElementsAreSpecified() {
         try {
             parser.parseExclude(new DeploymentViewDslContext(null), tokens("exclude"));
             fail();
         } catch (RuntimeException iae) {
-            assertEquals("Expected: exclude <identifier> [identifier...] or exclude <*|identifier> -> <*|identifier>", iae.getMessage());
+            assertEquals("Expected: exclude <identifier|expression> [identifier|expression...] or exclude <*|identifier> -> <*|identifier>", iae.getMessage());
         }
     }
 
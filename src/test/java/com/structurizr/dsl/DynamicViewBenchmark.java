@@ -0,0 +1,43 @@
+package com.structurizr.dsl;
+
+/**
+ * Measures the time taken to parse a dynamic view whose steps create relationships in the model, which requires
+ * the model index to be kept up to date after every step.
+ *
+ * Usage: java com.structurizr.dsl.DynamicViewBenchmark [number of elements] [number of steps] [iterations]
+ */
+public class DynamicViewBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int numberOfElements = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        int numberOfSteps = args.length > 1 ? Integer.parseInt(args[1]) : 1500;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        StringBuilder dsl = new StringBuilder();
+        dsl.append("workspace {\n");
+        dsl.append("    model {\n");
+        for (int i = 0; i < numberOfElements; i++) {
+            dsl.append("        s").append(i).append(" = softwareSystem \"Software System ").append(i).append("\"\n");
+        }
+        dsl.append("    }\n");
+        dsl.append("    views {\n");
+        dsl.append("        dynamic * {\n");
+        for (int i = 0; i < numberOfSteps; i++) {
+            dsl.append("            s").append(i % numberOfElements).append(" -> s").append((i + 1) % numberOfElements).append(" \"Step ").append(i).append("\"\n");
+        }
+        dsl.append("        }\n");
+        dsl.append("    }\n");
+        dsl.append("}\n");
+
+        String source = dsl.toString();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            StructurizrDslParser parser = new StructurizrDslParser();
+            parser.parse(source);
+            long time = System.nanoTime() - start;
+
+            System.out.println("Iteration " + (i + 1) + ": " + (time / 1000000) + " ms (" + parser.getWorkspace().getModel().getRelationships().size() + " relationships)");
+        }
+    }
+
+}
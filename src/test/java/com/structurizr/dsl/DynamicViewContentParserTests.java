@@ -196,4 +196,28 @@ class DynamicViewContentParserTests extends AbstractTests {
         assertEquals("1", rv.getOrder());
     }
 
-}
\ No newline at end of file
+    @Test
+    void test_parseRelationship_UsesTheRelationshipsAddedByEarlierSteps() {
+        Person user = model.addPerson("User", "Description");
+        SoftwareSystem softwareSystem = model.addSoftwareSystem("Software System", "Description");
+        DynamicView view = views.createDynamicView("key", "Description");
+        DynamicViewDslContext context = new DynamicViewDslContext(view);
+        ModelIndex modelIndex = new ModelIndex(model);
+        context.setModelIndex(modelIndex);
+
+        Map<String, Element> elements = new HashMap<>();
+        elements.put("source", user);
+        elements.put("destination", softwareSystem);
+        context.setElements(elements);
+
+        assertFalse(modelIndex.hasRelationship(user, softwareSystem));
+        parser.parseRelationship(context, tokens("source", "->", "destination", "Requests"));
+        parser.parseRelationship(context, tokens("destination", "->", "source", "Responds"));
+
+        // the index picks up the relationship created by the first step, so the second step doesn't create another
+        assertEquals(1, model.getRelationships().size());
+        assertTrue(modelIndex.hasRelationship(user, softwareSystem));
+        assertEquals(2, view.getRelationships().size());
+    }
+
+}
@@ -9,6 +9,10 @@ import com.structurizr.view.ViewSet;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,6 +40,41 @@ class ExampleTests extends AbstractTests {
         assertNotNull(user);
     }
 
+    @Test
+    void test_utf8_FromAnInputStream() throws Exception {
+        StructurizrDslParser parser = new StructurizrDslParser();
+        try (InputStream in = new FileInputStream("examples/utf8.dsl")) {
+            parser.parse(in, StandardCharsets.UTF_8);
+        }
+
+        Model model = parser.getWorkspace().getModel();
+
+        assertEquals(1, model.getPeople().size());
+        assertNotNull(model.getPersonWithName("你好 Usér \uD83D\uDE42"));
+    }
+
+    @Test
+    void test_parse_FromAReader() throws Exception {
+        StructurizrDslParser parser = new StructurizrDslParser();
+        parser.parse(new StringReader("workspace {\r\n    model {\r\n        user = person \"User\"\r\n    }\r\n}"));
+
+        Workspace workspace = parser.getWorkspace();
+        assertNotNull(workspace.getModel().getPersonWithName("User"));
+        assertTrue(DslUtils.getDsl(workspace).startsWith("workspace {" + System.lineSeparator() + "    model {"));
+    }
+
+    @Test
+    void test_parse_FromAReader_ReportsTheLineNumber() {
+        StructurizrDslParser parser = new StructurizrDslParser();
+
+        try {
+            parser.parse(new StringReader("workspace {\n    model {\n        container \"Name\"\n    }\n}"));
+            fail();
+        } catch (StructurizrDslParserException e) {
+            assertEquals("Unexpected tokens at line 3: container \"Name\"", e.getMessage());
+        }
+    }
+
     @Test
     void test_gettingstarted() throws Exception {
         StructurizrDslParser parser = new StructurizrDslParser();
@@ -344,6 +383,33 @@ class ExampleTests extends AbstractTests {
         assertEquals("#ffffff", softwareSystemStyle.getColor());
     }
 
+    @Test
+    void test_include_WhenMemoryMapped() throws Exception {
+        StructurizrDslParser parser = new StructurizrDslParser();
+        parser.parse(new File("examples/include.dsl"));
+        Workspace workspace = parser.getWorkspace();
+
+        StructurizrDslParser memoryMappedParser = new StructurizrDslParser();
+        memoryMappedParser.setMemoryMapped(true);
+        memoryMappedParser.parse(new File("examples/include.dsl"));
+        Workspace memoryMappedWorkspace = memoryMappedParser.getWorkspace();
+
+        assertEquals(DslUtils.getDsl(workspace), DslUtils.getDsl(memoryMappedWorkspace));
+        assertEquals(workspace.getModel().getElements().size(), memoryMappedWorkspace.getModel().getElements().size());
+        assertEquals(workspace.getModel().getRelationships().size(), memoryMappedWorkspace.getModel().getRelationships().size());
+        assertEquals(workspace.getViews().getViews().size(), memoryMappedWorkspace.getViews().getViews().size());
+        assertEquals(workspace.getViews().getConfiguration().getStyles().getElements().size(), memoryMappedWorkspace.getViews().getConfiguration().getStyles().getElements().size());
+    }
+
+    @Test
+    void test_utf8_WhenMemoryMapped() throws Exception {
+        StructurizrDslParser parser = new StructurizrDslParser();
+        parser.setMemoryMapped(true);
+        parser.parse(new File("examples/utf8.dsl"));
+
+        assertNotNull(parser.getWorkspace().getModel().getPersonWithName("你好 Usér \uD83D\uDE42"));
+    }
+
     @Test
     void test_include_WhenRunningInRestrictedMode() throws Exception {
         StructurizrDslParser parser = new StructurizrDslParser();
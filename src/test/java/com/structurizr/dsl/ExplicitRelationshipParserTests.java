@@ -184,4 +184,22 @@ class ExplicitRelationshipParserTests extends AbstractTests {
         assertEquals("Relationship,Tag 1,Tag 2", r.getTags());
     }
 
-}
\ No newline at end of file
+    @Test
+    void test_parse_DoesNotAddADuplicateRelationship() {
+        Person user = model.addPerson("User", "Description");
+        SoftwareSystem softwareSystem = model.addSoftwareSystem("Software System", "Description");
+        DslContext context = context();
+
+        Map<String, Element> elements = new HashMap<>();
+        elements.put("source", user);
+        elements.put("destination", softwareSystem);
+        context.setElements(elements);
+
+        assertNotNull(parser.parse(context, tokens("source", "->", "destination", "Uses")));
+
+        assertNull(parser.parse(context, tokens("source", "->", "destination", "uses", "HTTPS")));
+        assertNotNull(parser.parse(context, tokens("source", "->", "destination", "Reads from")));
+        assertEquals(2, model.getRelationships().size());
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.structurizr.dsl;
+
+import com.structurizr.model.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdentifiersRegisterTests extends AbstractTests {
+
+    private IdentifiersRegister register = new IdentifiersRegister();
+
+    @Test
+    void test_getElement_IgnoresCase() {
+        SoftwareSystem softwareSystem = model.addSoftwareSystem("Software System");
+        register.register("softwareSystem", softwareSystem);
+
+        assertSame(softwareSystem, register.getElement("softwareSystem"));
+        assertSame(softwareSystem, register.getElement("SOFTWARESYSTEM"));
+        assertSame(softwareSystem, register.getElement("softwaresystem"));
+        assertNull(register.getElement("softwareSystem2"));
+        assertNull(register.getElement(null));
+    }
+
+    @Test
+    void test_register_SharesTheNamespaceBetweenElementsAndRelationships() {
+        Person user = model.addPerson("User");
+        SoftwareSystem softwareSystem = model.addSoftwareSystem("Software System");
+        Relationship relationship = user.uses(softwareSystem, "Uses");
+        register.register("rel", relationship);
+
+        assertTrue(register.isRegistered("REL"));
+        assertSame(relationship, register.getRelationship("rel"));
+        assertNull(register.getElement("rel"));
+
+        try {
+            register.register("Rel", user);
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("The identifier \"Rel\" is already in use", e.getMessage());
+        }
+    }
+
+    @Test
+    void test_register_SupportsHierarchicalIdentifiers() {
+        SoftwareSystem softwareSystem = model.addSoftwareSystem("Software System");
+        Container container = softwareSystem.addContainer("Container");
+        Component component = container.addComponent("Component");
+
+        register.register("ss.container.component", component);
+        assertFalse(register.isRegistered("ss"));
+        assertFalse(register.isRegistered("ss.container"));
+
+        register.register("ss", softwareSystem);
+        register.register("ss.container", container);
+
+        assertSame(softwareSystem, register.getElement("ss"));
+        assertSame(container, register.getElement("SS.Container"));
+        assertSame(component, register.getElement("ss.CONTAINER.component"));
+        assertNull(register.getElement("ss.component"));
+        assertNull(register.getElement("ss.container.component.other"));
+        assertNull(register.getElement("ss."));
+    }
+
+    @Test
+    void test_register_GrowsTheTableOfChildren() {
+        for (int i = 0; i < 100; i++) {
+            register.register("element" + i, model.addPerson("Person " + i));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Person " + i, register.getElement("ELEMENT" + i).getName());
+        }
+    }
+
+}
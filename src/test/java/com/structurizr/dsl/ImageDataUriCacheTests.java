@@ -0,0 +1,88 @@
+package com.structurizr.dsl;
+
+import com.structurizr.util.ImageUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageDataUriCacheTests extends AbstractTests {
+
+    @TempDir
+    File directory;
+
+    @BeforeEach
+    @AfterEach
+    void clear() {
+        ImageDataUriCache.setMaximumSize(16 * 1024 * 1024);
+        ImageDataUriCache.clear();
+    }
+
+    @Test
+    void test_getImageAsDataUri_ReturnsTheSameDataUri_WhenTheImageHasNotChanged() throws Exception {
+        File file = new File("examples/logo.png");
+        String dataUri = ImageDataUriCache.getImageAsDataUri(file);
+
+        assertEquals(ImageUtils.getImageAsDataUri(file), dataUri);
+        assertSame(dataUri, ImageDataUriCache.getImageAsDataUri(new File(new File("examples", "."), "logo.png")));
+        assertEquals(dataUri.length(), ImageDataUriCache.getSize());
+    }
+
+    @Test
+    void test_getImageAsDataUri_ReadsTheImageAgain_WhenTheImageHasChanged() throws Exception {
+        File file = new File(directory, "icon.png");
+        ImageIO.write(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), "png", file);
+        String dataUri = ImageDataUriCache.getImageAsDataUri(file);
+
+        long lastModified = file.lastModified();
+        ImageIO.write(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB), "png", file);
+        file.setLastModified(lastModified + 1000);
+        assertNotEquals(dataUri, ImageDataUriCache.getImageAsDataUri(file));
+        assertEquals(ImageUtils.getImageAsDataUri(file), ImageDataUriCache.getImageAsDataUri(file));
+    }
+
+    @Test
+    void test_getImageAsDataUri_ReadsTheImageAgain_WhenTheCacheHasBeenCleared() throws Exception {
+        File file = new File("examples/logo.png");
+        String dataUri = ImageDataUriCache.getImageAsDataUri(file);
+
+        ImageDataUriCache.clear();
+        assertEquals(0, ImageDataUriCache.getSize());
+        assertNotSame(dataUri, ImageDataUriCache.getImageAsDataUri(file));
+    }
+
+    @Test
+    void test_getImageAsDataUri_EvictsTheLeastRecentlyUsedImages_WhenTheCacheIsFull() throws Exception {
+        File file1 = new File(directory, "1.png");
+        File file2 = new File(directory, "2.png");
+        ImageIO.write(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), "png", file1);
+        ImageIO.write(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), "png", file2);
+
+        String dataUri1 = ImageDataUriCache.getImageAsDataUri(file1);
+        ImageDataUriCache.setMaximumSize(dataUri1.length());
+
+        String dataUri2 = ImageDataUriCache.getImageAsDataUri(file2);
+        assertEquals(dataUri2.length(), ImageDataUriCache.getSize());
+        assertSame(dataUri2, ImageDataUriCache.getImageAsDataUri(file2));
+        assertNotSame(dataUri1, ImageDataUriCache.getImageAsDataUri(file1));
+    }
+
+    @Test
+    void test_getImageAsDataUri_UsesTheContentTypeOfTheSpecifiedFile() throws Exception {
+        File file = new File(directory, "icon.png");
+        ImageIO.write(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), "png", file);
+        File link = new File(directory, "icon.jpg");
+        Files.createSymbolicLink(link.toPath(), file.toPath());
+
+        assertEquals(ImageUtils.getImageAsDataUri(link), ImageDataUriCache.getImageAsDataUri(link));
+        assertTrue(ImageDataUriCache.getImageAsDataUri(link).startsWith("data:image/jpeg;"));
+    }
+
+}
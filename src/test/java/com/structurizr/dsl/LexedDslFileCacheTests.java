@@ -0,0 +1,139 @@
+package com.structurizr.dsl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LexedDslFileCacheTests extends AbstractTests {
+
+    @TempDir
+    File directory;
+
+    private LexedDslFileCache cache = new LexedDslFileCache();
+
+    @Test
+    void test_get_ReturnsTheCachedFile_WhenTheFileHasNotChanged() throws Exception {
+        File file = write("a.dsl", "workspace {", "}");
+
+        LexedDslFile lexedFile = cache.get(file);
+        assertEquals(2, lexedFile.getLines().size());
+        assertEquals("workspace", lexedFile.getLines().get(0).getToken(0));
+        assertSame(lexedFile, cache.get(file));
+    }
+
+    @Test
+    void test_get_LexesTheFileAgain_WhenTheFileHasChanged() throws Exception {
+        File file = write("a.dsl", "workspace {", "}");
+        LexedDslFile lexedFile = cache.get(file);
+
+        write("a.dsl", "workspace \"Name\" {", "}");
+        assertNotSame(lexedFile, cache.get(file));
+        assertEquals("Name", cache.get(file).getLines().get(0).getToken(1));
+    }
+
+    @Test
+    void test_get_ReturnsTheFileAsRequested_WhenTheSameFileIsReferencedViaADifferentPath() throws Exception {
+        File file = write("a.dsl", "workspace {", "}");
+        File otherPath = new File(new File(directory, "."), "a.dsl");
+
+        LexedDslFile lexedFile = cache.get(file);
+        assertEquals(file, lexedFile.getFile());
+        assertSame(otherPath, cache.get(otherPath).getFile());
+        assertSame(lexedFile.getLines(), cache.get(otherPath).getLines());
+    }
+
+    @Test
+    void test_getSize_IncludesTheTextOfEveryLineAndToken() throws Exception {
+        File file = write("a.dsl", "workspace {", "    model {", "        user = person \"User\" \"A user of the system\"", "    }", "}");
+        cache.get(file);
+
+        assertEquals(LexedDslFile.lex(file).getEstimatedSize(), cache.getSize());
+        assertTrue(cache.getSize() > 2 * file.length());
+    }
+
+    @Test
+    void test_construction_ThrowsAnException_WhenTheMaximumSizeIsNotPositive() {
+        try {
+            new LexedDslFileCache(0);
+            fail();
+        } catch (Exception e) {
+            assertEquals("The maximum size must be greater than zero", e.getMessage());
+        }
+    }
+
+    @Test
+    void test_get_EvictsTheLeastRecentlyUsedFiles_WhenTheCacheIsFull() throws Exception {
+        File a = write("a.dsl", "workspace {", "}");
+        File b = write("b.dsl", "workspace {", "}");
+        File c = write("c.dsl", "workspace {", "}");
+        long size = LexedDslFile.lex(a).getEstimatedSize();
+        cache = new LexedDslFileCache(2 * size);
+
+        LexedDslFile lexedFile = cache.get(a);
+        cache.get(b);
+        cache.get(a);
+        cache.get(c);
+        assertEquals(2 * size, cache.getSize());
+        assertSame(lexedFile, cache.get(a));
+        assertEquals(2, cache.getHitCount());
+
+        cache.get(b);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    void test_get_IsSharedByParsers() throws Exception {
+        File file = write("workspace.dsl", "workspace {", "    model {", "        !include people.inc", "    }", "}");
+        write("people.inc", "        user = person \"User\"");
+
+        for (int i = 0; i < 2; i++) {
+            StructurizrDslParser parser = new StructurizrDslParser();
+            parser.setLexedDslFileCache(cache);
+            parser.parse(file);
+            assertNotNull(parser.getWorkspace().getModel().getPersonWithName("User"));
+        }
+
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    void test_get_IsSharedByParsers_WhenAnIncludedFileChanges() throws Exception {
+        File file = write("workspace.dsl", "workspace {", "    model {", "        !include people.inc", "    }", "}");
+        write("people.inc", "        user = person \"User\"");
+
+        StructurizrDslParser parser = new StructurizrDslParser();
+        parser.setLexedDslFileCache(cache);
+        parser.parse(file);
+
+        write("people.inc", "        user = person \"Customer\"");
+        parser = new StructurizrDslParser();
+        parser.setLexedDslFileCache(cache);
+        parser.parse(file);
+
+        assertNotNull(parser.getWorkspace().getModel().getPersonWithName("Customer"));
+        assertNull(parser.getWorkspace().getModel().getPersonWithName("User"));
+        assertEquals(3, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    private File write(String name, String... lines) throws Exception {
+        File file = new File(directory, name);
+        long lastModified = file.exists() ? file.lastModified() : 0;
+        Files.write(file.toPath(), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+
+        // the file system might not record a change within the same second
+        if (file.lastModified() == lastModified) {
+            file.setLastModified(lastModified + 1000);
+        }
+
+        return file;
+    }
+
+}
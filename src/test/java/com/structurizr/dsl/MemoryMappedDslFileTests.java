@@ -0,0 +1,90 @@
+package com.structurizr.dsl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryMappedDslFileTests {
+
+    @TempDir
+    File directory;
+
+    private MemoryMappedDslFile map(String content) throws Exception {
+        File file = new File(directory, "workspace.dsl");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        return new MemoryMappedDslFile(file);
+    }
+
+    private List<String> lines(String content) throws Exception {
+        MemoryMappedDslFile mappedFile = map(content);
+
+        List<String> lines = new ArrayList<>();
+        while (mappedFile.nextLine()) {
+            lines.add(mappedFile.getLine());
+        }
+
+        return lines;
+    }
+
+    @Test
+    void test_nextLine_SplitsLinesInTheSameWayAsBufferedReader() throws Exception {
+        assertTrue(lines("").isEmpty());
+        assertEquals(Arrays.asList("a"), lines("a"));
+        assertEquals(Arrays.asList("a"), lines("a\n"));
+        assertEquals(Arrays.asList("a", "", "b"), lines("a\n\nb"));
+        assertEquals(Arrays.asList("a", "b", "c", ""), lines("a\r\nb\rc\n\r\n"));
+        assertEquals(Arrays.asList("", "a"), lines("\r\na\r"));
+    }
+
+    @Test
+    void test_getLine_DecodesUtf8() throws Exception {
+        assertEquals(Arrays.asList("person \"你好 Usér 🙂\"", "x"), lines("person \"你好 Usér 🙂\"\nx"));
+    }
+
+    @Test
+    void test_appendLineTo() throws Exception {
+        MemoryMappedDslFile mappedFile = map("// Usér\nb");
+        StringBuilder buf = new StringBuilder();
+
+        mappedFile.nextLine();
+        mappedFile.appendLineTo(buf);
+        mappedFile.nextLine();
+        mappedFile.appendLineTo(buf);
+
+        assertEquals("// Usérb", buf.toString());
+    }
+
+    @Test
+    void test_isEmptyOrSingleLineComment_AgreesWithTheLexer() throws Exception {
+        String[] lines = {
+                "",
+                "   \t ",
+                "# comment",
+                "   // comment",
+                "/ not a comment",
+                "/* multi-line comment */",
+                "person \"User\" # not a comment",
+                "// comment with \u2028 line separator",
+                "# comment with \u0085 next line",
+                "# comment with é",
+                "\u0000"
+        };
+
+        MemoryMappedDslFile mappedFile = map(String.join("\n", lines));
+        StructurizrDslLexer lexer = new StructurizrDslLexer();
+        for (String line : lines) {
+            assertTrue(mappedFile.nextLine());
+            assertEquals(!lexer.lex(line), mappedFile.isEmptyOrSingleLineComment(), line);
+        }
+    }
+
+}
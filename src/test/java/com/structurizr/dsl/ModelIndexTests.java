@@ -0,0 +1,118 @@
+package com.structurizr.dsl;
+
+import com.structurizr.model.Container;
+import com.structurizr.model.CreateImpliedRelationshipsUnlessAnyRelationshipExistsStrategy;
+import com.structurizr.model.Element;
+import com.structurizr.model.Person;
+import com.structurizr.model.Relationship;
+import com.structurizr.model.SoftwareSystem;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelIndexTests extends AbstractTests {
+
+    @Test
+    void test_getElementsWithAllTags() {
+        Person user = model.addPerson("User");
+        user.addTags("Tag 1", "Tag 2");
+        SoftwareSystem softwareSystem = model.addSoftwareSystem("Software System");
+        softwareSystem.addTags("Tag 1");
+
+        ModelIndex index = new ModelIndex(model);
+
+        assertEquals(2, index.getElementsWithAllTags("Tag 1").size());
+        assertEquals(1, index.getElementsWithAllTags("Tag 1", " Tag 2 ").size());
+        assertTrue(index.getElementsWithAllTags("Tag 1", "Tag 2").contains(user));
+        assertTrue(index.getElementsWithAllTags("Software System").contains(softwareSystem));
+        assertTrue(index.getElementsWithAllTags("Tag 1", "Tag 3").isEmpty());
+        assertTrue(index.getElementsWithAllTags("").isEmpty());
+        assertTrue(index.getElementsWithAllTags().isEmpty());
+    }
+
+    @Test
+    void test_getRelationshipsWithAllTags() {
+        Person user = model.addPerson("User");
+        SoftwareSystem softwareSystem = model.addSoftwareSystem("Software System");
+        Relationship relationship = user.uses(softwareSystem, "Uses");
+        relationship.addTags("Tag 1");
+
+        ModelIndex index = new ModelIndex(model);
+
+        assertTrue(index.getRelationshipsWithAllTags("Relationship", "Tag 1").contains(relationship));
+        assertTrue(index.getRelationshipsWithAllTags("Tag 2").isEmpty());
+    }
+
+    @Test
+    void test_refresh_AddsTheItemsCreatedSinceTheIndexWasLastUsed() {
+        model.setImpliedRelationshipsStrategy(new CreateImpliedRelationshipsUnlessAnyRelationshipExistsStrategy());
+        ModelIndex index = new ModelIndex(model);
+        Person user = model.addPerson("User");
+        user.addTags("Tag 1");
+        assertEquals(1, index.getElementsWithAllTags("Tag 1").size());
+
+        SoftwareSystem softwareSystem = model.addSoftwareSystem("Software System");
+        softwareSystem.addTags("Tag 1");
+        Container container = softwareSystem.addContainer("Container", "Description", "Technology");
+        user.uses(container, "Uses");
+        assertEquals(2, index.getElementsWithAllTags("Tag 1").size());
+        assertEquals(Collections.singleton(container), index.getElementsWithParent(softwareSystem));
+
+        // the implied relationship is created by the model
+        assertTrue(index.hasRelationship(user, container));
+        assertTrue(index.hasRelationship(user, softwareSystem));
+        assertEquals(2, index.getRelationships().size());
+    }
+
+    @Test
+    void test_invalidate() {
+        ModelIndex index = new ModelIndex(model);
+        Person user = model.addPerson("User");
+        assertTrue(index.getElementsWithAllTags("Tag 1").isEmpty());
+
+        // tags added to an item after it has been indexed are only picked up when the index is rebuilt
+        user.addTags("Tag 1");
+        assertTrue(index.getElementsWithAllTags("Tag 1").isEmpty());
+
+        index.invalidate();
+        assertEquals(Collections.singleton(user), index.getElementsWithAllTags("Tag 1"));
+        assertEquals(1, index.getElements().size());
+    }
+
+    @Test
+    void test_getRelationshipsBetween() {
+        Person user = model.addPerson("User");
+        SoftwareSystem a = model.addSoftwareSystem("A");
+        SoftwareSystem b = model.addSoftwareSystem("B");
+        Relationship userUsesA = user.uses(a, "Uses");
+        Relationship userUsesB = user.uses(b, "Uses");
+        Relationship aUsesB = a.uses(b, "Uses");
+
+        ModelIndex index = new ModelIndex(model);
+        Set<Element> all = new HashSet<>(Arrays.asList(user, a, b));
+
+        assertEquals(3, index.getRelationshipsBetween(all, all).size());
+        assertEquals(new HashSet<>(Arrays.asList(userUsesA, userUsesB)), index.getRelationshipsBetween(Collections.singleton(user), all));
+        assertEquals(new HashSet<>(Arrays.asList(userUsesB, aUsesB)), index.getRelationshipsBetween(all, Collections.singleton(b)));
+        assertEquals(Collections.singleton(aUsesB), index.getRelationshipsBetween(Collections.singleton(a), Collections.singleton(b)));
+        assertTrue(index.getRelationshipsBetween(Collections.singleton(b), all).isEmpty());
+    }
+
+    @Test
+    void test_hasRelationship() {
+        Person user = model.addPerson("User");
+        SoftwareSystem softwareSystem = model.addSoftwareSystem("Software System");
+        user.uses(softwareSystem, "Uses");
+
+        ModelIndex index = new ModelIndex(model);
+
+        assertTrue(index.hasRelationship(user, softwareSystem));
+        assertFalse(index.hasRelationship(softwareSystem, user));
+    }
+
+}
@@ -104,7 +104,7 @@ class SoftwareSystemInstanceParserTests extends AbstractTests {
         DeploymentNodeDslContext context = new DeploymentNodeDslContext(deploymentNode);
         Map<String, Element> elements = new HashMap<>();
         elements.put("softwaresystem", softwareSystem);
-        elements.put("group", new DeploymentGroup("Group"));
+        elements.put("group", new DeploymentGroup("Group", "Live"));
         context.setElements(elements);
 
         parser.parse(context, tokens("softwareSystemInstance", "softwareSystem", "group"));
@@ -125,7 +125,7 @@ class SoftwareSystemInstanceParserTests extends AbstractTests {
         DeploymentNodeDslContext context = new DeploymentNodeDslContext(deploymentNode);
         Map<String, Element> elements = new HashMap<>();
         elements.put("softwaresystem", softwareSystem);
-        elements.put("group", new DeploymentGroup("Group"));
+        elements.put("group", new DeploymentGroup("Group", "Live"));
         context.setElements(elements);
 
         parser.parse(context, tokens("softwareSystemInstance", "softwareSystem", "group", "Tag 1, Tag 2"));
@@ -0,0 +1,54 @@
+package com.structurizr.dsl;
+
+/**
+ * Measures the time taken to parse lines whose keywords were handled at different positions in the chain of
+ * if/else statements that the parser used before the dispatcher was introduced (from near the top, for "url", to
+ * the very bottom, for "!constant"). With the dispatcher, the cost of finding the handler for a line doesn't depend
+ * on that position, so the times per line should be similar.
+ *
+ * Usage: java com.structurizr.dsl.StructurizrDslDispatcherBenchmark [number of lines] [iterations]
+ */
+public class StructurizrDslDispatcherBenchmark {
+
+    private static final String[][] CASES = {
+            // name, lines before, repeated line, lines after
+            { "url (early)", "model {\n user = person \"User\" {\n", "url https://structurizr.com", "}\n}\n" },
+            { "title (late)", "model {\n}\nviews {\n systemLandscape {\n", "title \"Title\"", "}\n}\n" },
+            { "terminology (late)", "model {\n}\nviews {\n terminology {\n", "person \"Actor\"", "}\n}\n" },
+            { "!constant (last)", "", "!constant NAME \"Value\"", "" },
+    };
+
+    public static void main(String[] args) throws Exception {
+        int numberOfLines = args.length > 0 ? Integer.parseInt(args[0]) : 300000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        String[] sources = new String[CASES.length];
+        for (int i = 0; i < CASES.length; i++) {
+            StringBuilder dsl = new StringBuilder();
+            dsl.append("workspace {\n");
+            dsl.append(CASES[i][1]);
+            for (int line = 0; line < numberOfLines; line++) {
+                dsl.append(CASES[i][2]).append('\n');
+            }
+            dsl.append(CASES[i][3]);
+            dsl.append("}\n");
+
+            sources[i] = dsl.toString();
+        }
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            StringBuilder buf = new StringBuilder();
+            buf.append("Iteration ").append(iteration + 1).append(":");
+            for (int i = 0; i < CASES.length; i++) {
+                long start = System.nanoTime();
+                new StructurizrDslParser().parse(sources[i]);
+                long time = System.nanoTime() - start;
+
+                buf.append(" ").append(CASES[i][0]).append(" ").append(time / numberOfLines).append(" ns/line;");
+            }
+
+            System.out.println(buf);
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.structurizr.dsl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.structurizr.dsl.StructurizrDslDispatcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructurizrDslDispatcherTests extends AbstractTests {
+
+    private StructurizrDslDispatcher dispatcher = new StructurizrDslDispatcher();
+    private List<String> handled = new ArrayList<>();
+
+    private String dispatch(Class<?> contextType, String... tokens) throws Exception {
+        DslLine line = new DslLine(new File("."));
+        line.reset(tokens(tokens), null, 1, String.join(" ", tokens));
+
+        for (Rule rule : dispatcher.getRules(contextType, tokens[0])) {
+            if (rule.accepts(line)) {
+                rule.handle(line);
+                return handled.get(handled.size()-1);
+            }
+        }
+
+        return null;
+    }
+
+    @Test
+    void test_getRules_MatchesTheKeywordIgnoringCase() throws Exception {
+        dispatcher.register("softwareSystem", in(ModelDslContext.class), line -> handled.add("softwareSystem"));
+
+        assertEquals("softwareSystem", dispatch(ModelDslContext.class, "softwaresystem", "Name"));
+        assertEquals("softwareSystem", dispatch(ModelDslContext.class, "SOFTWARESYSTEM", "Name"));
+        assertNull(dispatch(ModelDslContext.class, "person", "Name"));
+    }
+
+    @Test
+    void test_getRules_MatchesSubtypesOfTheRegisteredContext() throws Exception {
+        dispatcher.register("include", in(StaticViewDslContext.class), line -> handled.add("static"));
+
+        assertEquals("static", dispatch(SystemContextViewDslContext.class, "include", "*"));
+        assertEquals("static", dispatch(ContainerViewDslContext.class, "include", "*"));
+        assertNull(dispatch(DynamicViewDslContext.class, "include", "*"));
+    }
+
+    @Test
+    void test_getRules_ReturnsRulesInRegistrationOrder() throws Exception {
+        dispatcher.register(null, in(ModelDslContext.class), line -> line.getTokens().size() > 2 && "->".equals(line.getTokens().get(1)), line -> handled.add("relationship"));
+        dispatcher.register("person", in(ModelDslContext.class), line -> handled.add("person"));
+        dispatcher.register(null, in(ModelDslContext.class), line -> handled.add("any"));
+
+        assertEquals("relationship", dispatch(ModelDslContext.class, "person", "->", "b"));
+        assertEquals("person", dispatch(ModelDslContext.class, "person", "Name"));
+        assertEquals("any", dispatch(ModelDslContext.class, "softwareSystem", "Name"));
+    }
+
+    @Test
+    void test_getRules_DistinguishesAnEmptyContextStackFromAnyContext() throws Exception {
+        dispatcher.register("workspace", NO_CONTEXT, line -> handled.add("workspace"));
+        dispatcher.register("!constant", ANY_CONTEXT, line -> handled.add("constant"));
+
+        assertEquals("workspace", dispatch(null, "workspace"));
+        assertNull(dispatch(WorkspaceDslContext.class, "workspace"));
+        assertEquals("constant", dispatch(null, "!constant", "name", "value"));
+        assertEquals("constant", dispatch(ViewsDslContext.class, "!constant", "name", "value"));
+    }
+
+    @Test
+    void test_register_InvalidatesPreviouslyComputedRules() throws Exception {
+        dispatcher.register("person", in(ModelDslContext.class), line -> handled.add("person"));
+        assertNull(dispatch(ModelDslContext.class, "softwareSystem", "Name"));
+
+        dispatcher.register("softwareSystem", in(ModelDslContext.class), line -> handled.add("softwareSystem"));
+        assertEquals("softwareSystem", dispatch(ModelDslContext.class, "softwareSystem", "Name"));
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.structurizr.dsl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the time taken to tokenize lines of DSL with the regular expressions that were previously used by the
+ * parser, and with the lexer that replaced them. Both produce the same tokens for the generated lines (this is
+ * checked before timing starts).
+ *
+ * Usage: java com.structurizr.dsl.StructurizrDslLexerBenchmark [number of lines] [iterations]
+ */
+public class StructurizrDslLexerBenchmark {
+
+    // the regular expressions that were previously used to tokenize lines
+    private static final Pattern EMPTY_LINE_PATTERN = Pattern.compile("^\\s*");
+    private static final Pattern COMMENT_PATTERN = Pattern.compile("^\\s*?(//|#).*$");
+    private static final Pattern TOKENS_PATTERN = Pattern.compile("\"((\\\\.|[^\"])*)\"|(\\S+)");
+
+    private static final String[] LINES = {
+            "workspace \"Name\" \"Description\" {",
+            "    // a comment",
+            "",
+            "        user = person \"User\" \"A user of my software system.\" \"Tag 1,Tag 2\"",
+            "        softwareSystem = softwareSystem \"Software System\" \"My software system, code-named \\\"X\\\".\" {",
+            "            webapp = container \"Web Application\" \"Delivers content\" \"Java and Spring MVC\"",
+            "        user -> webapp \"Uses\" \"HTTPS\"",
+            "    # another comment",
+            "            autoLayout lr 300 300",
+            "        }",
+    };
+
+    public static void main(String[] args) {
+        int numberOfLines = args.length > 0 ? Integer.parseInt(args[0]) : 400000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        String[] lines = new String[numberOfLines];
+        for (int i = 0; i < numberOfLines; i++) {
+            lines[i] = LINES[i % LINES.length];
+        }
+
+        StructurizrDslLexer lexer = new StructurizrDslLexer();
+        for (String line : LINES) {
+            List<String> expected = tokenizeWithRegularExpressions(line);
+            List<String> actual = lexer.lex(line) ? lexer.getTokens() : null;
+            if (expected == null ? actual != null : !expected.equals(actual)) {
+                throw new RuntimeException("The tokens for \"" + line + "\" differ: " + expected + " vs " + actual);
+            }
+        }
+
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            long regularExpressionTokens = 0;
+            for (String line : lines) {
+                List<String> tokens = tokenizeWithRegularExpressions(line);
+                if (tokens != null) {
+                    regularExpressionTokens += tokens.size();
+                }
+            }
+            long regularExpressionTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long lexerTokens = 0;
+            for (String line : lines) {
+                if (lexer.lex(line)) {
+                    lexerTokens += lexer.getTokens().size();
+                }
+            }
+            long lexerTime = System.nanoTime() - start;
+
+            System.out.println("Iteration " + (i + 1) + ": regular expressions " + (regularExpressionTime / 1000000) + " ms (" + regularExpressionTokens + " tokens), lexer " + (lexerTime / 1000000) + " ms (" + lexerTokens + " tokens)");
+        }
+    }
+
+    /**
+     * Tokenizes a line in the same way as the parser did before the lexer was introduced.
+     *
+     * @return  the tokens, or null if the line is empty or a single line comment
+     */
+    private static List<String> tokenizeWithRegularExpressions(String line) {
+        if (EMPTY_LINE_PATTERN.matcher(line).matches()) {
+            return null;
+        } else if (COMMENT_PATTERN.matcher(line).matches()) {
+            return null;
+        }
+
+        List<String> tokens = new ArrayList<>();
+        Matcher m = TOKENS_PATTERN.matcher(line.trim());
+        while (m.find()) {
+            if (m.group(1) != null) {
+                // this is a token specified between double-quotes
+                tokens.add(m.group(1));
+            } else if (m.group(3) != null) {
+                // this is a token specified without double-quotes
+                tokens.add(m.group(3));
+            }
+        }
+
+        return tokens;
+    }
+
+}
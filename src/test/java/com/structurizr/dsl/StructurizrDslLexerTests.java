@@ -0,0 +1,120 @@
+package com.structurizr.dsl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructurizrDslLexerTests {
+
+    // the regular expressions that were previously used to tokenize lines
+    private static final Pattern EMPTY_LINE_PATTERN = Pattern.compile("^\\s*");
+    private static final Pattern COMMENT_PATTERN = Pattern.compile("^\\s*?(//|#).*$");
+    private static final Pattern TOKENS_PATTERN = Pattern.compile("\"((\\\\.|[^\"])*)\"|(\\S+)");
+
+    private StructurizrDslLexer lexer = new StructurizrDslLexer();
+
+    @Test
+    void test_lex_ReturnsFalse_WhenTheLineIsEmpty() {
+        assertFalse(lexer.lex(""));
+        assertFalse(lexer.lex("   "));
+        assertFalse(lexer.lex("\t \f"));
+    }
+
+    @Test
+    void test_lex_ReturnsFalse_WhenTheLineIsASingleLineComment() {
+        assertFalse(lexer.lex("// comment"));
+        assertFalse(lexer.lex("    # comment"));
+        assertFalse(lexer.lex("//"));
+    }
+
+    @Test
+    void test_lex_ReturnsTokens() {
+        assertTrue(lexer.lex("    user = person \"User\" \"A user of my software system.\" {"));
+        assertEquals(Arrays.asList("user", "=", "person", "User", "A user of my software system.", "{"), lexer.getTokens());
+    }
+
+    @Test
+    void test_lex_ReturnsTokenOffsets() {
+        assertTrue(lexer.lex("a -> \"b c\""));
+        assertEquals(3, lexer.getTokenCount());
+        assertEquals(0, lexer.getTokenStart(0));
+        assertEquals(1, lexer.getTokenEnd(0));
+        assertEquals(2, lexer.getTokenStart(1));
+        assertEquals(4, lexer.getTokenEnd(1));
+        assertEquals(6, lexer.getTokenStart(2));
+        assertEquals(9, lexer.getTokenEnd(2));
+    }
+
+    @Test
+    void test_lex_ReturnsTheLineStartAndEnd() {
+        assertTrue(lexer.lex("  /* comment */  "));
+        assertTrue(lexer.lineStartsWith("/*"));
+        assertTrue(lexer.lineEndsWith("*/"));
+        assertFalse(lexer.lineStartsWith("*/"));
+    }
+
+    @Test
+    void test_getToken_ThrowsAnException_WhenTheIndexIsOutOfBounds() {
+        lexer.lex("a b");
+        try {
+            lexer.getToken(2);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertEquals("Index: 2, Size: 2", e.getMessage());
+        }
+    }
+
+    @Test
+    void test_lex_ProducesTheSameTokensAsTheRegularExpressions() {
+        String[] lines = {
+                "workspace {",
+                "}",
+                "    a -> b \"Uses\" \"HTTPS\" \"Tag 1,Tag 2\"",
+                "softwareSystem = softwareSystem \"Software System\" \"My software system, code-named \\\"X\\\".\"",
+                "\"\"",
+                "\"unterminated",
+                "\"unterminated with spaces",
+                "a\"b c\"d",
+                "\"a\"b",
+                "\"C:\\\"",
+                "\"a\\\"b\\\"c",
+                "\"a\\\\\"b",
+                "\"\\\\\"",
+                "/* comment */",
+                "/*",
+                "*/",
+                "a // not a comment",
+                "\t tabs\tand  spaces\t",
+                "\u0001control\u0001",
+                "# comment\u2028still a line",
+                "你好 \"Usér \uD83D\uDE42\"",
+                "!constant NAME \"${VALUE}\"",
+                "element.tag==\"Tag 1\" element.tag!=Tag2",
+        };
+
+        for (String line : lines) {
+            assertEquals(tokenize(line), lexer.lex(line) ? lexer.getTokens() : null, line);
+        }
+    }
+
+    private List<String> tokenize(String line) {
+        if (EMPTY_LINE_PATTERN.matcher(line).matches() || COMMENT_PATTERN.matcher(line).matches()) {
+            return null;
+        }
+
+        List<String> tokens = new ArrayList<>();
+        Matcher m = TOKENS_PATTERN.matcher(line.trim());
+        while (m.find()) {
+            tokens.add(m.group(1) != null ? m.group(1) : m.group(3));
+        }
+
+        return tokens;
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.structurizr.dsl;
+
+import com.structurizr.Workspace;
+import com.structurizr.model.CreateImpliedRelationshipsUnlessAnyRelationshipExistsStrategy;
+import com.structurizr.model.DefaultImpliedRelationshipsStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class StructurizrDslParseCacheTests extends AbstractTests {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void test_construction_ThrowsAnException_WhenTheMaximumSizeIsNotPositive() {
+        try {
+            new StructurizrDslParseCache(new File(directory, "cache"), 0);
+            fail();
+        } catch (Exception e) {
+            assertEquals("The maximum size must be greater than zero", e.getMessage());
+        }
+    }
+
+    @Test
+    void test_parse_LoadsTheWorkspaceFromTheCache_WhenNothingHasChanged() throws Exception {
+        StructurizrDslParseCache cache = new StructurizrDslParseCache(new File(directory, "cache"), Long.MAX_VALUE);
+        File file = new File("examples/big-bank-plc.dsl");
+
+        StructurizrDslParser parser = new StructurizrDslParser();
+        parser.setParseCache(cache);
+        parser.parse(file);
+        Workspace workspace = parser.getWorkspace();
+
+        parser = new StructurizrDslParser();
+        parser.setParseCache(cache);
+        parser.parse(file);
+        assertNotSame(workspace, parser.getWorkspace());
+        assertWorkspacesAreEqual(workspace, parser.getWorkspace());
+        assertEquals(workspace.getModel().getImpliedRelationshipsStrategy().getClass(), parser.getWorkspace().getModel().getImpliedRelationshipsStrategy().getClass());
+
+        try {
+            parser.parse("workspace {\n}");
+            fail();
+        } catch (Exception e) {
+            assertEquals("The workspace has been loaded from the parse cache, so nothing else can be parsed", e.getMessage());
+        }
+    }
+
+    @Test
+    void test_parse_ParsesTheFileAgain_WhenAnIncludedFileHasChanged() throws Exception {
+        StructurizrDslParseCache cache = new StructurizrDslParseCache(new File(directory, "cache"), Long.MAX_VALUE);
+        File file = write("workspace.dsl", "workspace {", "    model {", "        !include people.inc", "    }", "}");
+        write("people.inc", "        user = person \"User\"");
+
+        assertNotNull(parse(cache, file).getModel().getPersonWithName("User"));
+
+        write("people.inc", "        user = person \"Customer\"");
+        StructurizrDslParser parser = new StructurizrDslParser();
+        parser.setParseCache(cache);
+        parser.parse(file);
+        assertNotNull(parser.getWorkspace().getModel().getPersonWithName("Customer"));
+
+        // the workspace was parsed, so more DSL can be parsed
+        parser.parse("workspace {\n}");
+    }
+
+    @Test
+    void test_parse_EvictsTheLeastRecentlyUsedWorkspaces_WhenTheCacheIsFull() throws Exception {
+        File cacheDirectory = new File(directory, "cache");
+        File file1 = write("1.dsl", "workspace {", "    model {", "        user = person \"User\"", "    }", "}");
+        File file2 = write("2.dsl", "workspace {", "    model {", "        a = softwareSystem \"A\"", "    }", "}");
+        File file3 = write("3.dsl", "workspace {", "    model {", "        user = person \"User\"", "    }", "}");
+
+        parse(new StructurizrDslParseCache(cacheDirectory, 1), file1);
+        assertEquals(0, cacheDirectory.listFiles().length);
+
+        StructurizrDslParseCache cache = new StructurizrDslParseCache(cacheDirectory, Long.MAX_VALUE);
+        parse(cache, file1);
+        File entry1 = cacheDirectory.listFiles()[0];
+        parse(cache, file2);
+        File entry2 = entry1.equals(cacheDirectory.listFiles()[0]) ? cacheDirectory.listFiles()[1] : cacheDirectory.listFiles()[0];
+        entry1.setLastModified(1000);
+        entry2.setLastModified(2000);
+
+        // the entries for 1.dsl and 3.dsl are the same size
+        parse(new StructurizrDslParseCache(cacheDirectory, entry1.length() + entry2.length()), file3);
+        assertEquals(2, cacheDirectory.listFiles().length);
+        assertFalse(entry1.exists());
+        assertTrue(entry2.exists());
+    }
+
+    @Test
+    void test_parse_RestoresTheImpliedRelationshipsStrategy() throws Exception {
+        StructurizrDslParseCache cache = new StructurizrDslParseCache(new File(directory, "cache"), Long.MAX_VALUE);
+        File file = write("workspace.dsl", "workspace {", "    model {", "        impliedRelationships false", "    }", "}");
+
+        assertTrue(parse(cache, file).getModel().getImpliedRelationshipsStrategy() instanceof DefaultImpliedRelationshipsStrategy);
+        assertTrue(parse(cache, file).getModel().getImpliedRelationshipsStrategy() instanceof DefaultImpliedRelationshipsStrategy);
+
+        write("workspace.dsl", "workspace {", "    model {", "    }", "}");
+        assertTrue(parse(cache, file).getModel().getImpliedRelationshipsStrategy() instanceof CreateImpliedRelationshipsUnlessAnyRelationshipExistsStrategy);
+        assertTrue(parse(cache, file).getModel().getImpliedRelationshipsStrategy() instanceof CreateImpliedRelationshipsUnlessAnyRelationshipExistsStrategy);
+    }
+
+    @Test
+    void test_parse_ReturnsTheParsedWorkspace_WhenItCannotBeCached() throws Exception {
+        File cacheDirectory = new File(directory, "cache");
+        StructurizrDslParseCache cache = new StructurizrDslParseCache(cacheDirectory, Long.MAX_VALUE);
+        assertTrue(cacheDirectory.delete());
+
+        File file = write("workspace.dsl", "workspace {", "    model {", "        user = person \"User\"", "    }", "}");
+        assertNotNull(parse(cache, file).getModel().getPersonWithName("User"));
+        assertFalse(cacheDirectory.exists());
+    }
+
+    @Test
+    void test_parse_WritesEntriesThatOtherUsersCanRead() throws Exception {
+        File cacheDirectory = new File(directory, "cache");
+        assumeTrue(cacheDirectory.toPath().getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+        File file = write("workspace.dsl", "workspace {", "}");
+        parse(new StructurizrDslParseCache(cacheDirectory, Long.MAX_VALUE), file);
+
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(cacheDirectory.listFiles()[0].toPath());
+        assertTrue(permissions.contains(PosixFilePermission.GROUP_READ));
+        assertTrue(permissions.contains(PosixFilePermission.OTHERS_READ));
+    }
+
+    private Workspace parse(StructurizrDslParseCache cache, File file) throws Exception {
+        StructurizrDslParser parser = new StructurizrDslParser();
+        parser.setParseCache(cache);
+        parser.parse(file);
+
+        return parser.getWorkspace();
+    }
+
+    private void assertWorkspacesAreEqual(Workspace expected, Workspace actual) {
+        assertEquals(DslUtils.getDsl(expected), DslUtils.getDsl(actual));
+        assertEquals(expected.getModel().getElements().size(), actual.getModel().getElements().size());
+        expected.getModel().getElements().forEach(element -> assertEquals(element.getCanonicalName(), actual.getModel().getElement(element.getId()).getCanonicalName()));
+        assertEquals(expected.getModel().getRelationships().size(), actual.getModel().getRelationships().size());
+        expected.getModel().getRelationships().forEach(relationship -> assertEquals(relationship.getDescription(), actual.getModel().getRelationship(relationship.getId()).getDescription()));
+        assertEquals(expected.getViews().getViews().size(), actual.getViews().getViews().size());
+        expected.getViews().getViews().forEach(view -> assertEquals(view.getElements().size(), actual.getViews().getViews().stream().filter(v -> v.getKey().equals(view.getKey())).findFirst().get().getElements().size()));
+    }
+
+    private File write(String name, String... lines) throws Exception {
+        File file = new File(directory, name);
+        long lastModified = file.exists() ? file.lastModified() : 0;
+        Files.write(file.toPath(), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+
+        // the file system might not record a change within the same second
+        if (file.lastModified() == lastModified) {
+            file.setLastModified(lastModified + 1000);
+        }
+
+        return file;
+    }
+
+}
@@ -0,0 +1,276 @@
+package com.structurizr.dsl;
+
+import com.structurizr.Workspace;
+import com.structurizr.model.Relationship;
+import com.structurizr.view.ContainerView;
+import com.structurizr.view.StaticView;
+import com.structurizr.view.SystemLandscapeView;
+import com.structurizr.view.View;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class StructurizrDslParserTests extends AbstractTests {
+
+    @TempDir
+    File directory;
+
+    private Workspace parse(String... lines) throws Exception {
+        StructurizrDslParser parser = new StructurizrDslParser();
+        parser.parse(String.join("\n", lines));
+
+        return parser.getWorkspace();
+    }
+
+    @Test
+    void test_parse_SubstitutesConstants() throws Exception {
+        Workspace workspace = parse(
+                "!constant NAME \"Software System\"",
+                "!constant DESCRIPTION \"Description of ${NAME}\"",
+                "workspace {",
+                "    model {",
+                "        softwareSystem \"${NAME}\" \"${DESCRIPTION}, ${NAME} (${UNDEFINED}) ${} $${NAME}} ${NAME\"",
+                "    }",
+                "}");
+
+        assertEquals("Description of Software System, Software System (${UNDEFINED}) ${} $Software System} ${NAME", workspace.getModel().getSoftwareSystemWithName("Software System").getDescription());
+    }
+
+    @Test
+    void test_parse_SubstitutesRedefinedConstants() throws Exception {
+        Workspace workspace = parse(
+                "!constant NAME A",
+                "!constant NAME ${NAME}B",
+                "workspace {",
+                "    model {",
+                "        softwareSystem \"${NAME}\"",
+                "    }",
+                "}");
+
+        assertNotNull(workspace.getModel().getSoftwareSystemWithName("AB"));
+    }
+
+    @Test
+    void test_parse_SubstitutesEnvironmentVariables_UnlessRunningInRestrictedMode() throws Exception {
+        String name = System.getenv().keySet().stream().filter(n -> n.matches("[a-zA-Z0-9-_.]+") && System.getenv(n).matches("[\\w/:.-]+")).findFirst().orElse(null);
+        assumeTrue(name != null);
+
+        StructurizrDslParser parser = new StructurizrDslParser();
+        parser.parse("workspace \"${" + name + "}\"");
+        assertEquals(System.getenv(name), parser.getWorkspace().getName());
+
+        parser = new StructurizrDslParser();
+        parser.setRestricted(true);
+        parser.parse("workspace \"${" + name + "}\"");
+        assertEquals("${" + name + "}", parser.getWorkspace().getName());
+    }
+
+    @Test
+    void test_parse_IncludesElementsByTag_WhenTheModelChangesBetweenViews() throws Exception {
+        Workspace workspace = parse(
+                "workspace {",
+                "    model {",
+                "        a = softwareSystem \"A\" \"\" \"Tag\"",
+                "    }",
+                "    views {",
+                "        systemLandscape \"first\" {",
+                "            include element.tag==Tag",
+                "        }",
+                "    }",
+                "    model {",
+                "        b = softwareSystem \"B\" \"\" \"Tag\"",
+                "        a -> b \"Uses\"",
+                "    }",
+                "    views {",
+                "        systemLandscape \"second\" {",
+                "            include element.tag==Tag",
+                "            include relationship.tag==Relationship",
+                "        }",
+                "    }",
+                "}");
+
+        SystemLandscapeView first = (SystemLandscapeView)workspace.getViews().getViews().stream().filter(v -> v.getKey().equals("first")).findFirst().get();
+        SystemLandscapeView second = (SystemLandscapeView)workspace.getViews().getViews().stream().filter(v -> v.getKey().equals("second")).findFirst().get();
+        assertEquals(1, first.getElements().size());
+        assertEquals(2, second.getElements().size());
+        assertEquals(1, second.getRelationships().size());
+    }
+
+    @Test
+    void test_parse_IncludesElementsMatchingAnExpression() throws Exception {
+        Workspace workspace = parse(
+                "workspace {",
+                "    model {",
+                "        ss = softwareSystem \"Software System\" {",
+                "            webapp = container \"Web Application\"",
+                "            db = container \"Database\" \"\" \"\" \"Database\"",
+                "        }",
+                "        webapp -> db \"Reads from\"",
+                "    }",
+                "    views {",
+                "        container ss \"containers\" {",
+                "            include \"element.type==Container && !element.tag==Database\"",
+                "        }",
+                "    }",
+                "}");
+
+        ContainerView view = workspace.getViews().getContainerViews().iterator().next();
+        assertEquals(1, view.getElements().size());
+        assertNotNull(view.getElementView(workspace.getModel().getSoftwareSystemWithName("Software System").getContainerWithName("Web Application")));
+    }
+
+    @Test
+    void test_parse_CreatesTheSameImpliedRelationships_WhenTheyAreDeferred() throws Exception {
+        String dsl = String.join("\n",
+                "workspace {",
+                "    model {",
+                "        user = person \"User\"",
+                "        a = softwareSystem \"A\" {",
+                "            a1 = container \"A1\" {",
+                "                a1c1 = component \"A1C1\"",
+                "                a1c2 = component \"A1C2\"",
+                "            }",
+                "        }",
+                "        b = softwareSystem \"B\" {",
+                "            b1 = container \"B1\" {",
+                "                b1c1 = component \"B1C1\"",
+                "            }",
+                "        }",
+                "        user -> a1c1 \"Uses\"",
+                "        a1c1 -> a1c2 \"Calls\"",
+                "        a -> b \"Uses\"",
+                "        a1c1 -> b1c1 \"Calls\" \"HTTPS\" \"Tag\"",
+                "        impliedRelationships false",
+                "        a1c2 -> b1c1 \"Sends events to\"",
+                "        impliedRelationships true",
+                "        user -> b1c1 \"Views\"",
+                "        live = deploymentEnvironment \"Live\" {",
+                "            deploymentNode \"Server 1\" {",
+                "                containerInstance a1",
+                "            }",
+                "            deploymentNode \"Server 2\" {",
+                "                containerInstance b1",
+                "                softwareSystemInstance b",
+                "            }",
+                "        }",
+                "    }",
+                "    views {",
+                "        dynamic a1 {",
+                "            a1c2 -> b1c1 \"Sends events to\"",
+                "        }",
+                "    }",
+                "}");
+
+        StructurizrDslParser parser = new StructurizrDslParser();
+        parser.parse(dsl);
+        Set<String> expected = summarise(parser.getWorkspace().getModel().getRelationships());
+
+        parser = new StructurizrDslParser();
+        parser.setDeferImpliedRelationships(true);
+        parser.parse(dsl);
+        Set<String> actual = summarise(parser.getWorkspace().getModel().getRelationships());
+
+        assertTrue(expected.contains("User -> B: Views"));
+        assertFalse(expected.contains("A -> B: Calls"));
+        assertFalse(expected.contains("A1 -> B1: Sends events to"));
+        assertEquals(expected, actual);
+    }
+
+    private Set<String> summarise(Set<Relationship> relationships) {
+        return relationships.stream().map(r -> r.getSource().getName() + " -> " + r.getDestination().getName() + ": " + r.getDescription() + (r.getTags().contains("Tag") ? " [Tag]" : "")).collect(Collectors.toSet());
+    }
+
+    @Test
+    void test_parse_ProducesTheSameWorkspace_WhenTheFilesInADirectoryAreLexedInParallel() throws Exception {
+        write("1-workspace.dsl", "workspace {", "    model {");
+        write("2-people.dsl", "        user = person \"User\"", "        /* a", "           comment */");
+        write("3-systems/a.dsl", "        !constant NAME \"Software System\"", "        ss = softwareSystem \"${NAME}\" {", "            webapp = container \"Web Application\"", "        }");
+        write("3-systems/b.dsl", "        user -> webapp \"Uses\"");
+        write("4-views.dsl", "    }", "    views {", "        container ss {", "            include *", "        }", "    }", "}");
+
+        StructurizrDslParser parser = new StructurizrDslParser();
+        parser.parse(directory);
+        Workspace expected = parser.getWorkspace();
+
+        parser = new StructurizrDslParser();
+        parser.setParallelDirectoryParsing(true);
+        parser.parse(directory);
+        Workspace actual = parser.getWorkspace();
+
+        assertEquals(DslUtils.getDsl(expected), DslUtils.getDsl(actual));
+        assertEquals(expected.getModel().getSoftwareSystemWithName("Software System").getContainerWithName("Web Application").getId(), actual.getModel().getSoftwareSystemWithName("Software System").getContainerWithName("Web Application").getId());
+        assertEquals(2, actual.getModel().getRelationships().size());
+        assertEquals(2, actual.getViews().getContainerViews().iterator().next().getElements().size());
+    }
+
+    @Test
+    void test_parse_ProducesTheSameViews_WhenViewsAreResolvedInParallel() throws Exception {
+        for (String path : new String[] { "examples/big-bank-plc.dsl", "examples/test.dsl" }) {
+            StructurizrDslParser parser = new StructurizrDslParser();
+            parser.parse(new File(path));
+            List<String> expected = summarise(parser.getWorkspace());
+
+            parser = new StructurizrDslParser();
+            parser.setParallelViewResolution(true);
+            parser.parse(new File(path));
+            List<String> actual = summarise(parser.getWorkspace());
+
+            assertEquals(expected, actual, path);
+        }
+    }
+
+    @Test
+    void test_parse_ThrowsAnException_WhenAViewResolvedInParallelRefersToAnElementThatDoesNotExist() {
+        StructurizrDslParser parser = new StructurizrDslParser();
+        parser.setParallelViewResolution(true);
+
+        try {
+            parser.parse(String.join("\n",
+                    "workspace {",
+                    "    model {",
+                    "        a = softwareSystem \"A\"",
+                    "    }",
+                    "    views {",
+                    "        systemContext a {",
+                    "            include *",
+                    "        }",
+                    "        systemContext a \"key\" {",
+                    "            include b",
+                    "        }",
+                    "    }",
+                    "}"));
+            fail();
+        } catch (StructurizrDslParserException e) {
+            assertEquals("The element/relationship \"b\" does not exist at line 10: include b", e.getMessage());
+        }
+    }
+
+    private List<String> summarise(Workspace workspace) {
+        List<String> summary = new ArrayList<>();
+        for (View view : workspace.getViews().getViews()) {
+            summary.add(view.getKey() + ": " + view.getElements().stream().map(ev -> ev.getElement().getCanonicalName()).sorted().collect(Collectors.toList()));
+            summary.add(view.getKey() + ": " + view.getRelationships().stream().map(rv -> rv.getRelationship().getSource().getCanonicalName() + " -> " + rv.getRelationship().getDestination().getCanonicalName() + ": " + rv.getRelationship().getDescription()).sorted().collect(Collectors.toList()));
+            summary.add(view.getKey() + ": " + (view.getAutomaticLayout() != null) + (view instanceof StaticView ? ", " + ((StaticView)view).getAnimations().size() : ""));
+        }
+        summary.sort(String::compareTo);
+
+        return summary;
+    }
+
+    private void write(String name, String... lines) throws Exception {
+        File file = new File(directory, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,312 @@
+package com.structurizr.dsl;
+
+import com.structurizr.Workspace;
+import com.structurizr.model.SoftwareSystem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructurizrDslSyntaxTreeTests extends AbstractTests {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void test_parseSyntaxTree_BuildsANodeForEachBlock() throws Exception {
+        StructurizrDslSyntaxTree tree = new StructurizrDslParser().parseSyntaxTree(String.join("\n",
+                "workspace {",
+                "    model {",
+                "        /*",
+                "            softwareSystem \"A\" {",
+                "        */",
+                "        a = softwareSystem \"A\" {",
+                "            container \"Container\"",
+                "        }",
+                "    }",
+                "}"));
+
+        assertEquals(1, tree.getNodes().size());
+        StructurizrDslSyntaxTree.Node workspace = tree.getNodes().get(0);
+        assertEquals(1, workspace.getLineNumber());
+        assertEquals(10, workspace.getEnd().getLineNumber());
+
+        StructurizrDslSyntaxTree.Node model = workspace.getChildren().get(0);
+        assertEquals(4, model.getChildren().size());
+        assertTrue(model.getChildren().get(1).getChildren().isEmpty());
+
+        StructurizrDslSyntaxTree.Node softwareSystem = model.getChildren().get(3);
+        assertEquals("a", softwareSystem.getTokens().get(0));
+        assertEquals("        a = softwareSystem \"A\" {", softwareSystem.getText());
+        assertEquals(1, softwareSystem.getChildren().size());
+        assertEquals(8, softwareSystem.getEnd().getLineNumber());
+    }
+
+    @Test
+    void test_parseSyntaxTree_ExpandsIncludes() throws Exception {
+        StructurizrDslSyntaxTree tree = new StructurizrDslParser().parseSyntaxTree(new File("examples/include.dsl"));
+
+        StructurizrDslSyntaxTree.Node include = find(tree.getNodes().get(0), "!include");
+        assertNotNull(include);
+        assertTrue(include.isInclude());
+    }
+
+    @Test
+    void test_parse_ProducesTheSameWorkspaceAsParsingTheDsl() throws Exception {
+        for (String example : new String[] { "examples/getting-started.dsl", "examples/big-bank-plc.dsl", "examples/include.dsl", "examples/groups.dsl", "examples/deployment-groups.dsl" }) {
+            StructurizrDslParser parser = new StructurizrDslParser();
+            parser.parse(new File(example));
+            Workspace expected = parser.getWorkspace();
+
+            parser = new StructurizrDslParser();
+            parser.parse(parser.parseSyntaxTree(new File(example)));
+            Workspace actual = parser.getWorkspace();
+
+            assertEquals(DslUtils.getDsl(expected), DslUtils.getDsl(actual), example);
+            assertEquals(summarise(expected), summarise(actual), example);
+        }
+    }
+
+    @Test
+    void test_parse_AllowsRelationshipsToReferToElementsDefinedLater() throws Exception {
+        StructurizrDslParser parser = new StructurizrDslParser();
+        StructurizrDslSyntaxTree tree = parser.parseSyntaxTree(String.join("\n",
+                "workspace {",
+                "    model {",
+                "        a = softwareSystem \"A\" {",
+                "            -> b \"Sends data to\"",
+                "        }",
+                "        r = a -> c \"Uses\" {",
+                "            url \"https://example.com\"",
+                "        }",
+                "        b = softwareSystem \"B\"",
+                "        c = softwareSystem \"C\" {",
+                "            web = container \"Web\"",
+                "        }",
+                "        live = deploymentEnvironment \"Live\" {",
+                "            deploymentNode \"Server\" {",
+                "                containerInstance web",
+                "            }",
+                "        }",
+                "    }",
+                "}"));
+        parser.parse(tree);
+
+        Workspace workspace = parser.getWorkspace();
+        SoftwareSystem a = workspace.getModel().getSoftwareSystemWithName("A");
+        SoftwareSystem b = workspace.getModel().getSoftwareSystemWithName("B");
+        SoftwareSystem c = workspace.getModel().getSoftwareSystemWithName("C");
+        assertEquals("Sends data to", a.getEfferentRelationshipWith(b).getDescription());
+        assertEquals("https://example.com", a.getEfferentRelationshipWith(c).getUrl());
+
+        // the DSL is kept in the order it was written
+        assertTrue(DslUtils.getDsl(workspace).indexOf("-> b") < DslUtils.getDsl(workspace).indexOf("b = softwareSystem"));
+
+        // the same tree can be used to populate another workspace
+        StructurizrDslParser anotherParser = new StructurizrDslParser();
+        anotherParser.parse(tree);
+        assertEquals(3, anotherParser.getWorkspace().getModel().getSoftwareSystems().size());
+    }
+
+    @Test
+    void test_parse_ThrowsAnException_WhenARelationshipRefersToAnElementThatIsNeverDefined() throws Exception {
+        StructurizrDslParser parser = new StructurizrDslParser();
+        StructurizrDslSyntaxTree tree = parser.parseSyntaxTree(String.join("\n",
+                "workspace {",
+                "    model {",
+                "        a = softwareSystem \"A\"",
+                "        a -> b \"Uses\"",
+                "    }",
+                "}"));
+
+        try {
+            parser.parse(tree);
+            fail();
+        } catch (StructurizrDslParserException e) {
+            assertEquals("The destination element \"b\" does not exist at line 4: a -> b \"Uses\"", e.getMessage());
+        }
+    }
+
+    // elements and relationships are held in hash sets, so neither the JSON nor the IDs of relationships replicated
+    // between instances (which are created by iterating over a set of elements) are in a predictable order
+    @Test
+    void test_edit_ProducesTheSameTreeAsBuildingTheEditedFile() throws Exception {
+        List<String> lines = new ArrayList<>(Files.readAllLines(new File("examples/big-bank-plc.dsl").toPath(), StandardCharsets.UTF_8));
+        File file = write("workspace.dsl", lines);
+        List<String> replacementLines = new ArrayList<>(lines);
+        replacementLines.addAll(Arrays.asList("{", "}", "/*", "*/", "/* comment */", "", "group \"Group\" {", "!include included.dsl"));
+        write("included.dsl", Arrays.asList("x = softwareSystem \"X\" {", "}"));
+
+        StructurizrDslParser parser = new StructurizrDslParser();
+        StructurizrDslSyntaxTree tree = parser.parseSyntaxTree(file);
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            int startLineNumber = 1 + random.nextInt(lines.size() + 1);
+            int endLineNumber = Math.min(lines.size(), startLineNumber - 1 + random.nextInt(4));
+            List<String> edit = new ArrayList<>();
+            for (int j = random.nextInt(4); j > 0; j--) {
+                edit.add(replacementLines.get(random.nextInt(replacementLines.size())));
+            }
+
+            tree = tree.edit(file, startLineNumber, endLineNumber, edit);
+            lines.subList(startLineNumber - 1, endLineNumber).clear();
+            lines.addAll(startLineNumber - 1, edit);
+            write("workspace.dsl", lines);
+
+            assertEquals(describe(parser.parseSyntaxTree(file).getNodes()), describe(tree.getNodes()), "Edit " + i);
+        }
+    }
+
+    @Test
+    void test_edit_SharesTheNodesThatAreNotAffectedByTheEdit() throws Exception {
+        File file = write("workspace.dsl", Arrays.asList(
+                "workspace {",
+                "    model {",
+                "        a = softwareSystem \"A\" {",
+                "            container \"Container\"",
+                "        }",
+                "        b = softwareSystem \"B\"",
+                "    }",
+                "    views {",
+                "        systemLandscape {",
+                "            include *",
+                "        }",
+                "    }",
+                "}"));
+        StructurizrDslSyntaxTree tree = new StructurizrDslParser().parseSyntaxTree(file);
+        StructurizrDslSyntaxTree.Node model = tree.getNodes().get(0).getChildren().get(0);
+        StructurizrDslSyntaxTree.Node views = tree.getNodes().get(0).getChildren().get(1);
+
+        // the number of lines doesn't change, so everything outside the edited block is shared
+        StructurizrDslSyntaxTree editedTree = tree.edit(file, 4, 4, Collections.singletonList("            container \"Web Application\""));
+        StructurizrDslSyntaxTree.Node editedModel = editedTree.getNodes().get(0).getChildren().get(0);
+        assertFalse(model.isSharedWith(editedModel));
+        assertTrue(model.getChildren().get(1).isSharedWith(editedModel.getChildren().get(1)));
+        assertTrue(views.isSharedWith(editedTree.getNodes().get(0).getChildren().get(1)));
+        assertEquals("            container \"Web Application\"", editedModel.getChildren().get(0).getChildren().get(0).getText());
+        assertEquals("            container \"Container\"", model.getChildren().get(0).getChildren().get(0).getText());
+
+        // lines are added, so the following nodes are copied with new line numbers, but their children are shared
+        editedTree = tree.edit(file, 6, 5, Collections.singletonList("        c = softwareSystem \"C\""));
+        editedModel = editedTree.getNodes().get(0).getChildren().get(0);
+        StructurizrDslSyntaxTree.Node editedViews = editedTree.getNodes().get(0).getChildren().get(1);
+        assertTrue(model.getChildren().get(0).isSharedWith(editedModel.getChildren().get(0)));
+        assertEquals(3, editedModel.getChildren().size());
+        assertEquals(7, editedModel.getChildren().get(2).getLineNumber());
+        assertEquals(9, editedViews.getLineNumber());
+        assertFalse(views.isSharedWith(editedViews));
+        assertTrue(views.getChildren().get(0).isSharedWith(editedViews.getChildren().get(0)));
+        assertEquals(10, editedViews.getChildren().get(0).getLineNumber());
+        assertEquals(11, editedViews.getChildren().get(0).getChildren().get(0).getLineNumber());
+        assertEquals(12, editedViews.getChildren().get(0).getEnd().getLineNumber());
+        assertEquals(10, views.getChildren().get(0).getChildren().get(0).getLineNumber());
+    }
+
+    @Test
+    void test_edit_RebuildsTheEnclosingBlocks_WhenTheEditClosesABlock() throws Exception {
+        File file = write("workspace.dsl", Arrays.asList(
+                "workspace {",
+                "    model {",
+                "        a = softwareSystem \"A\" {",
+                "            container \"Container\"",
+                "        }",
+                "    }",
+                "}"));
+        StructurizrDslSyntaxTree tree = new StructurizrDslParser().parseSyntaxTree(file);
+
+        tree = tree.edit(file, 4, 4, Collections.singletonList("        }"));
+        StructurizrDslSyntaxTree.Node model = tree.getNodes().get(0).getChildren().get(0);
+        assertEquals(4, model.getChildren().get(0).getEnd().getLineNumber());
+        assertEquals(5, model.getEnd().getLineNumber());
+        assertEquals(6, tree.getNodes().get(0).getEnd().getLineNumber());
+        assertEquals(2, tree.getNodes().size());
+        assertEquals("}", tree.getNodes().get(1).getText());
+    }
+
+    @Test
+    void test_edit_ThrowsAnException_WhenTheFileHasBeenIncluded() throws Exception {
+        File file = write("workspace.dsl", Arrays.asList("workspace {", "    model {", "        !include included.dsl", "    }", "}"));
+        File includedFile = write("included.dsl", Collections.singletonList("x = softwareSystem \"X\""));
+        StructurizrDslSyntaxTree tree = new StructurizrDslParser().parseSyntaxTree(file);
+
+        try {
+            tree.edit(includedFile, 1, 1, Collections.singletonList("y = softwareSystem \"Y\""));
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("The file " + includedFile.getAbsolutePath() + " has been included via !include, so can't be edited", e.getMessage());
+        }
+    }
+
+    @Test
+    void test_edit_ThrowsAnException_WhenTheLineNumbersAreNotValid() throws Exception {
+        File file = write("workspace.dsl", Arrays.asList("workspace {", "}"));
+        StructurizrDslSyntaxTree tree = new StructurizrDslParser().parseSyntaxTree(file);
+
+        try {
+            tree.edit(file, 2, 3, Collections.emptyList());
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("The line numbers 2-3 are not valid for " + file.getAbsolutePath() + ", which has 2 lines", e.getMessage());
+        }
+    }
+
+    private File write(String name, List<String> lines) throws Exception {
+        File file = new File(directory, name);
+        Files.write(file.toPath(), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+
+        return file;
+    }
+
+    private String describe(List<StructurizrDslSyntaxTree.Node> nodes) {
+        StringBuilder buf = new StringBuilder();
+        for (StructurizrDslSyntaxTree.Node node : nodes) {
+            describe(node, "", buf);
+        }
+
+        return buf.toString();
+    }
+
+    private void describe(StructurizrDslSyntaxTree.Node node, String indent, StringBuilder buf) {
+        buf.append(indent).append(node.getFile().getName()).append(":").append(node.getLineNumber()).append(node.isInclude() ? " (include) " : " ").append(node.getText()).append("\n");
+        for (StructurizrDslSyntaxTree.Node child : node.getChildren()) {
+            describe(child, indent + "  ", buf);
+        }
+
+        if (node.getEnd() != null) {
+            buf.append(indent).append("end ").append(node.getEnd().getLineNumber()).append(" ").append(node.getEnd().getText()).append("\n");
+        }
+    }
+
+    private Set<String> summarise(Workspace workspace) {
+        Set<String> summary = new TreeSet<>();
+        workspace.getModel().getElements().forEach(e -> summary.add(e.getId() + " " + e.getCanonicalName() + " " + e.getTags() + " " + e.getProperties()));
+        workspace.getModel().getRelationships().forEach(r -> summary.add(r.getSourceId() + " -> " + r.getDestinationId() + " " + r.getDescription() + " " + r.getTechnology() + " " + r.getTags()));
+        workspace.getViews().getViews().forEach(v -> {
+            v.getElements().forEach(ev -> summary.add(v.getKey() + " " + ev.getId()));
+            v.getRelationships().forEach(rv -> summary.add(v.getKey() + " " + rv.getRelationship().getSourceId() + " -> " + rv.getRelationship().getDestinationId() + " " + rv.getDescription() + " " + rv.getOrder()));
+        });
+
+        return summary;
+    }
+
+    private StructurizrDslSyntaxTree.Node find(StructurizrDslSyntaxTree.Node node, String keyword) {
+        if (!node.getTokens().isEmpty() && node.getTokens().get(0).equals(keyword)) {
+            return node;
+        }
+
+        for (StructurizrDslSyntaxTree.Node child : node.getChildren()) {
+            StructurizrDslSyntaxTree.Node found = find(child, keyword);
+            if (found != null) {
+                return found;
+            }
+        }
+
+        return null;
+    }
+
+}
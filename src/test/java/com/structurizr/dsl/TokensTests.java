@@ -0,0 +1,66 @@
+package com.structurizr.dsl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokensTests extends AbstractTests {
+
+    @Test
+    void test_get_ReturnsTheTrimmedAndUnescapedToken() {
+        Tokens tokens = tokens(" name ", "My software system, code-named \\\"X\\\".", "\\\" quoted \\\"");
+
+        assertEquals("name", tokens.get(0));
+        assertEquals("My software system, code-named \"X\".", tokens.get(1));
+        assertEquals("\" quoted \"", tokens.get(2));
+    }
+
+    @Test
+    void test_get_ReturnsTheSameInstance_WhenTheTokenDoesNotNeedToBeUnescaped() {
+        String token = "name";
+        Tokens tokens = new Tokens(token);
+
+        assertSame(token, tokens.get(0));
+    }
+
+    @Test
+    void test_get_ThrowsAnException_WhenTheIndexIsOutOfBounds() {
+        try {
+            tokens("a", "b").from(1).get(1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertEquals("Index: 1, Size: 1", e.getMessage());
+        }
+    }
+
+    @Test
+    void test_contains() {
+        Tokens tokens = tokens("include", "*");
+
+        assertTrue(tokens.contains("*"));
+        assertTrue(tokens.contains(" * "));
+        assertFalse(tokens.contains("->"));
+        assertFalse(tokens.from(2).contains("*"));
+    }
+
+    @Test
+    void test_withoutContextStartToken() {
+        Tokens tokens = tokens("person", "User", "{").withoutContextStartToken();
+        assertEquals(2, tokens.size());
+        assertEquals("User", tokens.get(1));
+
+        tokens = tokens("person", "User");
+        assertSame(tokens, tokens.withoutContextStartToken());
+    }
+
+    @Test
+    void test_from() {
+        Tokens tokens = tokens("user", "=", "person", "User", "{").from(2);
+
+        assertEquals(3, tokens.size());
+        assertEquals("person", tokens.get(0));
+        assertEquals("User", tokens.get(1));
+        assertEquals(2, tokens.withoutContextStartToken().size());
+    }
+
+}
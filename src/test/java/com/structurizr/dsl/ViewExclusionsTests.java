@@ -0,0 +1,61 @@
+package com.structurizr.dsl;
+
+import com.structurizr.model.*;
+import com.structurizr.view.DeploymentView;
+import com.structurizr.view.SystemLandscapeView;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViewExclusionsTests extends AbstractTests {
+
+    @Test
+    void test_apply_RemovesTheExcludedElementsAndTheirRelationships() {
+        Person user = model.addPerson("User");
+        SoftwareSystem a = model.addSoftwareSystem("A");
+        SoftwareSystem b = model.addSoftwareSystem("B");
+        SoftwareSystem c = model.addSoftwareSystem("C");
+        user.uses(a, "Uses");
+        user.uses(b, "Uses");
+        Relationship aUsesC = a.uses(c, "Uses");
+        Relationship bUsesC = b.uses(c, "Uses");
+
+        SystemLandscapeView view = views.createSystemLandscapeView("key", "Description");
+        view.addAllElements();
+        assertEquals(4, view.getRelationships().size());
+
+        ViewExclusions exclusions = new ViewExclusions();
+        exclusions.exclude(user);
+        exclusions.exclude(bUsesC);
+        exclusions.apply(view, element -> view.remove((Person)element));
+
+        assertEquals(3, view.getElements().size());
+        assertNull(view.getElementView(user));
+        assertEquals(1, view.getRelationships().size());
+        assertNotNull(view.getRelationshipView(aUsesC));
+    }
+
+    @Test
+    void test_apply_RemovesReplicatedRelationships() {
+        SoftwareSystem softwareSystem = model.addSoftwareSystem("Software System");
+        Container webApplication = softwareSystem.addContainer("Web Application");
+        Container database = softwareSystem.addContainer("Database");
+        Relationship relationship = webApplication.uses(database, "Reads from");
+
+        DeploymentNode deploymentNode = model.addDeploymentNode("Live", "Server", "", "");
+        deploymentNode.add(webApplication);
+        deploymentNode.add(database);
+
+        DeploymentView view = views.createDeploymentView("key", "Description");
+        view.setEnvironment("Live");
+        view.add(deploymentNode);
+        assertEquals(1, view.getRelationships().size());
+
+        ViewExclusions exclusions = new ViewExclusions();
+        exclusions.excludeWithReplicas(relationship);
+        exclusions.apply(view, element -> {});
+
+        assertEquals(0, view.getRelationships().size());
+    }
+
+}
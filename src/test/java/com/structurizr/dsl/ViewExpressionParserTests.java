@@ -0,0 +1,158 @@
+package com.structurizr.dsl;
+
+import com.structurizr.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViewExpressionParserTests extends AbstractTests {
+
+    private ViewExpressionParser parser = new ViewExpressionParser();
+    private ModelDslContext context;
+
+    private Person user;
+    private SoftwareSystem softwareSystem;
+    private Container webApplication;
+    private Container database;
+    private Relationship userUsesWebApplication;
+    private Relationship webApplicationUsesDatabase;
+
+    @BeforeEach
+    void setUp() {
+        user = model.addPerson("User");
+        softwareSystem = model.addSoftwareSystem("Software System");
+        webApplication = softwareSystem.addContainer("Web Application");
+        database = softwareSystem.addContainer("Database");
+        database.addTags("Database");
+        userUsesWebApplication = user.uses(webApplication, "Uses");
+        webApplicationUsesDatabase = webApplication.uses(database, "Reads from");
+        webApplicationUsesDatabase.addTags("Database");
+
+        Map<String, Element> elements = new HashMap<>();
+        elements.put("ss", softwareSystem);
+        elements.put("webapp", webApplication);
+
+        context = context();
+        context.setElements(elements);
+    }
+
+    private Object evaluate(String expression) {
+        return parser.parse(expression).evaluate(context);
+    }
+
+    @Test
+    void test_isExpression() {
+        assertTrue(ViewExpressionParser.isExpression("element.tag==Tag"));
+        assertTrue(ViewExpressionParser.isExpression("element.tag!=Tag"));
+        assertFalse(ViewExpressionParser.isExpression("softwareSystem.container"));
+    }
+
+    @Test
+    void test_parse_CachesCompiledExpressions() {
+        assertSame(parser.parse("element.tag==Tag"), parser.parse("element.tag==Tag"));
+        assertNotSame(parser.parse("element.tag==Tag"), parser.parse("element.tag!=Tag"));
+    }
+
+    @Test
+    void test_evaluate_ElementProperties() {
+        assertEquals(Collections.singleton(database), evaluate("element.tag==Database"));
+        assertEquals(new HashSet<>(Arrays.asList(webApplication, database)), evaluate("element.type==Container"));
+        assertEquals(new HashSet<>(Arrays.asList(webApplication, database)), evaluate("element.parent==ss"));
+        assertEquals(new HashSet<>(Arrays.asList(user, softwareSystem)), evaluate("element.type!=container"));
+    }
+
+    @Test
+    void test_evaluate_RelationshipProperties() {
+        assertEquals(Collections.singleton(webApplicationUsesDatabase), evaluate("relationship.tag==Database"));
+        assertEquals(Collections.singleton(webApplicationUsesDatabase), evaluate("relationship.source==webapp"));
+        assertEquals(Collections.singleton(userUsesWebApplication), evaluate("relationship.destination==webapp"));
+    }
+
+    @Test
+    void test_evaluate_BooleanOperators() {
+        assertEquals(Collections.singleton(webApplication), evaluate("element.type==Container && element.tag!=Database"));
+        assertEquals(Collections.singleton(webApplication), evaluate("element.parent==ss&&!element.tag==Database"));
+        assertEquals(new HashSet<>(Arrays.asList(user, database)), evaluate("element.type==Person || element.tag==Database"));
+        assertEquals(Collections.singleton(user), evaluate("!(element.type==Container || element.type==SoftwareSystem)"));
+        assertEquals(Collections.singleton(webApplication), evaluate("(element.tag==Database || element.type==Person) && element.type==Container && element.tag!=Database || element.tag==Element && element.parent==ss && !element.tag==Database"));
+    }
+
+    @Test
+    void test_parse_ThrowsAnException_WhenThePropertyIsNotValid() {
+        try {
+            parser.parse("element.name==Name");
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("The expression \"element.name==Name\" is not valid: the property \"element.name\" is not valid", e.getMessage());
+        }
+    }
+
+    @Test
+    void test_parse_ThrowsAnException_WhenTheElementTypeIsNotValid() {
+        try {
+            parser.parse("element.type==Box");
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("The expression \"element.type==Box\" is not valid: the element type \"Box\" is not valid", e.getMessage());
+        }
+    }
+
+    @Test
+    void test_parse_ThrowsAnException_WhenElementAndRelationshipPropertiesAreCombined() {
+        try {
+            parser.parse("element.tag==Tag && relationship.tag==Tag");
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("The expression \"element.tag==Tag && relationship.tag==Tag\" is not valid: element and relationship properties can't be combined", e.getMessage());
+        }
+    }
+
+    @Test
+    void test_parse_ThrowsAnException_WhenAParenthesisIsNotClosed() {
+        try {
+            parser.parse("(element.tag==Tag");
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("The expression \"(element.tag==Tag\" is not valid: expected \")\"", e.getMessage());
+        }
+    }
+
+    @Test
+    void test_evaluate_ThrowsAnException_WhenTheElementDoesNotExist() {
+        try {
+            evaluate("element.parent==container");
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("The element \"container\" does not exist", e.getMessage());
+        }
+    }
+
+    @Test
+    void test_bind_ResolvesTheIdentifiersOnce() {
+        ViewExpression<Element> expression = parser.parse("element.type==Container && element.parent==ss").asElementExpression().bind(context);
+
+        // the bound expression doesn't need to look up "ss" again
+        context.setElements(new HashMap<>());
+        assertTrue(expression.matches(webApplication, context));
+        assertFalse(expression.matches(softwareSystem, context));
+    }
+
+    @Test
+    void test_bind_ThrowsAnException_WhenTheElementDoesNotExist() {
+        try {
+            // the element.parent condition would never be tested, because no elements have the tag
+            parser.parse("element.tag==Unknown && !element.parent==container").bind(context);
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("The element \"container\" does not exist", e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.structurizr.dsl;
+
+import com.structurizr.view.FilterMode;
+import com.structurizr.view.SystemLandscapeView;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkspaceIndexTests extends AbstractTests {
+
+    @Test
+    void test_construction_IndexesTheViewsAndDeploymentEnvironmentsInTheWorkspace() {
+        SystemLandscapeView view = views.createSystemLandscapeView("landscape", "Description");
+        views.createFilteredView(view, "filtered", "Description", FilterMode.Include, "Tag");
+        model.addDeploymentNode("Live", "Deployment Node", "Description", "Technology");
+
+        WorkspaceIndex index = new WorkspaceIndex(workspace);
+
+        assertSame(view, index.getView("landscape"));
+        assertNull(index.getView("filtered"));
+        assertTrue(index.hasDeploymentEnvironment("Live"));
+        assertFalse(index.hasDeploymentEnvironment("Dev"));
+    }
+
+    @Test
+    void test_addView_And_addDeploymentEnvironment() {
+        WorkspaceIndex index = new WorkspaceIndex();
+        assertNull(index.getView("landscape"));
+        assertFalse(index.hasDeploymentEnvironment("Live"));
+
+        SystemLandscapeView view = views.createSystemLandscapeView("landscape", "Description");
+        index.addView(view);
+        index.addDeploymentEnvironment("Live");
+
+        assertSame(view, index.getView("landscape"));
+        assertTrue(index.hasDeploymentEnvironment("Live"));
+    }
+
+}